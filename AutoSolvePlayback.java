@@ -0,0 +1,140 @@
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * The AutoSolvePlayback class plays the moves of the auto solve back on the board of the game at a
+ * fixed rate. The SolverService delivers the moves as fast as the solver finds them, and a Swing
+ * timer applies up to `movesPerFrame` of them on every frame, revealing all the cells of the frame
+ * through the GameEngine at once, so the window gets a single CellsRevealed event and repaint per
+ * frame. With MAX_SPEED every move that has arrived is applied on the next frame.
+ *
+ * The marks of the solver are held back until the moves before them have been played, so the hints
+ * always match what is shown on the board. Since every SolverResult only holds the changes since
+ * the one before, the batches with marks are kept in order and none of them is skipped.
+ */
+public class AutoSolvePlayback {
+    public static final int MAX_SPEED = Integer.MAX_VALUE;
+
+    // 60 frames per second
+    private static final int FRAME_MILLIS = 16;
+
+    private final GameEngine engine;
+    private final SolverService service;
+    private final Consumer<SolverService.Batch> marks;
+
+    private final ArrayDeque<int[]> moves;
+    private final javax.swing.Timer timer;
+
+    private final ArrayDeque<SolverService.Batch> pendingMarks;
+    private int movesPerFrame;
+
+    /**
+     * The function sets the playback rate. The worker is allowed to be a few frames ahead, so the
+     * playback never has to wait for it, but not more, so cancelling doesn't leave many moves.
+     *
+     * @param movesPerFrame The amount of moves per frame, or MAX_SPEED.
+     */
+    public void setMovesPerFrame(int movesPerFrame) {
+        this.movesPerFrame = Math.max(1, movesPerFrame);
+
+        long maxAhead = (long) this.movesPerFrame * 4;
+        this.service.setMaxAhead((int) Math.min(Integer.MAX_VALUE, Math.max(maxAhead, 16)));
+    }
+
+    /**
+     * The function queues the moves of a batch from the solver worker, and its marks if it has any.
+     *
+     * @param batch The batch received on the Event Dispatch Thread.
+     */
+    public void enqueue(SolverService.Batch batch) {
+        for (int i = 0; i < batch.moveCount; i++) {
+            this.moves.add(batch.move(i));
+        }
+
+        if (batch.hasMarks()) {
+            this.pendingMarks.add(batch);
+        }
+
+        if (!this.timer.isRunning()) {
+            this.timer.start();
+        }
+    }
+
+    /**
+     * The function plays all the queued moves and shows the pending marks at once, which is done
+     * when the player moves.
+     */
+    public void flush() {
+        this.play(this.moves.size());
+    }
+
+    /**
+     * The function stops the playback and drops everything queued, e.g. when the game is lost.
+     */
+    public void stop() {
+        this.timer.stop();
+        this.service.played(this.moves.size());
+
+        this.moves.clear();
+        this.pendingMarks.clear();
+    }
+
+    /**
+     * The function applies up to `budget` moves and reveals their cells at once. Once every move is
+     * played, the pending marks are shown and the timer stops until the next batch. A move that ends
+     * the game stops the playback.
+     *
+     * @param budget The maximum amount of moves to play.
+     */
+    private void play(int budget) {
+        int played = 0;
+        int[] cells = new int[64];
+        int cellCount = 0;
+
+        while (played < budget && !this.moves.isEmpty()) {
+            int[] move = this.moves.poll();
+
+            if (cellCount + move.length > cells.length) {
+                cells = Arrays.copyOf(cells, Math.max(cells.length * 2, cellCount + move.length));
+            }
+
+            System.arraycopy(move, 0, cells, cellCount, move.length);
+            cellCount += move.length;
+            played++;
+        }
+
+        if (played > 0) {
+            this.service.played(played);
+            this.engine.revealSolved(Arrays.copyOf(cells, cellCount));
+
+            if (this.engine.isOver()) {
+                this.stop();
+
+                return;
+            }
+        }
+
+        if (this.moves.isEmpty()) {
+            this.timer.stop();
+
+            while (!this.pendingMarks.isEmpty()) {
+                this.marks.accept(this.pendingMarks.poll());
+            }
+        }
+    }
+
+    // The `AutoSolvePlayback(GameEngine engine, SolverService service, Consumer<Batch> marks)` constructor
+    // creates a stopped playback for the engine of a game. The marks consumer receives the batches
+    // whose marks should be shown.
+    public AutoSolvePlayback(GameEngine engine, SolverService service, Consumer<SolverService.Batch> marks) {
+        this.engine = engine;
+        this.service = service;
+        this.marks = marks;
+
+        this.moves = new ArrayDeque<int[]>();
+        this.timer = new javax.swing.Timer(FRAME_MILLIS, e -> this.play(this.movesPerFrame));
+
+        this.pendingMarks = new ArrayDeque<SolverService.Batch>();
+        this.setMovesPerFrame(1);
+    }
+}
@@ -0,0 +1,566 @@
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * The Board class is the headless model of a Minesweeper grid. It holds the whole state of the
+ * game in primitive arrays indexed by `row * width + col`, so it does not depend on Swing and a
+ * board with millions of cells only takes a few MB. Both the Game and the Solver work against it,
+ * while the Minefield component only displays what is stored here.
+ */
+public class Board {
+    public final int width;
+    public final int height;
+    public final int bombAmount;
+
+    public int revealedCount;
+    public int flaggedCount;
+
+    // one bit per cell for each of the boolean properties
+    // and one byte per cell for the neighboring bombs count
+    private final BitSet bombs;
+    private final BitSet flags;
+    private final BitSet revealed;
+    private final byte[] neighboringBombs;
+
+    // how many bytes of counts pack() and unpack()
+    // copy between the array and the buffer at once
+    private static final int PACK_CHUNK = 1 << 16;
+
+    /**
+     * The function converts a row and column into the index used by the board arrays.
+     *
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @return The method returns the index of the cell.
+     */
+    public int index(int row, int col) {
+        return row * this.width + col;
+    }
+
+    /**
+     * The function returns the row of the cell at the given index.
+     *
+     * @param index The index of the cell.
+     * @return The method returns the row of the cell.
+     */
+    public int row(int index) {
+        return index / this.width;
+    }
+
+    /**
+     * The function returns the column of the cell at the given index.
+     *
+     * @param index The index of the cell.
+     * @return The method returns the column of the cell.
+     */
+    public int col(int index) {
+        return index % this.width;
+    }
+
+    /**
+     * The function returns the total amount of cells on the board.
+     *
+     * @return The method returns width * height.
+     */
+    public int size() {
+        return this.width * this.height;
+    }
+
+    /**
+     * The function checks whether a row and column lie inside the board.
+     *
+     * @param row The row to check.
+     * @param col The column to check.
+     * @return The method returns true if the position is inside the board.
+     */
+    public boolean inBounds(int row, int col) {
+        return row >= 0 && col >= 0 && row < this.height && col < this.width;
+    }
+
+    /**
+     * The function writes the indices of all the in-bounds neighbors of a cell into the given array
+     * and returns how many were written. The caller provides the array so that no memory is
+     * allocated while iterating over neighbors.
+     *
+     * @param index The index of the cell whose neighbors are requested.
+     * @param out An array of at least 8 elements that receives the neighbor indices.
+     * @return The method returns the number of neighbors written into `out`.
+     */
+    public int neighbors(int index, int[] out) {
+        int row = this.row(index);
+        int col = this.col(index);
+        int count = 0;
+
+        for (int y = row - 1; y <= row + 1; y++) {
+            if (y < 0 || y >= this.height) {
+                continue;
+            }
+
+            for (int x = col - 1; x <= col + 1; x++) {
+                if (x < 0 || x >= this.width || (y == row && x == col)) {
+                    continue;
+                }
+
+                out[count++] = y * this.width + x;
+            }
+        }
+
+        return count;
+    }
+
+    public boolean isBomb(int index) {
+        return this.bombs.get(index);
+    }
+
+    public boolean isFlagged(int index) {
+        return this.flags.get(index);
+    }
+
+    public boolean isRevealed(int index) {
+        return this.revealed.get(index);
+    }
+
+    public int getNeighboringBombs(int index) {
+        return this.neighboringBombs[index];
+    }
+
+    public void setNeighboringBombs(int index, int neighboringBombs) {
+        this.neighboringBombs[index] = (byte) neighboringBombs;
+    }
+
+    /**
+     * The function "makeBomb" marks the cell at the given index as a bomb.
+     *
+     * @param index The index of the cell.
+     */
+    public void makeBomb(int index) {
+        this.bombs.set(index);
+    }
+
+    /**
+     * The function marks the cell at the given index as revealed and keeps the revealed count up to
+     * date.
+     *
+     * @param index The index of the cell.
+     */
+    public void reveal(int index) {
+        if (this.revealed.get(index)) {
+            return;
+        }
+
+        this.revealed.set(index);
+        this.revealedCount++;
+    }
+
+    // boards with more cells than this are split into
+    // row bands that are counted in parallel
+    private static final int PARALLEL_THRESHOLD = 1 << 20;
+    private static final int BAND_CELLS = 1 << 18;
+
+    /**
+     * The RowBandCount task computes the neighboring bombs of a band of rows, splitting itself in
+     * half until the bands are small enough. It only holds the arrays it works on, not the board.
+     */
+    private static final class RowBandCount extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final BitSet bombs;
+        private final byte[] neighboringBombs;
+        private final int width;
+        private final int height;
+        private final int firstRow;
+        private final int lastRow;
+
+        @Override
+        protected void compute() {
+            int rows = this.lastRow - this.firstRow;
+
+            if (rows > 1 && (long) rows * this.width > BAND_CELLS) {
+                int middle = this.firstRow + rows / 2;
+                invokeAll(new RowBandCount(this.bombs, this.neighboringBombs, this.width, this.height, this.firstRow, middle),
+                          new RowBandCount(this.bombs, this.neighboringBombs, this.width, this.height, middle, this.lastRow));
+                return;
+            }
+
+            countRows(this.bombs, this.neighboringBombs, this.width, this.height, this.firstRow, this.lastRow);
+        }
+
+        RowBandCount(BitSet bombs, byte[] neighboringBombs, int width, int height, int firstRow, int lastRow) {
+            this.bombs = bombs;
+            this.neighboringBombs = neighboringBombs;
+            this.width = width;
+            this.height = height;
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+        }
+    }
+
+    /**
+     * The function sums the bombs of each cell of a row with its left and right neighbors.
+     *
+     * @param bombs The bombs of the board.
+     * @param width The width of the board.
+     * @param height The height of the board.
+     * @param row The row to sum, rows outside the board give all zeros.
+     * @param out An array of `width` elements that receives the sums.
+     */
+    private static void sumRow(BitSet bombs, int width, int height, int row, byte[] out) {
+        if (row < 0 || row >= height) {
+            Arrays.fill(out, (byte) 0);
+            return;
+        }
+
+        int offset = row * width;
+        int left = 0;
+        int middle = bombs.get(offset) ? 1 : 0;
+
+        for (int x = 0; x < width; x++) {
+            int right = x + 1 < width && bombs.get(offset + x + 1) ? 1 : 0;
+            out[x] = (byte) (left + middle + right);
+
+            left = middle;
+            middle = right;
+        }
+    }
+
+    /**
+     * The function computes the neighboring bombs of the rows [firstRow, lastRow). The horizontal
+     * sums of three consecutive rows are kept in a rolling window, so every cell is the sum of
+     * three precomputed values minus its own bomb. It only touches the arrays it is given, so the
+     * bands of a large board can be counted in parallel.
+     *
+     * @param bombs The bombs of the board.
+     * @param neighboringBombs The counts of the board, whose rows of the band are written.
+     * @param width The width of the board.
+     * @param height The height of the board.
+     * @param firstRow The first row of the band.
+     * @param lastRow The row after the last row of the band.
+     */
+    private static void countRows(BitSet bombs, byte[] neighboringBombs, int width, int height, int firstRow, int lastRow) {
+        byte[] above = new byte[width];
+        byte[] current = new byte[width];
+        byte[] below = new byte[width];
+
+        sumRow(bombs, width, height, firstRow - 1, above);
+        sumRow(bombs, width, height, firstRow, current);
+
+        for (int y = firstRow; y < lastRow; y++) {
+            sumRow(bombs, width, height, y + 1, below);
+
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                int self = bombs.get(offset + x) ? 1 : 0;
+                neighboringBombs[offset + x] = (byte) (above[x] + current[x] + below[x] - self);
+            }
+
+            byte[] recycled = above;
+            above = current;
+            current = below;
+            below = recycled;
+        }
+    }
+
+    /**
+     * The function computes the neighboring bombs of every cell of the board in one pass, and has
+     * to be called once after the bombs are placed. Large boards are split into row bands on the
+     * common ForkJoin pool.
+     */
+    public void computeNeighboringBombs() {
+        if ((long) this.width * this.height <= PARALLEL_THRESHOLD) {
+            countRows(this.bombs, this.neighboringBombs, this.width, this.height, 0, this.height);
+            return;
+        }
+
+        ForkJoinPool.commonPool().invoke(new RowBandCount(this.bombs, this.neighboringBombs, this.width, this.height, 0, this.height));
+    }
+
+    /**
+     * The function reveals a cell and, if it has no neighboring bombs, keeps revealing the cells
+     * around it until the whole opening is revealed. The flood fill uses an explicit queue of
+     * indices instead of recursion, so large openings can't overflow the stack. The neighboring
+     * bombs must already be computed with computeNeighboringBombs(). Flagged cells and bombs are
+     * never revealed by the cascade.
+     *
+     * @param start The index of the cell to reveal.
+     * @return The method returns the indices of all the cells revealed, in the order they were
+     * revealed.
+     */
+    public int[] revealFrom(int start) {
+        if (this.revealed.get(start)) {
+            return new int[0];
+        }
+
+        Profiling.Cascade event = new Profiling.Cascade();
+        event.begin();
+
+        int[] neighbors = new int[8];
+        int[] queue = new int[16];
+        int head = 0;
+        int tail = 0;
+
+        this.reveal(start);
+        queue[tail++] = start;
+
+        while (head < tail) {
+            int cell = queue[head++];
+
+            if (this.neighboringBombs[cell] != 0 || this.bombs.get(cell)) {
+                continue;
+            }
+
+            int neighborCount = this.neighbors(cell, neighbors);
+            for (int n = 0; n < neighborCount; n++) {
+                int neighbor = neighbors[n];
+
+                // skip if cell is revealed, flagged, or a bomb
+                if (this.revealed.get(neighbor) || this.flags.get(neighbor) || this.bombs.get(neighbor)) {
+                    continue;
+                }
+
+                // mark it revealed when queued so it is only queued once
+                this.reveal(neighbor);
+
+                if (tail == queue.length) {
+                    queue = Arrays.copyOf(queue, Math.min(queue.length * 2, this.size()));
+                }
+                queue[tail++] = neighbor;
+            }
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.start = start;
+            event.revealed = tail;
+            event.commit();
+        }
+
+        return Arrays.copyOf(queue, tail);
+    }
+
+    /**
+     * The function toggles the flag on an unrevealed cell.
+     *
+     * @param index The index of the cell.
+     * @return The method returns true if the cell is flagged after the call.
+     */
+    public boolean toggleFlag(int index) {
+        if (this.revealed.get(index)) {
+            return false;
+        }
+
+        boolean flagged = !this.flags.get(index);
+        this.flags.set(index, flagged);
+        this.flaggedCount += flagged ? 1 : -1;
+
+        return flagged;
+    }
+
+    /**
+     * The function copies the whole state of the board, so another thread can keep working on the
+     * copy while this board is changed.
+     *
+     * @return The method returns the independent copy.
+     */
+    public Board copy() {
+        Board copy = new Board(this.width, this.height, this.bombAmount);
+
+        copy.bombs.or(this.bombs);
+        copy.flags.or(this.flags);
+        copy.revealed.or(this.revealed);
+        System.arraycopy(this.neighboringBombs, 0, copy.neighboringBombs, 0, this.neighboringBombs.length);
+
+        copy.revealedCount = this.revealedCount;
+        copy.flaggedCount = this.flaggedCount;
+
+        return copy;
+    }
+
+    /**
+     * The function returns the first bomb at or after a cell, which iterates over all the bombs
+     * without checking every cell.
+     *
+     * @param from The board index to start at.
+     * @return The method returns the index of the bomb, or -1 if there is none.
+     */
+    public int nextBomb(int from) {
+        return this.bombs.nextSetBit(from);
+    }
+
+    /**
+     * The function returns the first flagged cell at or after a cell.
+     *
+     * @param from The board index to start at.
+     * @return The method returns the index of the flagged cell, or -1 if there is none.
+     */
+    public int nextFlagged(int from) {
+        return this.flags.nextSetBit(from);
+    }
+
+    /**
+     * The function returns the first cell at or after a cell that is revealed or not, which lets the
+     * revealed cells be stored as runs.
+     *
+     * @param from The board index to start at.
+     * @param revealed Whether a revealed or an unrevealed cell is searched.
+     * @return The method returns the index of the cell, or size() if there is none.
+     */
+    public int nextRevealed(int from, boolean revealed) {
+        int next = revealed ? this.revealed.nextSetBit(from) : this.revealed.nextClearBit(from);
+
+        return next < 0 ? this.size() : Math.min(next, this.size());
+    }
+
+    /**
+     * The function reveals all the cells in [from, to) at once, e.g. to restore a saved board.
+     *
+     * @param from The first index of the run.
+     * @param to The index after the last index of the run.
+     */
+    public void revealRange(int from, int to) {
+        this.revealedCount -= this.revealed.get(from, to).cardinality();
+        this.revealed.set(from, to);
+        this.revealedCount += to - from;
+    }
+
+    /**
+     * The function returns how many bytes pack() writes for a board with the given amount of cells:
+     * one bit per cell for the bombs, the flags and the revealed cells, each padded to whole 64-bit
+     * words, and four bits per cell for the neighboring bombs count.
+     *
+     * @param size The amount of cells of the board.
+     * @return The method returns the amount of bytes.
+     */
+    public static long packedSize(int size) {
+        long words = (size + 63L) / 64;
+
+        return 3 * 8 * words + (size + 1L) / 2;
+    }
+
+    /**
+     * The function writes the whole state of the board into a buffer, 7 bits per cell. The bitsets
+     * are written as whole words and the counts two per byte, so even a board with a hundred
+     * million cells is written with a few bulk copies and without an object per cell.
+     *
+     * @param buffer The buffer to write to, with at least packedSize() bytes remaining. It is
+     * written in little-endian order.
+     */
+    public void pack(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        int words = (this.size() + 63) / 64;
+        for (BitSet bits : new BitSet[] {this.bombs, this.flags, this.revealed}) {
+            // toLongArray() leaves out the trailing
+            // zero words, which are padded here
+            long[] set = bits.toLongArray();
+            buffer.asLongBuffer().put(set);
+            buffer.position(buffer.position() + 8 * set.length);
+
+            for (int word = set.length; word < words; word++) {
+                buffer.putLong(0);
+            }
+        }
+
+        // the low nibble holds the count of the even cell
+        int pairs = this.size() / 2;
+        byte[] chunk = new byte[Math.max(1, Math.min(PACK_CHUNK, pairs))];
+        for (int pair = 0; pair < pairs; pair += chunk.length) {
+            int length = Math.min(chunk.length, pairs - pair);
+
+            for (int i = 0, cell = 2 * pair; i < length; i++, cell += 2) {
+                chunk[i] = (byte) (this.neighboringBombs[cell] | (this.neighboringBombs[cell + 1] << 4));
+            }
+            buffer.put(chunk, 0, length);
+        }
+
+        if (this.size() % 2 == 1) {
+            buffer.put(this.neighboringBombs[this.size() - 1]);
+        }
+    }
+
+    /**
+     * The function replaces the whole state of the board with the one written by pack() for a
+     * board of the same size.
+     *
+     * @param buffer The buffer to read from, with at least packedSize() bytes remaining.
+     */
+    public void unpack(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        int words = (this.size() + 63) / 64;
+        for (BitSet bits : new BitSet[] {this.bombs, this.flags, this.revealed}) {
+            LongBuffer set = buffer.asLongBuffer();
+            set.limit(words);
+
+            bits.clear();
+            bits.or(BitSet.valueOf(set));
+            buffer.position(buffer.position() + 8 * words);
+        }
+
+        int pairs = this.size() / 2;
+        byte[] chunk = new byte[Math.max(1, Math.min(PACK_CHUNK, pairs))];
+        for (int pair = 0; pair < pairs; pair += chunk.length) {
+            int length = Math.min(chunk.length, pairs - pair);
+
+            buffer.get(chunk, 0, length);
+            for (int i = 0, cell = 2 * pair; i < length; i++, cell += 2) {
+                this.neighboringBombs[cell] = (byte) (chunk[i] & 0x0F);
+                this.neighboringBombs[cell + 1] = (byte) ((chunk[i] >> 4) & 0x0F);
+            }
+        }
+
+        if (this.size() % 2 == 1) {
+            this.neighboringBombs[this.size() - 1] = (byte) (buffer.get() & 0x0F);
+        }
+
+        this.revealedCount = this.revealed.cardinality();
+        this.flaggedCount = this.flags.cardinality();
+    }
+
+    /**
+     * The function checks whether every cell that is not a bomb has been revealed.
+     *
+     * @return The method returns true if the game is won.
+     */
+    public boolean isWon() {
+        return this.size() - this.revealedCount == this.bombAmount;
+    }
+
+    /**
+     * The function calculates the probability of a bomb being present at a given position in a grid
+     * based on the distance from the first clicked cell and the size of the grid. Explanation of the
+     * probability of a bomb: https://www.desmos.com/calculator/b3lcshvkvg
+     *
+     * @param row The row of the cell for which we want to calculate the probability of a bomb.
+     * @param col The column of the cell for which we want to calculate the probability of a bomb.
+     * @param firstRow The row of the first clicked cell.
+     * @param firstCol The column of the first clicked cell.
+     * @param gridSize The gridSize parameter represents the size of the grid.
+     * @param maxProbability The maximum probability of a bomb being present in the grid. It is given
+     * as a percentage, so it should be a value between 0 and 100.
+     * @return The method is returning the probability of a bomb being present at the given position.
+     */
+    public static double calculateProbabilityOfBomb(int row, int col, int firstRow, int firstCol, int gridSize, int maxProbability) {
+        // we use the simple grid distance because
+        // it is computationally faster than pythagora
+        double distance = Math.abs(firstRow - row) + Math.abs(firstCol - col);
+        double probability = (maxProbability / 100.0) * (2 / Math.PI) * Math.atan((distance * distance) / gridSize);
+
+        return probability;
+    }
+
+    public Board(int width, int height, int bombAmount) {
+        this.width = width;
+        this.height = height;
+        this.bombAmount = bombAmount;
+
+        this.revealedCount = 0;
+        this.flaggedCount = 0;
+
+        int size = width * height;
+        this.bombs = new BitSet(size);
+        this.flags = new BitSet(size);
+        this.revealed = new BitSet(size);
+        this.neighboringBombs = new byte[size];
+    }
+}
@@ -0,0 +1,347 @@
+import java.util.*;
+
+/**
+ * The BoardGenerator class places the bombs of a Board. It holds the two population strategies of
+ * the game without depending on the game window, so boards can also be generated headless, e.g. by
+ * the simulation in `bench`. The first clicked cell never receives a bomb.
+ */
+public class BoardGenerator {
+    // the logarithms of the first factorials, larger ones use Stirling's series
+    private static final double[] LOG_FACTORIALS = new double[256];
+
+    static {
+        for (int n = 2; n < LOG_FACTORIALS.length; n++) {
+            LOG_FACTORIALS[n] = LOG_FACTORIALS[n - 1] + Math.log(n);
+        }
+    }
+
+    /**
+     * The function populates the board with bombs based on their probability of being a bomb, which is a
+     * distribution where the chance of a cell being a bomb increases the further away it is from the
+     * first clicked cell. This makes it more unlikely for the first clicked cell to be surrounded by
+     * bombs and allows for a more fluent user experience since it makes it less likely to have to guess.
+     *
+     * Every cell flips a coin with its probability from the cached ProbabilityField, conditioned on
+     * exactly bombAmount bombs. The cells at the same grid distance from the first cell share their
+     * probability, so the coins of a distance only decide how many bombs it gets, which is drawn for
+     * all distances at once by bombsByDistance(), and the bombs of a distance are then spread
+     * uniformly over its cells by sampleCells(). The chance of a cell ends up as the one drawn by
+     * the probability overlay, see ProbabilityField.chanceByDistance().
+     *
+     * @param board The board to populate, which must not contain bombs yet.
+     * @param firstCell The board index of the first clicked cell.
+     * @param maxProbability The maximum probability of a bomb as a percentage, see
+     * Board.calculateProbabilityOfBomb().
+     * @param random The random generator used to place the bombs, the same seed always gives the
+     * same bombs.
+     */
+    public static void populateProbability(Board board, int firstCell, int maxProbability, Random random) {
+        int candidates = board.size() - 1;
+        if (board.bombAmount > candidates) {
+            throw new IllegalArgumentException("Cannot place " + board.bombAmount + " bombs in " + candidates + " cells");
+        }
+        if (board.bombAmount == 0) {
+            return;
+        }
+
+        int firstRow = board.row(firstCell);
+        int firstCol = board.col(firstCell);
+        int[] counts = ProbabilityField.cellsByDistance(board.width, board.height, firstRow, firstCol);
+        double[] chances = ProbabilityField.chanceByDistance(board.width, board.height, board.bombAmount, maxProbability,
+                                                             firstRow, firstCol);
+
+        int[] bombs = bombsByDistance(counts, chances, board.bombAmount, random);
+
+        // a row holds at most two cells of a distance
+        int[] cells = new int[2 * board.height];
+        BitSet picked = new BitSet();
+
+        for (int distance = 1; distance < counts.length; distance++) {
+            if (bombs[distance] == 0) {
+                continue;
+            }
+
+            int count = cellsAtDistance(board, firstRow, firstCol, distance, cells);
+
+            picked.clear();
+            sampleCells(count, new int[0], bombs[distance], random, picked);
+
+            for (int i = picked.nextSetBit(0); i >= 0; i = picked.nextSetBit(i + 1)) {
+                board.makeBomb(cells[i]);
+            }
+        }
+    }
+
+    /**
+     * The function draws how many bombs every distance gets, which is a binomial count for each of
+     * them conditioned on adding up to bombAmount. The counts of all distances but the one with the
+     * largest variance, the pivot, are drawn independently, and the pivot takes the rest. The draw
+     * is accepted with the probability of the rest relative to the most likely count of the pivot,
+     * which gives exactly the conditioned distribution. Since the chances are already scaled so
+     * that bombAmount bombs are expected, the draw is accepted after a handful of tries.
+     *
+     * @param counts The amount of cells at every distance.
+     * @param chances The chance of a bomb at every distance from ProbabilityField.chanceByDistance().
+     * @param bombAmount The amount of bombs, at least 1.
+     * @param random The random generator.
+     * @return The method returns the amount of bombs at every distance.
+     */
+    private static int[] bombsByDistance(int[] counts, double[] chances, int bombAmount, Random random) {
+        int[] modes = new int[counts.length];
+        double[] modeMasses = new double[counts.length];
+        int pivot = -1;
+        double pivotVariance = -1;
+
+        for (int distance = 1; distance < counts.length; distance++) {
+            if (counts[distance] == 0) {
+                continue;
+            }
+
+            double chance = chances[distance];
+            modes[distance] = Math.min(counts[distance], (int) Math.floor((counts[distance] + 1) * chance));
+            modeMasses[distance] = Math.exp(logBinomialMass(counts[distance], chance, modes[distance]));
+
+            double variance = counts[distance] * chance * (1 - chance);
+            if (variance > pivotVariance) {
+                pivot = distance;
+                pivotVariance = variance;
+            }
+        }
+
+        int[] bombs = new int[counts.length];
+
+        while (true) {
+            int rest = bombAmount;
+            for (int distance = 1; distance < counts.length && rest >= 0; distance++) {
+                if (distance != pivot && counts[distance] > 0) {
+                    bombs[distance] = binomial(counts[distance], chances[distance], modes[distance], modeMasses[distance], random);
+                    rest -= bombs[distance];
+                }
+            }
+
+            if (rest < 0 || rest > counts[pivot]) {
+                continue;
+            }
+
+            double acceptance = Math.exp(logBinomialMass(counts[pivot], chances[pivot], rest)
+                                         - logBinomialMass(counts[pivot], chances[pivot], modes[pivot]));
+            if (random.nextDouble() < acceptance) {
+                bombs[pivot] = rest;
+                return bombs;
+            }
+        }
+    }
+
+    /**
+     * The function draws a binomial count by inversion, adding up the probabilities outwards from
+     * the mode, so it takes about one step per unit of the standard deviation.
+     *
+     * @param trials The amount of coins.
+     * @param chance The chance of every coin.
+     * @param mode The most likely count.
+     * @param modeMass The probability of the mode.
+     * @param random The random generator.
+     * @return The method returns the count.
+     */
+    private static int binomial(int trials, double chance, int mode, double modeMass, Random random) {
+        if (chance <= 0 || chance >= 1) {
+            return mode;
+        }
+
+        double odds = chance / (1 - chance);
+        double u = random.nextDouble() - modeMass;
+        int low = mode;
+        int high = mode;
+        double lowMass = modeMass;
+        double highMass = modeMass;
+
+        while (u >= 0) {
+            highMass = high < trials ? highMass * (trials - high) / (high + 1.0) * odds : 0;
+            if (highMass > 0) {
+                high++;
+                u -= highMass;
+                if (u < 0) {
+                    return high;
+                }
+            }
+
+            lowMass = low > 0 ? lowMass * low / ((trials - low + 1.0) * odds) : 0;
+            if (lowMass > 0) {
+                low--;
+                u -= lowMass;
+                if (u < 0) {
+                    return low;
+                }
+            }
+
+            // only rounding is left
+            if (highMass == 0 && lowMass == 0) {
+                break;
+            }
+        }
+
+        return mode;
+    }
+
+    /**
+     * The function returns the logarithm of the probability of a binomial count.
+     */
+    private static double logBinomialMass(int trials, double chance, int count) {
+        if (chance <= 0) {
+            return count == 0 ? 0 : Double.NEGATIVE_INFINITY;
+        }
+        if (chance >= 1) {
+            return count == trials ? 0 : Double.NEGATIVE_INFINITY;
+        }
+
+        return logFactorial(trials) - logFactorial(count) - logFactorial(trials - count)
+               + count * Math.log(chance) + (trials - count) * Math.log1p(-chance);
+    }
+
+    /**
+     * The function returns the logarithm of n!.
+     */
+    private static double logFactorial(int n) {
+        if (n < LOG_FACTORIALS.length) {
+            return LOG_FACTORIALS[n];
+        }
+
+        double x = n;
+        return x * Math.log(x) - x + 0.5 * Math.log(2 * Math.PI * x)
+               + 1 / (12 * x) - 1 / (360 * x * x * x) + 1 / (1260 * x * x * x * x * x);
+    }
+
+    /**
+     * The function lists the cells at a grid distance from the first cell, row by row.
+     *
+     * @param board The board.
+     * @param firstRow The row of the first clicked cell.
+     * @param firstCol The column of the first clicked cell.
+     * @param distance The distance, at least 1.
+     * @param cells Receives the board indices of the cells.
+     * @return The method returns the amount of cells.
+     */
+    private static int cellsAtDistance(Board board, int firstRow, int firstCol, int distance, int[] cells) {
+        int count = 0;
+
+        for (int row = Math.max(0, firstRow - distance); row <= Math.min(board.height - 1, firstRow + distance); row++) {
+            int colDistance = distance - Math.abs(row - firstRow);
+
+            if (firstCol - colDistance >= 0) {
+                cells[count++] = board.index(row, firstCol - colDistance);
+            }
+            if (colDistance > 0 && firstCol + colDistance < board.width) {
+                cells[count++] = board.index(row, firstCol + colDistance);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * The function returns the cells that must not receive a bomb: the first clicked cell and, if
+     * asked for and if the bombs still fit, the cells around it.
+     *
+     * @param board The board being populated.
+     * @param firstCell The board index of the first clicked cell.
+     * @param excludeNeighbors Whether the neighbors of the first cell are excluded too.
+     * @return The method returns the excluded board indices in ascending order.
+     */
+    private static int[] excludedCells(Board board, int firstCell, boolean excludeNeighbors) {
+        int[] neighbors = new int[8];
+        int neighborCount = excludeNeighbors ? board.neighbors(firstCell, neighbors) : 0;
+
+        if (board.size() - 1 - neighborCount < board.bombAmount) {
+            neighborCount = 0;
+        }
+
+        int[] excluded = Arrays.copyOf(neighbors, neighborCount + 1);
+        excluded[neighborCount] = firstCell;
+        Arrays.sort(excluded);
+
+        return excluded;
+    }
+
+    /**
+     * The function populates the board with bombs at uniformly random cells, excluding the first
+     * revealed cell and optionally its neighbors. The cells are picked by sampleCells().
+     *
+     * @param board The board to populate, which must not contain bombs yet.
+     * @param firstCell The board index of the first clicked cell.
+     * @param excludeNeighbors Whether the 3x3 around the first cell is kept free of bombs, which is
+     * skipped if the bombs wouldn't fit otherwise.
+     * @param random The random generator used to place the bombs.
+     */
+    public static void populateRandom(Board board, int firstCell, boolean excludeNeighbors, Random random) {
+        BitSet bombs = new BitSet(board.size());
+        sampleCells(board.size(), excludedCells(board, firstCell, excludeNeighbors), board.bombAmount, random, bombs);
+
+        for (int bomb = bombs.nextSetBit(0); bomb >= 0; bomb = bombs.nextSetBit(bomb + 1)) {
+            board.makeBomb(bomb);
+        }
+    }
+
+    /**
+     * The function picks distinct random cells out of [0, size) with Floyd's algorithm for sampling
+     * without replacement: for every j in [n - count, n) a random t in [0, j] is drawn, and if t was
+     * already picked j is picked instead, which is always new. Every cell therefore takes a single
+     * random number, with no retries at any density. It places the bombs of the normal board and of
+     * every endless chunk.
+     *
+     * @param size The amount of cells.
+     * @param excluded The cells that are never picked, in ascending order.
+     * @param count The amount of cells to pick.
+     * @param random The random generator, the same seed always gives the same cells.
+     * @param picked Receives the picked cells, must be empty.
+     */
+    public static void sampleCells(int size, int[] excluded, int count, Random random, BitSet picked) {
+        // the candidates are numbered 0..n-1 and mapped to cells
+        // by stepping over the (at most 9) excluded cells
+        int candidates = size - excluded.length;
+        if (count > candidates) {
+            throw new IllegalArgumentException("Cannot place " + count + " bombs in " + candidates + " cells");
+        }
+
+        for (int j = candidates - count; j < candidates; j++) {
+            int cell = candidateCell(excluded, random.nextInt(j + 1));
+
+            // if already picked, take j instead, which no
+            // earlier step could have picked
+            if (picked.get(cell)) {
+                cell = candidateCell(excluded, j);
+            }
+
+            picked.set(cell);
+        }
+    }
+
+    /**
+     * The function populates the board with bombs at uniformly random cells, excluding the first
+     * revealed cell.
+     *
+     * @param board The board to populate, which must not contain bombs yet.
+     * @param firstCell The board index of the first clicked cell.
+     * @param random The random generator used to place the bombs.
+     */
+    public static void populateRandom(Board board, int firstCell, Random random) {
+        populateRandom(board, firstCell, false, random);
+    }
+
+    /**
+     * The function maps the number of a candidate to its cell by skipping the excluded cells.
+     *
+     * @param excluded The excluded board indices in ascending order.
+     * @param candidate The number of the candidate.
+     * @return The method returns the board index of the candidate.
+     */
+    private static int candidateCell(int[] excluded, int candidate) {
+        int cell = candidate;
+        for (int excludedCell : excluded) {
+            if (cell >= excludedCell) {
+                cell++;
+            }
+        }
+
+        return cell;
+    }
+}
@@ -0,0 +1,279 @@
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * The BoardPool class generates boards in the background while the menu is open, so the first
+ * click of a game doesn't have to wait for the generator. Since every board depends on where the
+ * first click lands, every cell of a board keeps a small queue of boards generated with that cell
+ * as the first cell. A pooled board is therefore exactly the board the game would have generated
+ * from the same seed, and boards that need no guessing were already verified from that cell, so
+ * taking one is a plain copy of its bombs.
+ *
+ * A single producer thread with the lowest priority fills the queues of the settings given to
+ * prepare(), which are the difficulty presets with the current options of the menu, filling the
+ * empty queues first. Every board is generated from its own seed, which is handed to the game so
+ * it can be recorded.
+ */
+public class BoardPool {
+    public static final int CAPACITY = 2;
+
+    private static final BoardPool shared = new BoardPool();
+
+    /**
+     * The Settings class holds everything the bombs of a pooled board depend on.
+     */
+    private static class Settings {
+        final int width;
+        final int height;
+        final int bombAmount;
+        final boolean useProbability;
+        final int maxProbability;
+        final boolean noGuess;
+
+        Settings(int width, int height, int bombAmount, boolean useProbability, int maxProbability, boolean noGuess) {
+            this.width = width;
+            this.height = height;
+            this.bombAmount = bombAmount;
+            this.useProbability = useProbability;
+            this.maxProbability = maxProbability;
+            this.noGuess = noGuess;
+        }
+    }
+
+    /**
+     * The Pooled class is a ready board, stored as its bomb cells in ascending order together with
+     * the seed it was generated from.
+     */
+    private static class Pooled {
+        final long seed;
+        final int[] bombs;
+
+        Pooled(long seed, int[] bombs) {
+            this.seed = seed;
+            this.bombs = bombs;
+        }
+    }
+
+    // the queues of ready boards by settings, one queue per first cell
+    private final HashMap<String, List<ArrayDeque<Pooled>>> queues;
+    private final HashMap<String, Settings> wanted;
+
+    private long hits;
+    private long misses;
+    private Thread producer;
+
+    /**
+     * The function returns the pool shared by the menu and the games.
+     *
+     * @return The method returns the shared pool.
+     */
+    public static BoardPool shared() {
+        return shared;
+    }
+
+    /**
+     * The function builds the key of a queue from the settings of the board.
+     */
+    private static String key(int width, int height, int bombAmount, boolean useProbability, int maxProbability, boolean noGuess) {
+        return width + "x" + height + "/" + bombAmount + (useProbability ? " probability " + maxProbability : " random")
+               + (noGuess ? " no-guess" : "");
+    }
+
+    /**
+     * The function sets the boards the producer keeps ready: every preset with the given options.
+     * Queues of settings that are no longer wanted are dropped.
+     *
+     * @param presets The presets as {width, height, bombAmount}.
+     * @param useProbability Whether the probability-based population is used.
+     * @param maxProbability The maximum probability of the probability-based population.
+     * @param noGuess Whether the boards must be solvable without guessing.
+     */
+    public synchronized void prepare(int[][] presets, boolean useProbability, int maxProbability, boolean noGuess) {
+        this.wanted.clear();
+
+        for (int[] preset : presets) {
+            String key = key(preset[0], preset[1], preset[2], useProbability, maxProbability, noGuess);
+            this.wanted.put(key, new Settings(preset[0], preset[1], preset[2], useProbability, maxProbability, noGuess));
+
+            if (!this.queues.containsKey(key)) {
+                int cells = preset[0] * preset[1];
+
+                List<ArrayDeque<Pooled>> cellQueues = new ArrayList<ArrayDeque<Pooled>>(cells);
+                for (int i = 0; i < cells; i++) {
+                    cellQueues.add(new ArrayDeque<Pooled>());
+                }
+
+                this.queues.put(key, cellQueues);
+            }
+        }
+
+        this.queues.keySet().retainAll(this.wanted.keySet());
+
+        if (this.producer == null) {
+            this.producer = new Thread(this::produce, "board-pool");
+            this.producer.setDaemon(true);
+            this.producer.setPriority(Thread.MIN_PRIORITY);
+            this.producer.start();
+        }
+
+        this.notifyAll();
+    }
+
+    /**
+     * The function populates a board with a pooled board for the given first cell, if one is ready.
+     * The neighboring bombs still have to be computed afterwards.
+     *
+     * @param board The board to populate, which must not contain bombs yet.
+     * @param firstCell The board index of the first clicked cell.
+     * @param useProbability Whether the probability-based population is used.
+     * @param maxProbability The maximum probability of the probability-based population.
+     * @param noGuess Whether the board must be solvable without guessing.
+     * @return The method returns the seed the board was generated from for the first cell, or an
+     * empty value if no pooled board was ready, in which case the board has to be generated directly.
+     */
+    public OptionalLong populate(Board board, int firstCell, boolean useProbability, int maxProbability, boolean noGuess) {
+        String key = key(board.width, board.height, board.bombAmount, useProbability, maxProbability, noGuess);
+        Pooled pooled;
+
+        synchronized (this) {
+            List<ArrayDeque<Pooled>> cellQueues = this.queues.get(key);
+            pooled = cellQueues == null ? null : cellQueues.get(firstCell).poll();
+
+            if (pooled == null) {
+                this.misses++;
+                return OptionalLong.empty();
+            }
+
+            this.hits++;
+
+            // the producer refills the queue
+            this.notifyAll();
+        }
+
+        for (int bomb : pooled.bombs) {
+            board.makeBomb(bomb);
+        }
+
+        return OptionalLong.of(pooled.seed);
+    }
+
+    /**
+     * The function returns the share of games that got a pooled board, which is reported by the
+     * population event of the profiling.
+     *
+     * @return The method returns the hit rate between 0 and 1, or 0 before the first game.
+     */
+    public synchronized double hitRate() {
+        return this.hits / (double) Math.max(1, this.hits + this.misses);
+    }
+
+    /**
+     * The function is the loop of the producer thread: it picks a queue that isn't full, generates
+     * a board for it outside of the lock, and waits whenever every queue is full.
+     */
+    private void produce() {
+        Random random = new Random();
+
+        while (true) {
+            String key = null;
+            Settings settings = null;
+            int cell = -1;
+
+            synchronized (this) {
+                while (key == null) {
+                    // every cell gets a board before any gets a second one
+                    for (int size = 0; size < CAPACITY && key == null; size++) {
+                        for (Map.Entry<String, List<ArrayDeque<Pooled>>> entry : this.queues.entrySet()) {
+                            List<ArrayDeque<Pooled>> cellQueues = entry.getValue();
+
+                            for (int i = 0; i < cellQueues.size() && key == null; i++) {
+                                if (cellQueues.get(i).size() == size) {
+                                    key = entry.getKey();
+                                    cell = i;
+                                }
+                            }
+
+                            if (key != null) {
+                                break;
+                            }
+                        }
+                    }
+
+                    if (key == null) {
+                        try {
+                            this.wait();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+
+                settings = this.wanted.get(key);
+            }
+
+            long seed = random.nextLong();
+            int[] bombs = generate(settings, cell, seed);
+
+            // the candidate needs a guess, the next
+            // seed is tried for the same queue
+            if (bombs == null) {
+                continue;
+            }
+
+            synchronized (this) {
+                // the settings might have changed while generating
+                List<ArrayDeque<Pooled>> cellQueues = this.queues.get(key);
+                if (cellQueues != null) {
+                    cellQueues.get(cell).add(new Pooled(seed, bombs));
+                }
+            }
+        }
+    }
+
+    /**
+     * The function generates one board from a seed on the producer thread. Boards that need no
+     * guessing are searched for on this thread alone, so the pool never competes with the game for
+     * all cores.
+     *
+     * @param settings The settings of the board.
+     * @param firstCell The board index of the first cell.
+     * @param seed The seed of the board.
+     * @return The method returns the bomb cells of the board in ascending order, or null if the
+     * board must be solvable without guessing and isn't.
+     */
+    private static int[] generate(Settings settings, int firstCell, long seed) {
+        Board board = new Board(settings.width, settings.height, settings.bombAmount);
+
+        if (settings.noGuess) {
+            NoGuessGenerator.populate(board, firstCell, settings.useProbability, settings.maxProbability, seed);
+
+            board.computeNeighboringBombs();
+            if (!NoGuessGenerator.isSolvableWithoutGuessing(board, firstCell, new AtomicBoolean(false))) {
+                return null;
+            }
+        } else if (settings.useProbability) {
+            BoardGenerator.populateProbability(board, firstCell, settings.maxProbability, new Random(seed));
+        } else {
+            BoardGenerator.populateRandom(board, firstCell, new Random(seed));
+        }
+
+        int[] bombs = new int[settings.bombAmount];
+        int count = 0;
+        for (int cell = board.nextBomb(0); cell >= 0; cell = board.nextBomb(cell + 1)) {
+            bombs[count++] = cell;
+        }
+
+        return bombs;
+    }
+
+    // The `BoardPool()` constructor creates an empty pool, the producer starts with the first call
+    // to prepare().
+    private BoardPool() {
+        this.queues = new HashMap<String, List<ArrayDeque<Pooled>>>();
+        this.wanted = new HashMap<String, Settings>();
+
+        this.hits = 0;
+        this.misses = 0;
+        this.producer = null;
+    }
+}
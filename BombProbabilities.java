@@ -0,0 +1,16 @@
+import java.util.*;
+
+/**
+ * The BombProbabilities class holds the result of the ProbabilityEngine: the probability of each
+ * frontier cell, and the single probability shared by all the cells that don't touch a revealed
+ * number. It doesn't store anything per board cell, so it stays small on huge boards.
+ */
+public class BombProbabilities {
+    public final HashMap<Integer, Double> frontier;
+    public final double interior;
+
+    BombProbabilities(HashMap<Integer, Double> frontier, double interior) {
+        this.frontier = frontier;
+        this.interior = interior;
+    }
+}
@@ -0,0 +1,111 @@
+import java.util.*;
+
+/**
+ * The CellSet class is a set of board indices backed by a BitSet, so checking, adding and removing
+ * a cell takes constant time instead of scanning a list. Iterating over the set visits the indices
+ * in ascending order, which is row by row on the board.
+ */
+public class CellSet implements Iterable<Integer> {
+    private final BitSet bits;
+    private int size;
+
+    /**
+     * The function adds a cell to the set.
+     *
+     * @param index The board index of the cell.
+     * @return The method returns true if the cell was not already in the set.
+     */
+    public boolean add(int index) {
+        if (this.bits.get(index)) {
+            return false;
+        }
+
+        this.bits.set(index);
+        this.size++;
+
+        return true;
+    }
+
+    /**
+     * The function removes a cell from the set.
+     *
+     * @param index The board index of the cell.
+     * @return The method returns true if the cell was in the set.
+     */
+    public boolean remove(int index) {
+        if (!this.bits.get(index)) {
+            return false;
+        }
+
+        this.bits.clear(index);
+        this.size--;
+
+        return true;
+    }
+
+    /**
+     * The function removes every cell from the set.
+     */
+    public void clear() {
+        this.bits.clear();
+        this.size = 0;
+    }
+
+    public boolean contains(int index) {
+        return this.bits.get(index);
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * The function returns the first cell in the set with an index greater than or equal to `from`,
+     * which allows iterating over the set without boxing the indices:
+     * `for (int i = set.next(0); i >= 0; i = set.next(i + 1))`.
+     *
+     * @param from The index to start searching from.
+     * @return The method returns the next index in the set, or -1 if there is none.
+     */
+    public int next(int from) {
+        return this.bits.nextSetBit(from);
+    }
+
+    /**
+     * The function returns an iterator over the indices in the set in ascending order.
+     *
+     * @return The method returns the iterator.
+     */
+    @Override
+    public Iterator<Integer> iterator() {
+        return new Iterator<Integer>() {
+            private int nextIndex = bits.nextSetBit(0);
+
+            @Override
+            public boolean hasNext() {
+                return this.nextIndex >= 0;
+            }
+
+            @Override
+            public Integer next() {
+                if (this.nextIndex < 0) {
+                    throw new NoSuchElementException();
+                }
+
+                int current = this.nextIndex;
+                this.nextIndex = bits.nextSetBit(current + 1);
+
+                return current;
+            }
+        };
+    }
+
+    CellSet(int capacity) {
+        this.bits = new BitSet(capacity);
+        this.size = 0;
+    }
+}
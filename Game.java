@@ -9,38 +9,70 @@ import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.Clip;
 
+import java.io.*;
 import java.util.*;
 
-class GameWonException extends Exception {
-    GameWonException() {
-        super("Game won");
-    }
-}
-
 public class Game extends JFrame{
-    public Cell firstCell;
+    // how long the first click may search for a board without guessing
+    public static final long NO_GUESS_TIMEOUT = 5000;
+
+    // where the replay of every game is written
+    public static final String REPLAY_DIRECTORY = "replays";
+
+    // where an unfinished game is saved when the window is left
+    public static final String SAVE_FILE = "saves/last.save";
+
+    // board index of the first revealed cell, -1 before the first click
+    public int firstCell;
 
     public boolean gameOver;
     public boolean hintMode;
     public boolean autoSolve;
 
     public int maxProbability;
+    public boolean useProbability;
     public boolean drawProbabilities;
     public boolean drawPopulationRings;
+    public boolean noGuess;
 
-    public int gridSize;
+    public int width;
+    public int height;
     public int cellSize;
     public int bombAmount;
-    public Cell[][] cells;
+    public Board board;
+    public GameEngine engine;
+
+    // the seed the bombs are placed with, recorded with the
+    // replay so that the game can be reproduced
+    public long seed;
+    private ReplayLog replayLog;
 
-    public int revealedCount;
-    public Solver solver;
+    // how many boards the no-guess search of the last population
+    // tried, reported by the profiling event
+    private long populationAttempts;
+
+    // whether the game was continued from the save, which
+    // is deleted once the game is won or lost
+    private boolean resumed;
+
+    // created on the first click, once the bombs are placed
+    public SolverService solverService;
+    public AutoSolvePlayback playback;
+    public int movesPerFrame;
+
+    // the version of the last solver result shown by the marks, or -1
+    // if the marks were cleared and need everything found so far
+    private long markedVersion;
+
+    public Minefield minefield;
 
     public Timer timer;
     public JLabel mainLabel;
     public long time;
     public int remainingBombsCount;
 
+    private JLabel timeLabel;
+    private JLabel remainingLabel;
     private ImageIcon gameIcon;
 
 
@@ -50,6 +82,13 @@ public class Game extends JFrame{
      * Menu window.
      */
     public void stop() {
+        this.saveGame();
+
+        if (this.solverService != null) {
+            this.solverService.shutdown();
+        }
+        this.closeReplay();
+
         setVisible(false);
         dispose();
 
@@ -74,13 +113,18 @@ public class Game extends JFrame{
     public void updateHintMode() {
         this.hintMode = !this.hintMode;
 
-        if (this.firstCell == null) {
+        if (this.replayLog != null && !this.gameOver) {
+            this.replayLog.hint();
+        }
+
+        if (this.firstCell < 0) {
             return;
         }
 
         // if disabling hint mode, reset color of all cells unrevealed
         // also do this if gameover
         if(!this.hintMode || this.gameOver) {
+            this.cancelSolver();
             this.resetCells();
 
             return;
@@ -98,8 +142,16 @@ public class Game extends JFrame{
         this.autoSolve = !this.autoSolve;
         System.out.println("Auto mode " + (this.autoSolve ? "ON" : "OFF"));
 
-        if (!this.autoSolve || !this.hintMode) {
-           return;
+        if (this.replayLog != null && !this.gameOver) {
+            this.replayLog.autoMode();
+        }
+
+        // turning auto mode off stops a running auto solve
+        if (!this.autoSolve || !this.hintMode || this.firstCell < 0) {
+            if (this.solverService != null) {
+                this.cancelSolver();
+            }
+            return;
         }
 
         this.solveSituation();
@@ -110,6 +162,8 @@ public class Game extends JFrame{
      * text.
      */
     public void resetCells() {
+        this.minefield.clearMarks();
+        this.markedVersion = -1;
 
         if (this.drawProbabilities) {
             this.paintProbabilities();
@@ -122,329 +176,516 @@ public class Game extends JFrame{
 
             return;
         }
+    }
 
-        for(int y = 0; y < this.gridSize; y++) {
-            for(int x = 0; x < this.gridSize; x++) {
-                Cell currentCell = this.cells[y][x];
+    /**
+     * The function reveals all the bombs on the grid and highlights any incorrectly flagged cells.
+     * 
+     * @param explodedCell The board index of the bomb that was clicked.
+     */
+    public void revealBombs(int explodedCell) {
+        // the minefield works out the wrong flags
+        // of the visible cells while painting
+        this.minefield.showBombs(explodedCell);
+    }
 
-                if (currentCell.isRevealed) {
-                    continue;
-                }
+    /**
+     * The function populates the grid with bombs based on their probability of being a bomb, which is a
+     * distribution where the chance of a cell being a bomb increases the further away it is from the 
+     * first clicked cell. The placement itself is done by the BoardGenerator from the seed of the
+     * game.
+     */
+    public void populateBombsProbability() {
+        BoardGenerator.populateProbability(this.board, this.firstCell, this.maxProbability, new Random(this.seed));
+    }
 
-                currentCell.setBackground(new Color(180, 180, 180));
-                currentCell.setText("");
-            }
-        }
+    /**
+     * The function populates a grid with a random number of bombs from the seed of the game,
+     * excluding the first revealed cell.
+     */
+    public void populateBombsRandom() {
+        BoardGenerator.populateRandom(this.board, this.firstCell, new Random(this.seed));
     }
 
     /**
-     * The function reveals all the bombs on the grid and highlights any incorrectly flagged cells.
+     * The function populates the grid with a board that the solver can clear from the first clicked
+     * cell without guessing. The NoGuessGenerator searches for one on all cores, starting at the seed
+     * of the game, which becomes the seed of the accepted board. If none is found in time the board
+     * is populated normally instead.
+     *
+     * @return The method returns true if a board without guessing was found.
      */
-    public void revealBombs() {
-        for(int y = 0; y < this.gridSize; y++) {
-            for(int x = 0; x < this.gridSize; x++) {
-                Cell currentCell = this.cells[y][x];
-
-                if(currentCell.isBomb && !currentCell.isFlagged) {
-                    currentCell.reveal();
-                    continue;
-                }
-                if(!currentCell.isBomb && currentCell.isFlagged) {
-                    currentCell.setBackground(Color.MAGENTA);
-                }
-            }
+    public boolean populateBombsNoGuess() {
+        NoGuessGenerator.Result result;
+
+        try {
+            result = NoGuessGenerator.generate(this.width, this.height, this.bombAmount, this.firstCell,
+                                               this.useProbability, this.maxProbability,
+                                               this.seed, NO_GUESS_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result = null;
+        }
+
+        if (result == null) {
+            System.out.println("No board without guessing found in " + NO_GUESS_TIMEOUT + "ms");
+            return false;
         }
+
+        // the same seed gives the same bombs as the accepted candidate
+        this.seed = result.seed;
+        this.populationAttempts = result.attempts;
+        NoGuessGenerator.populate(this.board, this.firstCell, this.useProbability, this.maxProbability, result.seed);
+
+        System.out.printf(Locale.ROOT, "No-guess board found after %d attempts in %.1fms (%.0f attempts/s)%n",
+                          result.attempts, result.nanos / 1e6, result.attemptsPerSecond());
+        return true;
     }
 
     /**
-     * The function populates the grid with bombs based on their probability of being a bomb, which is a
-     * distribution where the chance of a cell being a bomb increases the further away it is from the 
-     * first clicked cell. This makes it more unlikely for the first clicked cell to be surrounded by 
-     * bombs and allows for a more fluent user experience since it makes it less likely to have to guess.
-     * 
-     * @param remainingBombs The remainingBombs parameter represents the number of bombs that still
-     * need to be placed on the grid.
+     * The function paints the probability of a cell being a bomb on the grid with the implemented distribution.
+     * The minefield looks it up in the cached ProbabilityField while painting, so only the visible
+     * cells are ever evaluated.
      */
-    public void populateBombsProbability(int remainingBombs) {
-        Random random = new Random();
-
-        // the loop increments in rings surrounding the 
-        // exception cell, because if we simply loop linearly
-        // through all cells then most of the bombs will be 
-        // located around the corners, whereas this way we 
-        // dont get rid of most of the available bombs right 
-        // away
-        int largestRing = 1 + this.gridSize - Math.min(this.firstCell.row, this.firstCell.col);
-        ringloop:
-        for (int d = 1; d <= largestRing; d++) {
-            for (int y = this.firstCell.row - d; y <= this.firstCell.row + d; y++) {
- 
-                // skip if out of bounds
-                if (y < 0 || y >= this.gridSize) {
-                    continue;
-                }
-
-                for (int x = this.firstCell.col - d; x <= this.firstCell.col + d; x++) {
-
-                    // skip if inside ring (dont want to iterate over previous ring)
-                    if (x > this.firstCell.col - d  && x < this.firstCell.col + d &&
-                        y > this.firstCell.row - d  && y < this.firstCell.row + d ) {
-                        continue;
-                    }
-
-                    // skip if out of bounds
-                    if (x < 0 || x >= this.gridSize) {
-                        continue;
-                    }
-
-                    Cell currentCell = this.cells[y][x];
-
-                    // skip if already bomb
-                    if (currentCell.isBomb) {
-                        continue;
-                    }
-
-                    double randomDouble = random.nextDouble(0, 1);
-                    double probability = currentCell.calculateProbabilityOfBomb(this.firstCell.col, this.firstCell.row, this.gridSize, this.maxProbability);
-
-                    if (randomDouble < probability) {
-                        currentCell.makeBomb();
-                        remainingBombs--;
-                    }
-                }
-
-                if (remainingBombs <= 0) {
-                    break ringloop;
-                }
+    public void paintProbabilities() {
+        this.minefield.setOverlay(Minefield.OVERLAY_PROBABILITIES);
+    }
+
+    // this method serves as a demonstation
+    // that the way the iteration is done 
+    // in the probability population method 
+    // works as intended
+    /**
+     * The function "paintPopulationRings" colors the cells based on their distance from the first
+     * clicked cell in concetric rings to ensure bombs aren't focused in the corners of the grid.
+     */
+    public void paintPopulationRings() {
+        this.minefield.setOverlay(Minefield.OVERLAY_RINGS);
+    }
+
+    /**
+     * The function places the bombs once the first cell is known, which the engine does on the first
+     * reveal. A pooled board is used if one is ready, otherwise the board is generated here, falling
+     * back to the normal population if no board without guessing was found in time. Either way the
+     * seed of the board is kept for the replay.
+     *
+     * @param cell The board index of the first revealed cell.
+     */
+    void populateBombs(int cell) {
+        Profiling.Population event = new Profiling.Population();
+        event.begin();
+
+        this.firstCell = cell;
+        this.populationAttempts = 0;
+        String strategy = "pooled";
+
+        OptionalLong pooled = BoardPool.shared().populate(this.board, this.firstCell, this.useProbability,
+                                                          this.maxProbability, this.noGuess);
+
+        boolean populated = pooled.isPresent();
+        if (populated) {
+            this.seed = pooled.getAsLong();
+        }
+
+        if (!populated) {
+            strategy = "no-guess";
+            populated = this.noGuess && this.populateBombsNoGuess();
+        }
+        if (!populated) {
+            if (this.useProbability) {
+                strategy = "probability";
+                this.populateBombsProbability();
+            } else {
+                strategy = "random";
+                this.populateBombsRandom();
             }
         }
 
-        // if we haven't finished populating, restart
-        if (remainingBombs > 0) {
-            this.populateBombsProbability(remainingBombs);
+        event.end();
+        if (event.shouldCommit()) {
+            event.strategy = strategy;
+            event.attempts = this.populationAttempts;
+            event.cells = this.board.size();
+            event.bombs = this.bombAmount;
+            event.poolHitRate = BoardPool.shared().hitRate();
+            event.commit();
         }
+
+        System.out.println("Seed: " + this.seed);
     }
 
     /**
-     * The function populates a grid with a random number of bombs, excluding the first revealed cell.
+     * The function updates the window for every event of the engine, whether it comes from a click
+     * of the player or from the auto solve.
+     *
+     * @param event The event of the engine.
      */
-    public void populateBombsRandom() {
-        Random random = new Random();
-        int remainingBombs = this.bombAmount;
-
-        while (remainingBombs > 0) {
-            int randomColumn = random.nextInt(this.gridSize);
-            int randomRow = random.nextInt(this.gridSize);
-            Cell randomCell = this.cells[randomRow][randomColumn];
-           
-            // skip if already bomb
-            if (randomCell.isBomb) {
-                continue;
-            }
-            // skip if is exception cell (first cell revealed)
-            if (randomCell.row == this.firstCell.row && randomCell.col == this.firstCell.col) {
-                continue;
+    void handleEvent(GameEvent event) {
+        if (event instanceof GameEvent.Started) {
+            this.handleGameStarted();
+        } else if (event instanceof GameEvent.CellsRevealed) {
+            // the whole cascade is repainted at once
+            this.minefield.repaintCells(((GameEvent.CellsRevealed) event).cells);
+        } else if (event instanceof GameEvent.FlagToggled) {
+            GameEvent.FlagToggled toggled = (GameEvent.FlagToggled) event;
+            this.minefield.repaintCell(toggled.cell);
+
+            this.remainingBombsCount += toggled.flagged ? -1 : 1;
+            this.remainingLabel.setText(this.remainingBombsCount + " left");
+        } else if (event instanceof GameEvent.Won) {
+            this.playback.stop();
+            this.handleGameWon();
+            this.closeReplay();
+            this.deleteSave();
+            System.out.println("Game won");
+        } else if (event instanceof GameEvent.Lost) {
+            this.handleGameLost(((GameEvent.Lost) event).explodedCell);
+            this.closeReplay();
+            this.deleteSave();
+        } else if (event instanceof GameEvent.SolverStalled) {
+            GameEvent.SolverStalled stalled = (GameEvent.SolverStalled) event;
+
+            if (stalled.probabilities != null) {
+                this.paintBombProbabilities(stalled.probabilities);
+            } else {
+                System.out.println("Could not compute probabilities");
             }
 
-            randomCell.makeBomb();
-            remainingBombs--;
+            System.out.println("Guess required! Total Unknown: " + stalled.unknownCells);
         }
     }
 
     /**
-     * The function paints the probability of a cell being a bomb on the grid with the implemented distribution
+     * The function cancels the running request of the solver worker and plays the moves it already
+     * made at once, which is done whenever the player moves or turns the solver off.
      */
-    public void paintProbabilities() {
-        for (int y = 0; y < this.gridSize; y++) {
-            for (int x = 0; x < this.gridSize; x++) {
-                Cell currentCell = this.cells[y][x];
+    void cancelSolver() {
+        this.solverService.cancel();
+        this.playback.flush();
+    }
 
-                if (currentCell.isRevealed) {
-                    continue;
-                }
+    /**
+     * The function sets how fast the moves of the auto solve are played back.
+     *
+     * @param movesPerFrame The amount of moves per frame, or AutoSolvePlayback.MAX_SPEED.
+     */
+    public void setMovesPerFrame(int movesPerFrame) {
+        this.movesPerFrame = movesPerFrame;
 
-                double probability = currentCell.calculateProbabilityOfBomb(this.firstCell.col, this.firstCell.row, this.gridSize, this.maxProbability);
-                double intensity = probability * (100 / this.maxProbability) * 255;
+        if (this.playback != null) {
+            this.playback.setMovesPerFrame(movesPerFrame);
+        }
+    }
 
-                currentCell.setBackground(new Color(0, 0, (int)(intensity)));
-                currentCell.setForeground(Color.YELLOW);
-                currentCell.setText((int)(probability * 100) + "%");
+    /**
+     * The function asks the solver worker to solve the current situation. The result arrives later
+     * in applySolverBatch(), so the window stays responsive however long the solver takes. With auto
+     * mode the worker keeps revealing safe cells until the board is won or needs a guess, and the
+     * playback shows its moves at the selected rate.
+     */
+    void solveSituation() {
+        this.solverService.request(this.autoSolve, this.markedVersion < 0);
+    }
+
+    /**
+     * The function shows the marks of the solver worker, once the playback has played the moves
+     * before them. Every result only holds the changes since the one before, so only the changed
+     * cells are marked, and a result that doesn't follow the last shown version is skipped until a
+     * full result arrives. Once a guess is required, the engine publishes that the solver stalled.
+     *
+     * @param batch The batch holding the results and probabilities.
+     */
+    void applySolverBatch(SolverService.Batch batch) {
+        if (this.gameOver) {
+            return;
+        }
+
+        if (!this.hintMode) {
+            // the marks miss these results now
+            this.markedVersion = -1;
+            return;
+        }
+
+        if (!batch.results.isEmpty()) {
+            // the probabilities are only valid
+            // until the solver runs again
+            this.minefield.setInteriorProbability(-1);
+            this.minefield.setProbabilities(new int[0], new int[0]);
+        }
+
+        for (SolverResult result : batch.results) {
+            if (result.full) {
+                this.minefield.clearMarks();
+            } else if (result.version != this.markedVersion + 1) {
+                continue;
             }
+
+            this.applySolverResult(result);
+            this.markedVersion = result.version;
+        }
+
+        if (batch.stalled) {
+            this.engine.solverStalled(batch.unknownCells, batch.probabilities);
         }
     }
 
-    // this method serves as a demonstation
-    // that the way the iteration is done 
-    // in the probability population method 
-    // works as intended
     /**
-     * The function "paintPopulationRings" iterates over cells in a grid and sets their background
-     * color, foreground color, and text based on their distance from a specified cell in concetric rings
-     * to ensure bombs aren't focused in the corners of the grid.
+     * The function marks the cells changed by one solver result.
+     *
+     * @param result The result of the solver.
      */
-    public void paintPopulationRings() {
-        int largestRing = 1 + this.gridSize - Math.min(this.firstCell.row, this.firstCell.col);
-
-        for (int d = 1; d <= largestRing; d++) {
-            for (int y = this.firstCell.row - d; y <= this.firstCell.row + d; y++) {
- 
-                // skip if out of bounds
-                if (y < 0 || y >= this.gridSize) {
-                    continue;
-                }
-
-                for (int x = this.firstCell.col - d; x <= this.firstCell.col + d; x++) {
-
-                    // skip if inside ring (dont want to iterate over previous ring)
-                    if (x > this.firstCell.col - d  && x < this.firstCell.col + d &&
-                        y > this.firstCell.row - d  && y < this.firstCell.row + d ) {
-                        continue;
-                    }
-
-                    // skip if out of bounds
-                    if (x < 0 || x >= this.gridSize) {
-                        continue;
-                    }
-
-                    Cell currentCell = this.cells[y][x];
-
-                    // skip if revealed
-                    if (currentCell.isRevealed) {
-                        continue;
-                    }
-
-                    currentCell.setBackground(d % 2 == 0 ? Color.WHITE : Color.BLACK);
-                    currentCell.setForeground(d % 2 == 0 ? Color.BLACK : Color.WHITE);
-                    currentCell.setText(String.valueOf(d));
-                }
-            }
+    void applySolverResult(SolverResult result) {
+        // the marks are only drawn on unrevealed cells, so
+        // the safe cells that are already revealed don't matter
+        this.minefield.mark(result.resolved(), Minefield.MARK_NONE);
+        this.minefield.mark(result.unknown(), Minefield.MARK_UNKNOWN);
+        this.minefield.mark(result.bombs(), Minefield.MARK_BOMB);
+        this.minefield.mark(result.safe(), Minefield.MARK_SAFE);
+    }
+
+    /**
+     * The function paints the exact probability of being a bomb on every unrevealed cell that the
+     * solver couldn't decide, including the ones that don't touch any revealed number. Only the
+     * frontier cells get their own mark, the rest share a single interior probability.
+     *
+     * @param probabilities The probabilities computed by the solver worker.
+     */
+    void paintBombProbabilities(BombProbabilities probabilities) {
+        int[] cells = new int[probabilities.frontier.size()];
+        int[] percentages = new int[cells.length];
+        int count = 0;
+
+        for (Map.Entry<Integer, Double> entry : probabilities.frontier.entrySet()) {
+            cells[count] = entry.getKey();
+            percentages[count] = (int) Math.round(entry.getValue() * 100);
+            count++;
         }
+
+        this.minefield.setProbabilities(cells, percentages);
+        this.minefield.setInteriorProbability((int) Math.round(probabilities.interior * 100));
     }
 
     /**
-     * The function computes the number of neighboring bombs for a given cell in a Minesweeper game and
-     * recursively reveals its neighbors if there are no adjacent bombs.
+     * The function handles a right click on a cell by toggling its flag.
      * 
-     * @param cell The parameter "cell" represents a specific cell in the grid. It is an instance of the
-     * "Cell" class, which has properties such as "row" and "col" to represent its position in
-     * the grid, as well as boolean properties like "isRevealed", "isFlag" and "isBomb".
+     * @param cell The board index of the clicked cell.
      */
-    public void computeNeighboringBombs(Cell cell) throws GameWonException {
+    void handleRightClick(int cell) {
+        if(this.gameOver || this.board.isRevealed(cell)) {
+            return;
+        }
 
-        cell.reveal();
-        this.revealedCount++;
-        this.solver.reveal(cell);
+        // flags only matter to the cascades of the auto solve, but
+        // any move of the player cancels the running request
+        if (this.solverService != null) {
+            this.cancelSolver();
+        }
 
-        int neighboringBombs = 0;
+        if (this.engine.flag(cell) != GameEngine.Outcome.IGNORED && this.solverService != null && this.hintMode) {
+            this.solveSituation();
+        }
+    }
 
-        for(int y = cell.row - 1; y <= cell.row + 1; y++) {
-            for(int x = cell.col - 1; x <= cell.col + 1; x++) {
-                // skip out of bounds
-                if(y < 0 || x < 0 || y >= this.gridSize || x >= this.gridSize) {
-                    continue;
-                }
+    /**
+     * The function handles a left click on a cell. An unrevealed cell is revealed, where the first
+     * click populates the bombs, and a revealed number is chorded.
+     * 
+     * @param cell The board index of the clicked cell.
+     */
+    void handleLeftClick(int cell) {
+        if(this.gameOver || this.board.isFlagged(cell)) {
+            return;
+        }
 
-                Cell currentCell = this.cells[y][x];
+        // a running auto solve is superseded by the move of the player
+        if (this.solverService != null) {
+            this.cancelSolver();
+        }
 
-                // skip if cell is revealed
-                if(currentCell.isRevealed) {
-                    continue;
-                }
+        GameEngine.Outcome outcome = this.board.isRevealed(cell) ? this.engine.chord(cell) : this.engine.reveal(cell);
 
-                if (currentCell.isBomb) {
-                    neighboringBombs++;
-                }
-            }
+        if(outcome == GameEngine.Outcome.REVEALED && this.hintMode) {
+            this.solveSituation();
         }
+    }
 
-        cell.setNeighboringBombs(neighboringBombs);
+    /**
+     * The function starts the game once the engine has placed the bombs: the solver worker, which
+     * follows the moves through the events of the engine, the playback of the auto solve and the
+     * timer.
+     */
+    void handleGameStarted() {
+        this.solverService = new SolverService(this.board, batch -> this.playback.enqueue(batch));
+        this.engine.addListener(this.solverService);
 
-        // If this cell has no adjacent mines, recursively reveal its neighbors
-        if (neighboringBombs == 0) {               
-            // Define relative positions of neighboring cells
-            int[] dy = {-1, -1, -1,  0,  1,  1,  1,  0};
-            int[] dx = {-1,  0,  1,  1,  1,  0, -1, -1};
-            
-            for (int i = 0; i < 8; i++) {
-                int currentRow = cell.row + dy[i];
-                int currentCol = cell.col + dx[i];
+        this.playback = new AutoSolvePlayback(this.engine, this.solverService, this::applySolverBatch);
+        this.playback.setMovesPerFrame(this.movesPerFrame);
+
+        this.startReplay();
+        this.timer.start();
 
-                // skip out of bounds
-                if (currentRow < 0 || currentCol < 0 || currentRow >= this.gridSize || currentCol >= this.gridSize) {
-                    continue;
-                }
+        if (this.drawProbabilities) {
+            this.paintProbabilities();
+        }
+        if (this.drawPopulationRings) {
+            this.paintPopulationRings();
+        }
+    }
 
-                Cell currentCell = this.cells[currentRow][currentCol];
+    /**
+     * The function starts recording the game into a new file of the replay directory, named after
+     * the time and the seed. The game goes on without a replay if the file can't be written.
+     */
+    void startReplay() {
+        File file = new File(REPLAY_DIRECTORY, String.format(Locale.ROOT, "%tY%<tm%<td-%<tH%<tM%<tS-%d.replay",
+                                                             new Date(), this.seed));
 
-                // skip if cell is revealed, flagged, or a bomb
-                if (currentCell.isRevealed || currentCell.isFlagged || currentCell.isBomb) {
-                    continue;
-                }
+        try {
+            this.replayLog = ReplayLog.create(file, this.board, this.seed, this.firstCell, this.hintMode, this.autoSolve);
+            this.engine.setLog(this.replayLog);
 
-                computeNeighboringBombs(currentCell);
-            }
+            System.out.println("Recording replay to " + file);
+        } catch (IOException e) {
+            System.out.println("Could not write replay: " + e.getMessage());
         }
+    }
 
-        // throw GameWonException at the end so that
-        // the neighboringBombs count is set also for the 
-        // final cells
-        if (this.gridSize * this.gridSize - this.revealedCount == this.bombAmount) {
-            throw new GameWonException();
+    /**
+     * The function writes the rest of the replay, which is done when the game ends or the window is
+     * closed.
+     */
+    void closeReplay() {
+        if (this.replayLog != null) {
+            this.engine.setLog(null);
+            this.replayLog.close();
+            this.replayLog = null;
         }
     }
 
     /**
-     * The function attempts to solve a Minesweeper situation by marking cells as safe, bombs, or
-     * unknown based on the solver's output.
+     * The function saves the game if it was started and isn't over yet, so it can be continued from
+     * the menu. The moves the auto solve already made are played first, so the save holds them.
      */
-    void solveSituation() {
+    void saveGame() {
+        if (this.firstCell < 0 || this.gameOver) {
+            return;
+        }
+
+        if (this.solverService != null) {
+            this.cancelSolver();
+        }
+
+        // the moves of the auto solve may have won the game
+        if (this.gameOver) {
+            return;
+        }
+
+        int options = (this.useProbability ? SaveGame.USE_PROBABILITY : 0)
+                      | (this.drawProbabilities ? SaveGame.DRAW_PROBABILITIES : 0)
+                      | (this.drawPopulationRings ? SaveGame.DRAW_POPULATION_RINGS : 0)
+                      | (this.noGuess ? SaveGame.NO_GUESS : 0)
+                      | (this.hintMode ? SaveGame.HINT_MODE : 0)
+                      | (this.autoSolve ? SaveGame.AUTO_SOLVE : 0);
+        SaveGame save = new SaveGame(this.board, this.maxProbability, this.firstCell, this.time, this.seed, options);
+
         try {
-            ArrayList<ArrayList<Cell>> solvedSituation = this.solver.solveSituation();
-
-            for (Cell safe : solvedSituation.get(0)) {
-                if (!this.cells[safe.row][safe.col].isRevealed) {
-                    safe.markSafe();
-
-                    if (!this.autoSolve) {
-                        continue;
-                    }
-
-                    try {
-                        this.computeNeighboringBombs(this.cells[safe.row][safe.col]);
-                    }
-                    catch (GameWonException e) {
-                        this.handleGameWon();
-                        System.out.println(e.getMessage());
-
-                        return;
-                    }
-                }
-            }
-     
-            if (this.autoSolve){
-                this.solveSituation();
-            }
+            long start = System.nanoTime();
+            save.write(new File(SAVE_FILE));
 
-            if (this.gameOver) {
-                return;
-            }
+            System.out.printf(Locale.ROOT, "Saved game to %s in %.1fms%n", SAVE_FILE, (System.nanoTime() - start) / 1e6);
+        } catch (IOException e) {
+            System.out.println("Could not save game: " + e.getMessage());
+        }
+    }
 
-            for (Cell bomb : solvedSituation.get(1)) {
-                bomb.markBomb();
-            }
+    /**
+     * The function deletes the save once the game continued from it is over.
+     */
+    void deleteSave() {
+        if (this.resumed && !new File(SAVE_FILE).delete()) {
+            System.out.println("Could not delete " + SAVE_FILE);
+        }
+        this.resumed = false;
+    }
 
-            for (Cell unknown : solvedSituation.get(2)) {
-                unknown.markUnknown();
-            }
+    /**
+     * The function continues a saved game on the board of this window: the engine takes over the
+     * populated board, the solver worker and the replay start from the saved state and the clock
+     * goes on from the saved time.
+     *
+     * @param save The saved game, whose board is the board of this window.
+     */
+    void resume(SaveGame save) {
+        this.resumed = true;
+        this.firstCell = save.firstCell;
+        this.seed = save.seed;
+        this.hintMode = save.has(SaveGame.HINT_MODE);
+        this.autoSolve = save.has(SaveGame.AUTO_SOLVE);
+
+        this.time = save.time;
+        this.timeLabel.setText(this.time + "s");
+
+        this.remainingBombsCount = this.bombAmount - this.board.flaggedCount;
+        this.remainingLabel.setText(this.remainingBombsCount + " left");
+
+        this.engine = new GameEngine(this.board, this.firstCell);
+        this.engine.addListener(this::handleEvent);
+        this.handleGameStarted();
+        this.minefield.repaint();
+
+        if (this.hintMode) {
+            this.markedVersion = -1;
+            this.solveSituation();
         }
-        catch (GuessRequiredException e) {
-            for(Cell unknown : e.unknownCells) {
-                unknown.markUnknown();
-            }
+    }
+
+    /**
+     * The function ends the game when a bomb was revealed.
+     *
+     * @param explodedCell The board index of the revealed bomb.
+     */
+    void handleGameLost(int explodedCell) {
+        this.gameOver = true;
+        this.solverService.cancel();
+        this.playback.stop();
+        this.updateHintMode();
+        this.timer.stop();
 
-            System.out.println(e.getMessage());
+        try {    
+            AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(getClass()
+            .getResource("/res/explosion.wav"));
+            
+            Clip clip = AudioSystem.getClip();
+            clip.open(audioInputStream);
+            clip.start();
 
-            return;
+        } catch (Exception e) {
+            System.out.println("Could not play audio file");
+        }
+
+        this.mainLabel.setText("x(");
+        this.revealBombs(explodedCell);
+
+        System.out.println("Game lost");
+    }
+
+    /**
+     * The function shows the surprised face while the left button is held on an unrevealed cell.
+     * 
+     * @param cell The board index of the pressed cell.
+     */
+    void handlePress(int cell) {
+        if(!this.gameOver && !this.board.isRevealed(cell)) {
+            this.mainLabel.setText(":o");
+        }
+    }
+
+    /**
+     * The function restores the face when the left button is released.
+     */
+    void handleRelease() {
+        if(!this.gameOver) {
+            this.mainLabel.setText(":)");
         }
     }
 
@@ -458,9 +699,28 @@ public class Game extends JFrame{
         this.mainLabel.setText("B)");
     }
 
-    public Game(int gridSize, int bombAmount, int maxProbability, 
-                boolean useProbability, boolean drawProbabilities, boolean drawPopulationRings){
-        this.firstCell = null;
+    public Game(int width, int height, int bombAmount, int maxProbability, 
+                boolean useProbability, boolean drawProbabilities, boolean drawPopulationRings,
+                boolean noGuess){
+        this(new Board(width, height, bombAmount), maxProbability, useProbability, drawProbabilities,
+             drawPopulationRings, noGuess);
+    }
+
+    // The `Game(SaveGame save)` constructor opens a window for a saved game and continues it with
+    // the options it was saved with.
+    public Game(SaveGame save) {
+        this(save.board, save.maxProbability, save.has(SaveGame.USE_PROBABILITY),
+             save.has(SaveGame.DRAW_PROBABILITIES), save.has(SaveGame.DRAW_POPULATION_RINGS),
+             save.has(SaveGame.NO_GUESS));
+
+        this.resume(save);
+    }
+
+    // The `Game(Board board, ...)` constructor builds the window around a board, which is empty for
+    // a new game and populated for a saved one.
+    private Game(Board board, int maxProbability, boolean useProbability, boolean drawProbabilities,
+                 boolean drawPopulationRings, boolean noGuess) {
+        this.firstCell = -1;
 
         this.gameOver = false;
         this.hintMode = false;
@@ -469,15 +729,27 @@ public class Game extends JFrame{
         this.drawProbabilities = drawProbabilities;
         this.drawPopulationRings = drawPopulationRings;
         this.maxProbability = maxProbability;
+        this.useProbability = useProbability;
+        this.noGuess = noGuess;
 
         this.cellSize = 35;
-        this.gridSize = gridSize;
-        this.bombAmount = bombAmount;
-        this.cells = new Cell[this.gridSize][this.gridSize];
-       
-        this.revealedCount = 0;
+        this.width = board.width;
+        this.height = board.height;
+        this.bombAmount = board.bombAmount;
+        this.board = board;
+
+        this.engine = new GameEngine(this.board, (populated, cell) -> this.populateBombs(cell));
+        this.engine.addListener(this::handleEvent);
 
-        this.solver = new Solver(this);
+        this.seed = new Random().nextLong();
+        this.replayLog = null;
+        this.resumed = false;
+        this.populationAttempts = 0;
+
+        this.solverService = null;
+        this.playback = null;
+        this.movesPerFrame = 1;
+        this.markedVersion = 0;
 
         gameIcon = new ImageIcon(getClass().getResource("/res/logo.png"));
         setIconImage(gameIcon.getImage());
@@ -486,10 +758,16 @@ public class Game extends JFrame{
 
         Game self = this; // utility
 
+        // large boards would not fit on the screen, so the
+        // window is capped and the minefield scrolls instead
+        Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
+        long maxWindowSize = (long)(Math.min(screenSize.width, screenSize.height) * 0.9);
+
         setMinimumSize(new Dimension(650, 650));
-        setSize(gridSize * cellSize, gridSize * cellSize);
+        setSize((int) Math.min((long) this.width * cellSize + 20, maxWindowSize),
+                (int) Math.min((long) this.height * cellSize + 80, maxWindowSize));
 
-        JPanel mineFieldPanel = new JPanel();
+        this.minefield = new Minefield(this.board, this, this.cellSize);
         JPanel gameStatsPanel = new JPanel();
 
         // Create components for game stats panel
@@ -499,11 +777,11 @@ public class Game extends JFrame{
         JPanel centerAlignPanel = new JPanel(new FlowLayout());
         JPanel rightAlignPanel = new JPanel(new FlowLayout());
 
-        JLabel timeLabel = new JLabel(this.time + "s");
-        timeLabel.setFont(new Font("Arial", Font.BOLD, 18));
+        this.timeLabel = new JLabel(this.time + "s");
+        this.timeLabel.setFont(new Font("Arial", Font.BOLD, 18));
 
-        JLabel remainingLabel = new JLabel(this.remainingBombsCount + " left");
-        remainingLabel.setFont(new Font("Arial", Font.BOLD, 18));
+        this.remainingLabel = new JLabel(this.remainingBombsCount + " left");
+        this.remainingLabel.setFont(new Font("Arial", Font.BOLD, 18));
 
         this.mainLabel = new JLabel(":)");
         this.mainLabel.setFont(new Font("Arial", Font.BOLD, 25));
@@ -538,141 +816,57 @@ public class Game extends JFrame{
             }
         }); 
 
-        leftAlignPanel.add(timeLabel);
-        leftAlignPanel.add(remainingLabel);
+        // the playback rate of the auto solve
+        String[] speedNames = {"1 move/frame", "10 moves/frame", "100 moves/frame", "Max speed"};
+        int[] speeds = {1, 10, 100, AutoSolvePlayback.MAX_SPEED};
+
+        JComboBox<String> speedBox = new JComboBox<String>(speedNames);
+        speedBox.setFocusable(false);
+
+        speedBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                self.setMovesPerFrame(speeds[speedBox.getSelectedIndex()]);
+            }
+        });
+
+        leftAlignPanel.add(this.timeLabel);
+        leftAlignPanel.add(this.remainingLabel);
 
         centerAlignPanel.add(this.mainLabel);
 
         rightAlignPanel.add(menuButton);
         rightAlignPanel.add(hintButton);
         rightAlignPanel.add(autoButton);
+        rightAlignPanel.add(speedBox);
 
         gameStatsPanel.setLayout(new GridLayout());
         gameStatsPanel.add(leftAlignPanel);
         gameStatsPanel.add(centerAlignPanel);
         gameStatsPanel.add(rightAlignPanel);
 
-        mineFieldPanel.setLayout(new GridLayout(gridSize, gridSize));
-
-        for (int y = 0; y < this.gridSize; y++) {
-            for (int x = 0; x < this.gridSize; x++) {
-                cells[y][x] = new Cell(y, x);
-                Cell currentCell = this.cells[y][x];
-                currentCell.setFocusPainted(false);
-
-                currentCell.addMouseListener(new MouseListener() {
-                    public void mouseClicked(MouseEvent me) {
-                        if(self.gameOver) {
-                            return;
-                        }
-
-                        if (SwingUtilities.isRightMouseButton(me)) {
-                            currentCell.toggleFlag();
-
-                            if(!currentCell.isRevealed){
-                                self.remainingBombsCount += currentCell.isFlagged ? -1 : 1;
-                                remainingLabel.setText(self.remainingBombsCount + " left");
-                            }
-                        }
-                        if (SwingUtilities.isLeftMouseButton(me)) {
-                            if(currentCell.isFlagged) {
-                                return;
-                            }
-                            else if(currentCell.isBomb) {
-                                self.gameOver = true;
-                                self.updateHintMode();
-                                self.timer.stop();
-
-                                try {    
-                                    AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(getClass()
-                                    .getResource("/res/explosion.wav"));
-                                    
-                                    Clip clip = AudioSystem.getClip();
-                                    clip.open(audioInputStream);
-                                    clip.start();
-
-                                } catch (Exception e) {
-                                    System.out.println("Could not play audio file");
-                                }
-
-                                self.mainLabel.setText("x(");
-                                self.revealBombs();
-
-                                ImageIcon explosionIcon = new ImageIcon(getClass().getResource("/res/explosion.png"));
-                                currentCell.setIcon(new ImageIcon(explosionIcon.getImage().getScaledInstance(30, 30, java.awt.Image.SCALE_SMOOTH)));
-
-                                System.out.println("Game lost");
-                                return;
-                            }
-                            else if(currentCell.isRevealed) {
-                                return;
-                            }
-
-                            if(firstCell == null) {
-                                self.firstCell = currentCell;
-
-                                if (useProbability) {
-                                    self.populateBombsProbability(self.bombAmount);
-                                } else {
-                                    self.populateBombsRandom();
-                                }
-
-                                self.timer.start();
-
-                                if (self.drawProbabilities) {
-                                    self.paintProbabilities();
-                                }
-                                if (self.drawPopulationRings) {
-                                    self.paintPopulationRings();
-                                }
-                            }
-
-                            try {
-                                self.computeNeighboringBombs(currentCell);
-                            }
-                            catch (GameWonException e) {
-                                self.handleGameWon();
-                                System.out.println(e.getMessage());
-
-                                return;
-                            }
-
-                            if(self.hintMode) {
-                                self.solveSituation();
-                            }
-                        }
-                    }
-                    public void mousePressed(MouseEvent me) {
-                        if(SwingUtilities.isLeftMouseButton(me) && !self.gameOver) {
-                            if(!currentCell.isRevealed) {
-                                self.mainLabel.setText(":o");
-                            }
-                        }
-                    }
-                    public void mouseReleased(MouseEvent me) {
-                        if(SwingUtilities.isLeftMouseButton(me) && !self.gameOver) {
-                            if(!currentCell.isRevealed) {
-                                self.mainLabel.setText(":)");
-                            }
-                        }
-                    }
-                    public void mouseEntered(MouseEvent me) {}
-                    public void mouseExited(MouseEvent me) {}
-                });
-
-                mineFieldPanel.add(currentCell);
-            }
-        }
         add(gameStatsPanel, BorderLayout.NORTH);
-        add(mineFieldPanel);
+        JScrollPane scrollPane = new JScrollPane(this.minefield);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(this.cellSize);
+        scrollPane.getHorizontalScrollBar().setUnitIncrement(this.cellSize);
+        add(scrollPane);
         setVisible(true);
 
+        // the window closes the program right after the listeners
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                self.saveGame();
+                self.closeReplay();
+            }
+        });
+
         time = 0;
         this.timer = new Timer(1000, new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
                 time++;
-                timeLabel.setText(String.valueOf(time) + "s");
+                self.timeLabel.setText(String.valueOf(time) + "s");
             }
         });
     }
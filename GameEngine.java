@@ -0,0 +1,331 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * The GameEngine class holds the rules of a game on a Board without depending on Swing. The game
+ * is played with the reveal(), flag() and chord() commands, which return a compact Outcome and
+ * publish what happened as GameEvents to every listener: the window, the solver worker and any
+ * headless runner subscribe to the same stream. Winning and losing are ordinary outcomes, so no
+ * exception is thrown while playing.
+ *
+ * The bombs are placed on the first reveal by the Populator, which gets the first cell so it can
+ * keep it free. The engine is not thread-safe, all commands have to be made on the same thread.
+ */
+public class GameEngine {
+
+    /**
+     * The Outcome enum is the result of a single command.
+     */
+    public enum Outcome {
+        // nothing changed, e.g. the cell was already revealed
+        IGNORED,
+        REVEALED,
+        FLAGGED,
+        UNFLAGGED,
+        WON,
+        LOST
+    }
+
+    /**
+     * The State enum is the state of the whole game.
+     */
+    public enum State {
+        // before the first reveal, the board has no bombs yet
+        READY,
+        PLAYING,
+        WON,
+        LOST
+    }
+
+    /**
+     * The Listener interface receives the events of an engine, on the thread the commands are made.
+     */
+    public interface Listener {
+        void onEvent(GameEvent event);
+    }
+
+    /**
+     * The Populator interface places the bombs of a board once the first cell is known.
+     */
+    public interface Populator {
+        void populate(Board board, int firstCell);
+    }
+
+    public final Board board;
+
+    private final Populator populator;
+
+    // a listener may subscribe while an event is published,
+    // e.g. the solver worker that is created on Started
+    private final CopyOnWriteArrayList<Listener> listeners;
+
+    private State state;
+    private int firstCell;
+    private final int[] neighbors;
+
+    // records the commands that change the game, or null
+    private ReplayLog log;
+
+    public void addListener(Listener listener) {
+        this.listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * The function sets the log that records every command that changes the game from now on.
+     *
+     * @param log The log, or null to stop recording.
+     */
+    public void setLog(ReplayLog log) {
+        this.log = log;
+    }
+
+    public State getState() {
+        return this.state;
+    }
+
+    /**
+     * The function returns the board index of the first revealed cell.
+     *
+     * @return The method returns the first cell, or -1 before the first reveal.
+     */
+    public int getFirstCell() {
+        return this.firstCell;
+    }
+
+    /**
+     * The function checks whether the game is won or lost.
+     *
+     * @return The method returns true if no more commands are accepted.
+     */
+    public boolean isOver() {
+        return this.state == State.WON || this.state == State.LOST;
+    }
+
+    /**
+     * The function reveals a cell together with the whole opening around it. The first reveal
+     * places the bombs, and revealing a bomb loses the game.
+     *
+     * @param cell The board index of the cell to reveal.
+     * @return The method returns REVEALED, WON, LOST, or IGNORED if the cell is flagged or already
+     * revealed or the game is over.
+     */
+    public Outcome reveal(int cell) {
+        if (this.isOver() || this.board.isFlagged(cell) || this.board.isRevealed(cell)) {
+            return Outcome.IGNORED;
+        }
+
+        if (this.state == State.READY) {
+            this.start(cell);
+        }
+
+        // commands are recorded before their events are published,
+        // since a listener might close the log when the game ends
+        if (this.log != null) {
+            this.log.reveal(cell);
+        }
+
+        if (this.board.isBomb(cell)) {
+            return this.lose(cell);
+        }
+
+        this.publish(new GameEvent.CellsRevealed(this.board.revealFrom(cell), false));
+
+        return this.checkWon();
+    }
+
+    /**
+     * The function toggles the flag on an unrevealed cell.
+     *
+     * @param cell The board index of the cell.
+     * @return The method returns FLAGGED, UNFLAGGED, or IGNORED if the cell is revealed or the game
+     * is over.
+     */
+    public Outcome flag(int cell) {
+        if (this.isOver() || this.board.isRevealed(cell)) {
+            return Outcome.IGNORED;
+        }
+
+        if (this.log != null) {
+            this.log.flag(cell);
+        }
+
+        boolean flagged = this.board.toggleFlag(cell);
+        this.publish(new GameEvent.FlagToggled(cell, flagged));
+
+        return flagged ? Outcome.FLAGGED : Outcome.UNFLAGGED;
+    }
+
+    /**
+     * The function reveals every unflagged neighbor of a revealed number once as many neighbors are
+     * flagged as the number says. If a flag is wrong, one of the neighbors is a bomb and the game
+     * is lost.
+     *
+     * @param cell The board index of the revealed number.
+     * @return The method returns REVEALED, WON, LOST, or IGNORED if the flags don't match the number
+     * or there is nothing left to reveal.
+     */
+    public Outcome chord(int cell) {
+        if (this.state != State.PLAYING || !this.board.isRevealed(cell)) {
+            return Outcome.IGNORED;
+        }
+
+        int flagged = 0;
+        int neighborCount = this.board.neighbors(cell, this.neighbors);
+        for (int n = 0; n < neighborCount; n++) {
+            if (this.board.isFlagged(this.neighbors[n])) {
+                flagged++;
+            }
+        }
+
+        if (flagged != this.board.getNeighboringBombs(cell)) {
+            return Outcome.IGNORED;
+        }
+
+        if (this.log != null) {
+            this.log.chord(cell);
+        }
+
+        for (int n = 0; n < neighborCount; n++) {
+            int neighbor = this.neighbors[n];
+
+            if (!this.board.isFlagged(neighbor) && !this.board.isRevealed(neighbor) && this.board.isBomb(neighbor)) {
+                return this.lose(neighbor);
+            }
+        }
+
+        // the cascades of all the neighbors are published as one event
+        int[] revealed = new int[0];
+        for (int n = 0; n < neighborCount; n++) {
+            if (this.board.isFlagged(this.neighbors[n])) {
+                continue;
+            }
+
+            int[] cascade = this.board.revealFrom(this.neighbors[n]);
+
+            if (cascade.length > 0) {
+                int offset = revealed.length;
+                revealed = Arrays.copyOf(revealed, offset + cascade.length);
+                System.arraycopy(cascade, 0, revealed, offset, cascade.length);
+            }
+        }
+
+        if (revealed.length == 0) {
+            return Outcome.IGNORED;
+        }
+
+        this.publish(new GameEvent.CellsRevealed(revealed, false));
+
+        return this.checkWon();
+    }
+
+    /**
+     * The function reveals cells the auto solve has already revealed on its own copy of the board,
+     * which are safe cells together with their cascades, so they are revealed exactly as given. A
+     * move can be played back after the player flagged one of its cells, and since the cell is
+     * known to be safe its flag is removed first.
+     *
+     * @param cells The cells to reveal.
+     * @return The method returns REVEALED, WON, or IGNORED if the game isn't being played.
+     */
+    public Outcome revealSolved(int[] cells) {
+        if (this.state != State.PLAYING) {
+            return Outcome.IGNORED;
+        }
+
+        if (this.log != null) {
+            this.log.autoStep(cells);
+        }
+
+        for (int cell : cells) {
+            if (this.board.isFlagged(cell)) {
+                this.board.toggleFlag(cell);
+                this.publish(new GameEvent.FlagToggled(cell, false));
+            }
+
+            this.board.reveal(cell);
+        }
+        this.publish(new GameEvent.CellsRevealed(cells, true));
+
+        return this.checkWon();
+    }
+
+    /**
+     * The function publishes that the solver needs a guess to continue.
+     *
+     * @param unknownCells The amount of cells the solver couldn't decide.
+     * @param probabilities The exact probabilities of the undecided cells, or null.
+     */
+    public void solverStalled(int unknownCells, BombProbabilities probabilities) {
+        if (this.state == State.PLAYING) {
+            this.publish(new GameEvent.SolverStalled(unknownCells, probabilities));
+        }
+    }
+
+    /**
+     * The function places the bombs for the first cell and starts the game.
+     */
+    private void start(int cell) {
+        this.firstCell = cell;
+        this.populator.populate(this.board, cell);
+        this.board.computeNeighboringBombs();
+
+        this.state = State.PLAYING;
+        this.publish(new GameEvent.Started(cell));
+    }
+
+    private Outcome lose(int cell) {
+        this.state = State.LOST;
+        this.publish(new GameEvent.Lost(cell));
+
+        return Outcome.LOST;
+    }
+
+    /**
+     * The function checks for a win after cells were revealed. It runs once per command, after
+     * the whole cascade has been applied.
+     */
+    private Outcome checkWon() {
+        if (!this.board.isWon()) {
+            return Outcome.REVEALED;
+        }
+
+        this.state = State.WON;
+        this.publish(new GameEvent.Won());
+
+        return Outcome.WON;
+    }
+
+    private void publish(GameEvent event) {
+        for (Listener listener : this.listeners) {
+            listener.onEvent(event);
+        }
+    }
+
+    // The `GameEngine(Board board, int firstCell)` constructor continues a game on a board that is
+    // already populated and possibly partly played, e.g. a replay restored from a keyframe.
+    public GameEngine(Board board, int firstCell) {
+        this(board, (populated, cell) -> {
+            throw new IllegalStateException("The board is already populated");
+        });
+
+        this.state = board.isWon() ? State.WON : State.PLAYING;
+        this.firstCell = firstCell;
+    }
+
+    // The `GameEngine(Board board, Populator populator)` constructor creates a game on an empty board,
+    // whose bombs are placed by the populator on the first reveal.
+    public GameEngine(Board board, Populator populator) {
+        this.board = board;
+        this.populator = populator;
+        this.listeners = new CopyOnWriteArrayList<Listener>();
+
+        this.state = State.READY;
+        this.firstCell = -1;
+        this.neighbors = new int[8];
+        this.log = null;
+    }
+}
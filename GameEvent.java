@@ -0,0 +1,89 @@
+/**
+ * The GameEvent class is the base of the events a GameEngine publishes to its listeners. Every kind
+ * of event is its own class, so a listener checks the type with instanceof and reads the typed
+ * fields, and ignores the events it isn't interested in. The events are immutable and the arrays
+ * they hold must not be modified.
+ */
+public abstract class GameEvent {
+
+    /**
+     * The Started event is published on the first reveal, once the bombs are placed and the
+     * neighboring bombs are computed, before the cells of the first click are revealed.
+     */
+    public static final class Started extends GameEvent {
+        public final int firstCell;
+
+        Started(int firstCell) {
+            this.firstCell = firstCell;
+        }
+    }
+
+    /**
+     * The CellsRevealed event holds the cells revealed by one command, including the whole cascade
+     * of every opening.
+     */
+    public static final class CellsRevealed extends GameEvent {
+        public final int[] cells;
+
+        // whether the cells were revealed by the auto solve, which has
+        // already applied them to its own copy of the board
+        public final boolean bySolver;
+
+        CellsRevealed(int[] cells, boolean bySolver) {
+            this.cells = cells;
+            this.bySolver = bySolver;
+        }
+    }
+
+    /**
+     * The FlagToggled event is published when a flag is placed on a cell or removed from it.
+     */
+    public static final class FlagToggled extends GameEvent {
+        public final int cell;
+        public final boolean flagged;
+
+        FlagToggled(int cell, boolean flagged) {
+            this.cell = cell;
+            this.flagged = flagged;
+        }
+    }
+
+    /**
+     * The Won event is published once every cell that is not a bomb has been revealed.
+     */
+    public static final class Won extends GameEvent {
+        Won() {
+        }
+    }
+
+    /**
+     * The Lost event is published when a bomb is revealed.
+     */
+    public static final class Lost extends GameEvent {
+        public final int explodedCell;
+
+        Lost(int explodedCell) {
+            this.explodedCell = explodedCell;
+        }
+    }
+
+    /**
+     * The SolverStalled event is published when the solver can't find any more safe cells and a
+     * guess is required to continue.
+     */
+    public static final class SolverStalled extends GameEvent {
+        public final int unknownCells;
+
+        // the exact probabilities of the undecided cells, or null
+        // if they couldn't be computed or are already outdated
+        public final BombProbabilities probabilities;
+
+        SolverStalled(int unknownCells, BombProbabilities probabilities) {
+            this.unknownCells = unknownCells;
+            this.probabilities = probabilities;
+        }
+    }
+
+    GameEvent() {
+    }
+}
@@ -0,0 +1,393 @@
+import java.util.*;
+
+/**
+ * The InfiniteBoard class is the headless model of the endless mode. The world is split into
+ * square chunks of CHUNK_SIZE x CHUNK_SIZE cells, and the bombs of a chunk are placed the first
+ * time a reveal, a flag, a neighbor count or the InfiniteSolver touches it, from a random
+ * generator seeded with a hash of the world seed and the chunk coordinates. The same chunk
+ * therefore always gets the same bombs, so chunks that were only looked at can be dropped and
+ * regenerated later, and the memory used grows with the explored area instead of with the size of
+ * the world.
+ *
+ * Cells are addressed with world coordinates (x, y), which can be negative. The 3x3 cells around
+ * the origin never contain a bomb, so the game can always start by revealing (0, 0).
+ */
+public class InfiniteBoard {
+    public static final int CHUNK_SHIFT = 6;
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    public static final int CHUNK_CELLS = CHUNK_SIZE * CHUNK_SIZE;
+
+    // below this density the openings of a random board can be
+    // infinite, so a single click would never stop revealing
+    public static final int MIN_DENSITY = 12;
+    public static final int MAX_DENSITY = 50;
+
+    // upper bound of a single cascade, only reached if the
+    // density is so low that openings keep growing
+    private static final int MAX_CASCADE = 1 << 20;
+
+    public final long seed;
+    public final int bombsPerChunk;
+
+    public long revealedCount;
+    public long flaggedCount;
+
+    /**
+     * The Chunk class holds the state of one chunk. Every row of the chunk is one long, with the
+     * cell at local column x in bit x. The bombs and neighbor counts can always be regenerated from
+     * the seed, while the revealed and flagged cells are only allocated once the player changes
+     * them.
+     */
+    private static class Chunk {
+        long[] bombs;
+        byte[] neighboringBombs;
+        long[] revealed;
+        long[] flags;
+    }
+
+    private final HashMap<Long, Chunk> chunks;
+
+    // the last chunk looked up, since most lookups
+    // land in the same chunk as the previous one
+    private long lastKey;
+    private Chunk lastChunk;
+
+    private static long key(int chunkX, int chunkY) {
+        return ((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL);
+    }
+
+    /**
+     * The function mixes the bits of a long so that close inputs give unrelated outputs, using the
+     * finalizer of SplitMix64.
+     *
+     * @param z The value to mix.
+     * @return The method returns the mixed value.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * The function computes the seed of the random generator of a chunk.
+     *
+     * @param chunkX The column of the chunk.
+     * @param chunkY The row of the chunk.
+     * @return The method returns the seed of the chunk.
+     */
+    private long chunkSeed(int chunkX, int chunkY) {
+        return mix(this.seed ^ mix(key(chunkX, chunkY)));
+    }
+
+    /**
+     * The function places the bombs of a chunk with the same sampling without replacement as the
+     * random population of the normal game, BoardGenerator.sampleCells(), but the generator is
+     * seeded from the chunk so the result is always the same. The cells of the chunk are numbered
+     * localY * CHUNK_SIZE + localX, so bit localX of the word localY is exactly one row of it.
+     *
+     * @param chunkX The column of the chunk.
+     * @param chunkY The row of the chunk.
+     * @return The method returns the bombs of the chunk, one long per row.
+     */
+    private long[] generateBombs(int chunkX, int chunkY) {
+        // the cells around the starting cell that lie in this chunk
+        int[] excluded = new int[9];
+        int excludedCount = 0;
+        for (int localY = 0; localY < CHUNK_SIZE; localY++) {
+            int y = (chunkY << CHUNK_SHIFT) + localY;
+
+            for (int localX = 0; localX < CHUNK_SIZE && Math.abs(y) <= 1; localX++) {
+                int x = (chunkX << CHUNK_SHIFT) + localX;
+
+                if (Math.abs(x) <= 1) {
+                    excluded[excludedCount++] = localY * CHUNK_SIZE + localX;
+                }
+            }
+        }
+
+        BitSet bombs = new BitSet(CHUNK_CELLS);
+        BoardGenerator.sampleCells(CHUNK_CELLS, Arrays.copyOf(excluded, excludedCount), this.bombsPerChunk,
+                                   new Random(this.chunkSeed(chunkX, chunkY)), bombs);
+
+        // toLongArray() leaves out the trailing empty rows
+        return Arrays.copyOf(bombs.toLongArray(), CHUNK_SIZE);
+    }
+
+    /**
+     * The function returns the chunk at the given chunk coordinates, creating it and placing its
+     * bombs if it isn't loaded.
+     *
+     * @param chunkX The column of the chunk.
+     * @param chunkY The row of the chunk.
+     * @return The method returns the chunk.
+     */
+    private Chunk chunk(int chunkX, int chunkY) {
+        long key = key(chunkX, chunkY);
+        if (this.lastChunk != null && this.lastKey == key) {
+            return this.lastChunk;
+        }
+
+        Chunk chunk = this.chunks.get(key);
+        if (chunk == null) {
+            chunk = new Chunk();
+            this.chunks.put(key, chunk);
+        }
+        if (chunk.bombs == null) {
+            chunk.bombs = this.generateBombs(chunkX, chunkY);
+        }
+
+        this.lastKey = key;
+        this.lastChunk = chunk;
+
+        return chunk;
+    }
+
+    private Chunk chunkOf(int x, int y) {
+        return this.chunk(x >> CHUNK_SHIFT, y >> CHUNK_SHIFT);
+    }
+
+    public boolean isBomb(int x, int y) {
+        return (this.chunkOf(x, y).bombs[y & (CHUNK_SIZE - 1)] & (1L << x)) != 0;
+    }
+
+    public boolean isRevealed(int x, int y) {
+        long[] revealed = this.chunkOf(x, y).revealed;
+        return revealed != null && (revealed[y & (CHUNK_SIZE - 1)] & (1L << x)) != 0;
+    }
+
+    public boolean isFlagged(int x, int y) {
+        long[] flags = this.chunkOf(x, y).flags;
+        return flags != null && (flags[y & (CHUNK_SIZE - 1)] & (1L << x)) != 0;
+    }
+
+    /**
+     * The function computes the neighboring bombs of every cell of a chunk at once. The bombs of
+     * the chunk and of the one-cell border around it are copied into a padded grid, so the cells
+     * on the edges read the neighboring chunks like any other cell.
+     *
+     * @param chunk The chunk to count.
+     * @param chunkX The column of the chunk.
+     * @param chunkY The row of the chunk.
+     * @return The method returns the counts indexed by localY * CHUNK_SIZE + localX.
+     */
+    private byte[] countChunk(Chunk chunk, int chunkX, int chunkY) {
+        int padded = CHUNK_SIZE + 2;
+        byte[] grid = new byte[padded * padded];
+        int originX = chunkX << CHUNK_SHIFT;
+        int originY = chunkY << CHUNK_SHIFT;
+
+        for (int py = 0; py < padded; py++) {
+            for (int px = 0; px < padded; px++) {
+                boolean inside = px > 0 && py > 0 && px <= CHUNK_SIZE && py <= CHUNK_SIZE;
+                boolean bomb = inside
+                    ? (chunk.bombs[py - 1] & (1L << (px - 1))) != 0
+                    : this.isBomb(originX + px - 1, originY + py - 1);
+
+                grid[py * padded + px] = (byte) (bomb ? 1 : 0);
+            }
+        }
+
+        byte[] counts = new byte[CHUNK_CELLS];
+        for (int y = 0; y < CHUNK_SIZE; y++) {
+            for (int x = 0; x < CHUNK_SIZE; x++) {
+                int center = (y + 1) * padded + x + 1;
+                int sum = grid[center - padded - 1] + grid[center - padded] + grid[center - padded + 1]
+                        + grid[center - 1] + grid[center + 1]
+                        + grid[center + padded - 1] + grid[center + padded] + grid[center + padded + 1];
+
+                counts[y * CHUNK_SIZE + x] = (byte) sum;
+            }
+        }
+
+        return counts;
+    }
+
+    /**
+     * The function returns the amount of bombs around a cell, computing the counts of its whole
+     * chunk the first time one of its cells is asked for.
+     *
+     * @param x The column of the cell.
+     * @param y The row of the cell.
+     * @return The method returns the neighboring bombs of the cell.
+     */
+    public int getNeighboringBombs(int x, int y) {
+        int chunkX = x >> CHUNK_SHIFT;
+        int chunkY = y >> CHUNK_SHIFT;
+        Chunk chunk = this.chunk(chunkX, chunkY);
+
+        if (chunk.neighboringBombs == null) {
+            chunk.neighboringBombs = this.countChunk(chunk, chunkX, chunkY);
+        }
+
+        return chunk.neighboringBombs[(y & (CHUNK_SIZE - 1)) * CHUNK_SIZE + (x & (CHUNK_SIZE - 1))];
+    }
+
+    private void setRevealed(int x, int y) {
+        Chunk chunk = this.chunkOf(x, y);
+        if (chunk.revealed == null) {
+            chunk.revealed = new long[CHUNK_SIZE];
+        }
+
+        chunk.revealed[y & (CHUNK_SIZE - 1)] |= 1L << x;
+        this.revealedCount++;
+    }
+
+    private void clearRevealed(int x, int y) {
+        this.chunkOf(x, y).revealed[y & (CHUNK_SIZE - 1)] &= ~(1L << x);
+        this.revealedCount--;
+    }
+
+    /**
+     * The function toggles the flag on an unrevealed cell.
+     *
+     * @param x The column of the cell.
+     * @param y The row of the cell.
+     * @return The method returns true if the cell is flagged after the call.
+     */
+    public boolean toggleFlag(int x, int y) {
+        if (this.isRevealed(x, y)) {
+            return false;
+        }
+
+        Chunk chunk = this.chunkOf(x, y);
+        if (chunk.flags == null) {
+            chunk.flags = new long[CHUNK_SIZE];
+        }
+
+        chunk.flags[y & (CHUNK_SIZE - 1)] ^= 1L << x;
+        boolean flagged = (chunk.flags[y & (CHUNK_SIZE - 1)] & (1L << x)) != 0;
+        this.flaggedCount += flagged ? 1 : -1;
+
+        return flagged;
+    }
+
+    /**
+     * The function reveals a cell and, if it has no neighboring bombs, keeps revealing the cells
+     * around it until the whole opening is revealed, across chunk boundaries. Like the flood fill of
+     * the normal board it uses an explicit queue, here of packed (x, y) pairs, and never reveals
+     * flagged cells or bombs.
+     *
+     * A cascade stops after about MAX_CASCADE cells. The empty cells still queued then are hidden
+     * again, since their neighbors were never revealed, so clicking one of them continues the
+     * opening from there.
+     *
+     * @param x The column of the cell to reveal.
+     * @param y The row of the cell to reveal.
+     * @return The method returns the amount of cells revealed.
+     */
+    public int revealFrom(int x, int y) {
+        if (this.isRevealed(x, y)) {
+            return 0;
+        }
+
+        long[] queue = new long[16];
+        int head = 0;
+        int tail = 0;
+
+        this.setRevealed(x, y);
+        queue[tail++] = key(x, y);
+
+        while (head < tail && tail < MAX_CASCADE) {
+            long cell = queue[head++];
+            int cellX = (int) (cell >> 32);
+            int cellY = (int) cell;
+
+            if (this.getNeighboringBombs(cellX, cellY) != 0 || this.isBomb(cellX, cellY)) {
+                continue;
+            }
+
+            for (int ny = cellY - 1; ny <= cellY + 1; ny++) {
+                for (int nx = cellX - 1; nx <= cellX + 1; nx++) {
+                    // skip if cell is revealed, flagged, or a bomb
+                    if (this.isRevealed(nx, ny) || this.isFlagged(nx, ny) || this.isBomb(nx, ny)) {
+                        continue;
+                    }
+
+                    // mark it revealed when queued so it is only queued once
+                    this.setRevealed(nx, ny);
+
+                    if (tail == queue.length) {
+                        queue = Arrays.copyOf(queue, queue.length * 2);
+                    }
+                    queue[tail++] = key(nx, ny);
+                }
+            }
+        }
+
+        int revealed = tail;
+        for (int i = head; i < tail; i++) {
+            int cellX = (int) (queue[i] >> 32);
+            int cellY = (int) queue[i];
+
+            if (this.getNeighboringBombs(cellX, cellY) == 0) {
+                this.clearRevealed(cellX, cellY);
+                revealed--;
+            }
+        }
+
+        return revealed;
+    }
+
+    /**
+     * The function returns the amount of chunks currently held in memory.
+     *
+     * @return The method returns the amount of loaded chunks.
+     */
+    public int loadedChunks() {
+        return this.chunks.size();
+    }
+
+    /**
+     * The function frees the chunks further than the given distance from a cell. Chunks the player
+     * never changed are removed entirely, the others only keep their revealed and flagged cells,
+     * and in both cases the bombs and counts are regenerated from the seed when they are needed
+     * again.
+     *
+     * @param x The column of the cell to keep around, usually the center of the view.
+     * @param y The row of the cell to keep around.
+     * @param radius The distance in chunks within which chunks are kept.
+     */
+    public void evict(int x, int y, int radius) {
+        int centerX = x >> CHUNK_SHIFT;
+        int centerY = y >> CHUNK_SHIFT;
+
+        Iterator<Map.Entry<Long, Chunk>> iterator = this.chunks.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Chunk> entry = iterator.next();
+            int chunkX = (int) (entry.getKey() >> 32);
+            int chunkY = (int) (long) entry.getKey();
+
+            if (Math.abs(chunkX - centerX) <= radius && Math.abs(chunkY - centerY) <= radius) {
+                continue;
+            }
+
+            Chunk chunk = entry.getValue();
+            if (chunk.revealed == null && chunk.flags == null) {
+                iterator.remove();
+            } else {
+                chunk.bombs = null;
+                chunk.neighboringBombs = null;
+            }
+        }
+
+        this.lastChunk = null;
+    }
+
+    // The `InfiniteBoard(long seed, int density)` constructor creates an endless board whose chunks
+    // all contain `density` percent bombs, placed from the given world seed.
+    public InfiniteBoard(long seed, int density) {
+        if (density < MIN_DENSITY || density > MAX_DENSITY) {
+            throw new IllegalArgumentException("Density must be between " + MIN_DENSITY + "% and " + MAX_DENSITY + "%");
+        }
+
+        this.seed = seed;
+        this.bombsPerChunk = CHUNK_CELLS * density / 100;
+
+        this.revealedCount = 0;
+        this.flaggedCount = 0;
+
+        this.chunks = new HashMap<Long, Chunk>();
+        this.lastChunk = null;
+    }
+}
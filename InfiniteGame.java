@@ -0,0 +1,218 @@
+import javax.swing.*;
+
+import java.awt.*;
+import java.awt.event.*;
+
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Clip;
+
+/**
+ * The InfiniteGame class is the window of the endless mode. There is no win in this mode, the goal
+ * is to reveal as many cells as possible before clicking a bomb, starting from the cell at the
+ * origin which is always safe.
+ */
+public class InfiniteGame extends JFrame {
+    private static final long serialVersionUID = 1L;
+
+    public boolean gameOver;
+    public boolean hintMode;
+    public int cellSize;
+
+    public InfiniteBoard board;
+    public InfiniteMinefield minefield;
+
+    public JLabel mainLabel;
+    private JLabel revealedLabel;
+    private JLabel flaggedLabel;
+    private ImageIcon gameIcon;
+
+    /**
+     * The stop() function hides the current window, disposes of it, and then creates and runs a new
+     * Menu window.
+     */
+    public void stop() {
+        setVisible(false);
+        dispose();
+
+        Menu menu = new Menu(500);
+        menu.run();
+    }
+
+    /**
+     * The function sets the location of the JFrame to the center of the screen, sets the default close
+     * operation to exit the program when the frame is closed, and makes the frame visible.
+     */
+    public void run() {
+        setLocationRelativeTo(null);
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setVisible(true);
+
+        this.minefield.centerOn(0, 0);
+    }
+
+    /**
+     * The function updates the labels showing the amount of revealed and flagged cells.
+     */
+    private void updateLabels() {
+        this.revealedLabel.setText(this.board.revealedCount + " revealed");
+        this.flaggedLabel.setText(this.board.flaggedCount + " flagged");
+    }
+
+    /**
+     * The function toggles the hint mode, which draws the cells the solver can decide.
+     */
+    public void updateHintMode() {
+        this.hintMode = !this.hintMode;
+        this.minefield.setHintMode(this.hintMode && !this.gameOver);
+    }
+
+    /**
+     * The function handles a right click on a cell by toggling its flag.
+     *
+     * @param x The column of the clicked cell.
+     * @param y The row of the clicked cell.
+     */
+    void handleRightClick(int x, int y) {
+        if (this.gameOver || this.board.isRevealed(x, y)) {
+            return;
+        }
+
+        this.board.toggleFlag(x, y);
+        this.updateLabels();
+        this.minefield.repaint();
+    }
+
+    /**
+     * The function handles a left click on a cell. Clicking a bomb loses the game and any other
+     * unrevealed cell is revealed together with its opening.
+     *
+     * @param x The column of the clicked cell.
+     * @param y The row of the clicked cell.
+     */
+    void handleLeftClick(int x, int y) {
+        if (this.gameOver || this.board.isFlagged(x, y) || this.board.isRevealed(x, y)) {
+            return;
+        }
+
+        if (this.board.isBomb(x, y)) {
+            this.gameOver = true;
+
+            try {
+                AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(getClass()
+                .getResource("/res/explosion.wav"));
+
+                Clip clip = AudioSystem.getClip();
+                clip.open(audioInputStream);
+                clip.start();
+
+            } catch (Exception e) {
+                System.out.println("Could not play audio file");
+            }
+
+            this.mainLabel.setText("x(");
+            this.minefield.setHintMode(false);
+            this.minefield.showBombs(x, y);
+
+            System.out.println("Game lost after revealing " + this.board.revealedCount + " cells");
+            return;
+        }
+
+        this.board.revealFrom(x, y);
+        this.updateLabels();
+
+        if (this.hintMode) {
+            this.minefield.updateHints();
+        }
+        this.minefield.repaint();
+    }
+
+    // The `InfiniteGame(long seed, int density)` constructor creates the window of an endless game
+    // whose chunks are generated from the given seed with `density` percent bombs.
+    public InfiniteGame(long seed, int density) {
+        this.gameOver = false;
+        this.hintMode = false;
+        this.cellSize = 35;
+
+        this.board = new InfiniteBoard(seed, density);
+
+        gameIcon = new ImageIcon(getClass().getResource("/res/logo.png"));
+        setIconImage(gameIcon.getImage());
+        setTitle("Endless (seed " + seed + ")");
+
+        InfiniteGame self = this; // utility
+
+        setMinimumSize(new Dimension(650, 650));
+        setSize(800, 800);
+
+        this.minefield = new InfiniteMinefield(this.board, this, this.cellSize);
+        JPanel gameStatsPanel = new JPanel();
+
+        JPanel leftAlignPanel = new JPanel(new GridLayout());
+        leftAlignPanel.setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 0));
+
+        JPanel centerAlignPanel = new JPanel(new FlowLayout());
+        JPanel rightAlignPanel = new JPanel(new FlowLayout());
+
+        this.revealedLabel = new JLabel();
+        this.revealedLabel.setFont(new Font("Arial", Font.BOLD, 18));
+
+        this.flaggedLabel = new JLabel();
+        this.flaggedLabel.setFont(new Font("Arial", Font.BOLD, 18));
+
+        this.mainLabel = new JLabel(":)");
+        this.mainLabel.setFont(new Font("Arial", Font.BOLD, 25));
+
+        JButton menuButton = new JButton("Menu");
+        menuButton.setFocusPainted(false);
+
+        menuButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                self.stop();
+            }
+        });
+
+        JButton homeButton = new JButton("Home");
+        homeButton.setFocusPainted(false);
+
+        homeButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                self.minefield.centerOn(0, 0);
+            }
+        });
+
+        JButton hintButton = new JButton("Hint");
+        hintButton.setFocusPainted(false);
+
+        hintButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                self.updateHintMode();
+            }
+        });
+
+        leftAlignPanel.add(this.revealedLabel);
+        leftAlignPanel.add(this.flaggedLabel);
+
+        centerAlignPanel.add(this.mainLabel);
+
+        rightAlignPanel.add(hintButton);
+        rightAlignPanel.add(menuButton);
+        rightAlignPanel.add(homeButton);
+
+        gameStatsPanel.setLayout(new GridLayout());
+        gameStatsPanel.add(leftAlignPanel);
+        gameStatsPanel.add(centerAlignPanel);
+        gameStatsPanel.add(rightAlignPanel);
+
+        add(gameStatsPanel, BorderLayout.NORTH);
+        add(this.minefield);
+
+        // the origin never has bombs around it,
+        // so the game starts with its opening
+        this.board.revealFrom(0, 0);
+        this.updateLabels();
+    }
+}
@@ -0,0 +1,303 @@
+import javax.swing.*;
+
+import java.awt.*;
+import java.awt.event.*;
+
+/**
+ * The InfiniteMinefield class draws the part of an InfiniteBoard around a movable camera. Dragging
+ * with any mouse button moves the camera, the mouse wheel scrolls, Ctrl + mouse wheel zooms, and
+ * clicks without dragging are forwarded to the game. Whenever the camera moves the chunks far from
+ * it are evicted from the board. In hint mode the InfiniteSolver solves the cells on the screen
+ * after every move of the player or the camera, and the cells it decided are drawn green or red.
+ */
+public class InfiniteMinefield extends JComponent {
+    private static final long serialVersionUID = 1L;
+
+    private static final Color UNREVEALED_COLOR = new Color(180, 180, 180);
+
+    // chunks further than this from the camera, on top
+    // of the ones on the screen, are freed
+    private static final int EVICTION_MARGIN = 2;
+
+    private final InfiniteBoard board;
+    private final InfiniteGame game;
+
+    private int cellSize;
+
+    // world pixel at the top left corner of the component
+    private long cameraX;
+    private long cameraY;
+
+    private boolean bombsShown;
+
+    // the hints of the cells on the screen, null while the hint mode is off
+    private InfiniteSolver.Result hints;
+    private int explodedX;
+    private int explodedY;
+
+    private Point dragStart;
+
+    /**
+     * The function maps a point of the component to the world column under it.
+     *
+     * @param x The horizontal component coordinate.
+     * @return The method returns the world column.
+     */
+    public int cellX(int x) {
+        return (int) Math.floorDiv(this.cameraX + x, (long) this.cellSize);
+    }
+
+    /**
+     * The function maps a point of the component to the world row under it.
+     *
+     * @param y The vertical component coordinate.
+     * @return The method returns the world row.
+     */
+    public int cellY(int y) {
+        return (int) Math.floorDiv(this.cameraY + y, (long) this.cellSize);
+    }
+
+    /**
+     * The function moves the camera by the given amount of pixels and frees the chunks that are now
+     * far from it.
+     *
+     * @param dx The horizontal movement in pixels.
+     * @param dy The vertical movement in pixels.
+     */
+    public void moveCamera(long dx, long dy) {
+        this.cameraX += dx;
+        this.cameraY += dy;
+
+        int visibleChunks = Math.max(getWidth(), getHeight()) / (this.cellSize * InfiniteBoard.CHUNK_SIZE) + 1;
+        this.board.evict(this.cellX(getWidth() / 2), this.cellY(getHeight() / 2), visibleChunks + EVICTION_MARGIN);
+
+        if (this.hints != null) {
+            this.updateHints();
+        }
+
+        repaint();
+    }
+
+    /**
+     * The function turns the hints on or off.
+     *
+     * @param hintMode Whether the hints are shown.
+     */
+    public void setHintMode(boolean hintMode) {
+        this.hints = null;
+
+        if (hintMode) {
+            this.updateHints();
+        }
+
+        repaint();
+    }
+
+    /**
+     * The function solves the cells on the screen again, after the player or the camera moved.
+     */
+    public void updateHints() {
+        this.hints = InfiniteSolver.solve(this.board, this.cellX(0), this.cellY(0), this.cellX(getWidth()), this.cellY(getHeight()));
+    }
+
+    /**
+     * The function centers the camera on a cell.
+     *
+     * @param x The column of the cell.
+     * @param y The row of the cell.
+     */
+    public void centerOn(int x, int y) {
+        this.cameraX = (long) x * this.cellSize + this.cellSize / 2 - getWidth() / 2;
+        this.cameraY = (long) y * this.cellSize + this.cellSize / 2 - getHeight() / 2;
+
+        repaint();
+    }
+
+    /**
+     * The function changes the zoom, keeping the cell under the given point in place.
+     *
+     * @param cellSize The new size of a cell in pixels.
+     * @param anchor The point in component coordinates that should stay in place.
+     */
+    public void setCellSize(int cellSize, Point anchor) {
+        cellSize = Math.max(Minefield.MIN_CELL_SIZE, Math.min(Minefield.MAX_CELL_SIZE, cellSize));
+
+        double worldX = (double) (this.cameraX + anchor.x) / this.cellSize;
+        double worldY = (double) (this.cameraY + anchor.y) / this.cellSize;
+
+        this.cellSize = cellSize;
+        this.cameraX = (long) (worldX * cellSize) - anchor.x;
+        this.cameraY = (long) (worldY * cellSize) - anchor.y;
+
+        this.moveCamera(0, 0);
+    }
+
+    /**
+     * The function draws every bomb on the screen that isn't flagged after the game is lost.
+     *
+     * @param x The column of the bomb that was clicked.
+     * @param y The row of the bomb that was clicked.
+     */
+    public void showBombs(int x, int y) {
+        this.bombsShown = true;
+        this.explodedX = x;
+        this.explodedY = y;
+
+        repaint();
+    }
+
+    /**
+     * The function draws one cell at the given position.
+     *
+     * @param graphics The graphics to draw with.
+     * @param cellX The world column of the cell.
+     * @param cellY The world row of the cell.
+     * @param x The left edge of the cell on the component.
+     * @param y The top edge of the cell on the component.
+     */
+    private void paintCell(Graphics2D graphics, int cellX, int cellY, int x, int y) {
+        int size = this.cellSize;
+        int iconSize = Math.max(2, size * 4 / 7);
+        String sprite = null;
+
+        if (this.board.isRevealed(cellX, cellY)) {
+            graphics.setColor(Color.LIGHT_GRAY);
+            graphics.fillRect(x, y, size, size);
+            graphics.setColor(Color.GRAY);
+            graphics.drawRect(x, y, size - 1, size - 1);
+
+            int neighboringBombs = this.board.getNeighboringBombs(cellX, cellY);
+            if (neighboringBombs > 0 && !this.board.isBomb(cellX, cellY)) {
+                sprite = String.valueOf(neighboringBombs);
+            }
+        }
+        else {
+            Color color = UNREVEALED_COLOR;
+            if (this.hints != null && this.hints.safe.contains(InfiniteSolver.key(cellX, cellY))) {
+                color = Color.GREEN;
+            } else if (this.hints != null && this.hints.bombs.contains(InfiniteSolver.key(cellX, cellY))) {
+                color = Color.RED;
+            }
+
+            graphics.setColor(color);
+            graphics.fillRect(x, y, size, size);
+
+            graphics.setColor(Color.WHITE);
+            graphics.drawLine(x, y, x + size - 1, y);
+            graphics.drawLine(x, y, x, y + size - 1);
+            graphics.setColor(Color.GRAY);
+            graphics.drawLine(x, y + size - 1, x + size - 1, y + size - 1);
+            graphics.drawLine(x + size - 1, y, x + size - 1, y + size - 1);
+
+            if (this.board.isFlagged(cellX, cellY)) {
+                sprite = "flag";
+            }
+            else if (this.bombsShown && cellX == this.explodedX && cellY == this.explodedY) {
+                sprite = "explosion";
+                iconSize = iconSize * 3 / 2;
+            }
+            else if (this.bombsShown && this.board.isBomb(cellX, cellY)) {
+                sprite = "bomb";
+            }
+        }
+
+        if (sprite != null) {
+            graphics.drawImage(Sprites.image(sprite, iconSize), x + (size - iconSize) / 2, y + (size - iconSize) / 2, null);
+        }
+    }
+
+    /**
+     * The function draws the cells inside the clip of the graphics.
+     *
+     * @param g The graphics to draw with.
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D graphics = (Graphics2D) g;
+
+        Rectangle clip = graphics.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+
+        int firstX = this.cellX(clip.x);
+        int firstY = this.cellY(clip.y);
+        int lastX = this.cellX(clip.x + clip.width);
+        int lastY = this.cellY(clip.y + clip.height);
+
+        for (int cellY = firstY; cellY <= lastY; cellY++) {
+            for (int cellX = firstX; cellX <= lastX; cellX++) {
+                int x = (int) ((long) cellX * this.cellSize - this.cameraX);
+                int y = (int) ((long) cellY * this.cellSize - this.cameraY);
+
+                this.paintCell(graphics, cellX, cellY, x, y);
+            }
+        }
+    }
+
+    // The `InfiniteMinefield(InfiniteBoard board, InfiniteGame game, int cellSize)` constructor
+    // creates the component and installs the listeners used to play and to move the camera.
+    InfiniteMinefield(InfiniteBoard board, InfiniteGame game, int cellSize) {
+        this.board = board;
+        this.game = game;
+        this.cellSize = cellSize;
+
+        this.cameraX = 0;
+        this.cameraY = 0;
+        this.bombsShown = false;
+        this.hints = null;
+
+        setOpaque(true);
+
+        InfiniteMinefield self = this;
+        MouseAdapter mouseAdapter = new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent me) {
+                int x = self.cellX(me.getX());
+                int y = self.cellY(me.getY());
+
+                if (SwingUtilities.isRightMouseButton(me)) {
+                    self.game.handleRightClick(x, y);
+                }
+                if (SwingUtilities.isLeftMouseButton(me)) {
+                    self.game.handleLeftClick(x, y);
+                }
+            }
+
+            @Override
+            public void mousePressed(MouseEvent me) {
+                self.dragStart = me.getPoint();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent me) {
+                if (self.dragStart == null) {
+                    return;
+                }
+
+                self.moveCamera(self.dragStart.x - me.getX(), self.dragStart.y - me.getY());
+                self.dragStart = me.getPoint();
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                if (e.isControlDown()) {
+                    int step = Math.max(1, self.cellSize / 8);
+                    self.setCellSize(self.cellSize - e.getWheelRotation() * step, e.getPoint());
+                    return;
+                }
+
+                int amount = e.getWheelRotation() * self.cellSize * 3;
+                if (e.isShiftDown()) {
+                    self.moveCamera(amount, 0);
+                } else {
+                    self.moveCamera(0, amount);
+                }
+            }
+        };
+
+        addMouseListener(mouseAdapter);
+        addMouseMotionListener(mouseAdapter);
+        addMouseWheelListener(mouseAdapter);
+    }
+}
@@ -0,0 +1,128 @@
+import java.util.*;
+
+/**
+ * The InfiniteSolver class finds the hints of the endless mode. It applies the single-cell rules of
+ * the Solver to the revealed numbers inside a rectangle of the world: if a number already touches
+ * as many known bombs as it says, its other hidden neighbors are safe, and if its hidden neighbors
+ * are exactly the bombs it still misses, they are all bombs. Every decided cell puts the numbers
+ * around it back on the work list, until nothing changes.
+ *
+ * The neighbors of the numbers are read through the InfiniteBoard, so the solver works across chunk
+ * boundaries and generates a chunk the first time it touches one, just like a reveal. Only the
+ * rectangle is solved, so the work and memory grow with the area on the screen, not with the
+ * explored world.
+ */
+public class InfiniteSolver {
+
+    /**
+     * The Result class holds the decided hidden cells as packed (x, y) pairs, see key().
+     */
+    public static class Result {
+        public final HashSet<Long> safe;
+        public final HashSet<Long> bombs;
+
+        Result() {
+            this.safe = new HashSet<Long>();
+            this.bombs = new HashSet<Long>();
+        }
+    }
+
+    /**
+     * The function packs a world cell into a long, the same way the InfiniteBoard queues cells.
+     *
+     * @param x The column of the cell.
+     * @param y The row of the cell.
+     * @return The method returns the packed cell.
+     */
+    public static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * The function finds the hidden cells that are certainly safe or certainly bombs from the
+     * revealed numbers inside a rectangle. The flags of the player are ignored, since they might be
+     * wrong.
+     *
+     * @param board The endless board.
+     * @param minX The leftmost column of the rectangle.
+     * @param minY The top row of the rectangle.
+     * @param maxX The rightmost column of the rectangle.
+     * @param maxY The bottom row of the rectangle.
+     * @return The method returns the decided cells.
+     */
+    public static Result solve(InfiniteBoard board, int minX, int minY, int maxX, int maxY) {
+        Result result = new Result();
+        ArrayDeque<Long> work = new ArrayDeque<Long>();
+        HashSet<Long> queued = new HashSet<Long>();
+
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                if (board.isRevealed(x, y) && board.getNeighboringBombs(x, y) > 0) {
+                    work.add(key(x, y));
+                    queued.add(key(x, y));
+                }
+            }
+        }
+
+        long[] hidden = new long[8];
+
+        while (!work.isEmpty()) {
+            long cell = work.poll();
+            queued.remove(cell);
+            int cellX = (int) (cell >> 32);
+            int cellY = (int) cell;
+
+            int hiddenCount = 0;
+            int knownBombs = 0;
+
+            for (int ny = cellY - 1; ny <= cellY + 1; ny++) {
+                for (int nx = cellX - 1; nx <= cellX + 1; nx++) {
+                    long neighbor = key(nx, ny);
+
+                    if (board.isRevealed(nx, ny) || result.safe.contains(neighbor)) {
+                        continue;
+                    }
+
+                    if (result.bombs.contains(neighbor)) {
+                        knownBombs++;
+                    } else {
+                        hidden[hiddenCount++] = neighbor;
+                    }
+                }
+            }
+
+            int missing = board.getNeighboringBombs(cellX, cellY) - knownBombs;
+            if (hiddenCount == 0 || (missing != 0 && missing != hiddenCount)) {
+                continue;
+            }
+
+            HashSet<Long> decided = missing == 0 ? result.safe : result.bombs;
+
+            for (int i = 0; i < hiddenCount; i++) {
+                decided.add(hidden[i]);
+
+                // the numbers around a decided cell might be decidable now
+                int hiddenX = (int) (hidden[i] >> 32);
+                int hiddenY = (int) hidden[i];
+                for (int ny = hiddenY - 1; ny <= hiddenY + 1; ny++) {
+                    for (int nx = hiddenX - 1; nx <= hiddenX + 1; nx++) {
+                        long number = key(nx, ny);
+
+                        if (nx < minX || nx > maxX || ny < minY || ny > maxY || queued.contains(number)) {
+                            continue;
+                        }
+                        if (board.isRevealed(nx, ny) && board.getNeighboringBombs(nx, ny) > 0) {
+                            work.add(number);
+                            queued.add(number);
+                        }
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private InfiniteSolver() {
+    }
+}
@@ -5,10 +5,16 @@ import javax.swing.event.ChangeListener;
 import java.awt.*;
 import java.awt.event.*;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Hashtable;
+import java.util.Locale;
+
 public class Menu extends JFrame {
 
     public int windowSize;
-    public int selectedGridSize;
+    public int selectedWidth;
+    public int selectedHeight;
     public int selectedBombAmount;
     public int selectedMaxProbability;
 
@@ -16,33 +22,117 @@ public class Menu extends JFrame {
     public boolean useProbability;
     public boolean drawProbabilities;
     public boolean drawPopulationRings;
+    public boolean noGuess;
 
     private JLabel selectDifficultyLabel;
 
-    private JSlider gridSizeSlider;
+    private JSlider widthSlider;
+    private JSlider heightSlider;
     private JSlider bombAmountSlider;
-    private JLabel gridSizeLabel;
+    private JLabel widthLabel;
+    private JLabel heightLabel;
     private JLabel bombAmountLabel;
+    private JLabel memoryLabel;
 
     private ImageIcon menuIcon;
 
+    // the size sliders go from 0 to SLIDER_STEPS and are mapped
+    // exponentially onto MIN_SIZE..MAX_SIZE, so small boards
+    // can still be picked precisely next to 10,000 x 10,000 ones
+    private static final int MIN_SIZE = 5;
+    private static final int MAX_SIZE = 10000;
+    private static final int SLIDER_STEPS = 1000;
+
+    // the Easy, Medium and Hard difficulties, which
+    // the board pool keeps boards ready for
+    private static final int[][] PRESETS = {{10, 10, 15}, {20, 20, 60}, {30, 30, 135}};
+
+    /**
+     * The function converts the position of a size slider into a board side.
+     *
+     * @param value The value of the slider, between 0 and SLIDER_STEPS.
+     * @return The method returns the side in cells.
+     */
+    private static int sizeFromSlider(int value) {
+        return (int) Math.round(MIN_SIZE * Math.pow((double) MAX_SIZE / MIN_SIZE, (double) value / SLIDER_STEPS));
+    }
+
+    /**
+     * The function converts a board side into the closest position of a size slider.
+     *
+     * @param size The side in cells.
+     * @return The method returns the value of the slider.
+     */
+    private static int sliderFromSize(int size) {
+        return (int) Math.round(SLIDER_STEPS * Math.log((double) size / MIN_SIZE) / Math.log((double) MAX_SIZE / MIN_SIZE));
+    }
+
     /**
-     * The function updates the labels for grid size and bomb amount based on the values of the
-     * corresponding sliders.
+     * The function estimates the memory a game of the given size keeps for its whole duration: one
+     * byte per cell for the neighboring bombs and three bits for the bombs, flags and revealed cells
+     * of the board, the same again for the copy of the board the solver worker owns, six bits for
+     * the sets of the solver and three bits for the hints drawn by the minefield.
+     *
+     * @param width The width of the board.
+     * @param height The height of the board.
+     * @return The method returns the estimate in bytes.
+     */
+    public static long estimateMemory(int width, int height) {
+        long cells = (long) width * height;
+
+        long board = cells + (cells * 3 + 7) / 8;
+
+        return 2 * board + (cells * 6 + 7) / 8 + (cells * 3 + 7) / 8;
+    }
+
+    /**
+     * The function formats an amount of bytes with the largest fitting unit.
+     *
+     * @param bytes The amount of bytes.
+     * @return The method returns the formatted amount, e.g. "12.3 MB".
+     */
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        }
+        if (bytes < 1024L * 1024 * 1024) {
+            return String.format("%.1f MB", bytes / (1024.0 * 1024));
+        }
+        return String.format("%.2f GB", bytes / (1024.0 * 1024 * 1024));
+    }
+
+    /**
+     * The function updates the labels for the width, height, bomb amount and memory estimate based
+     * on the values of the corresponding sliders.
      */
 
     public void updateCustomDifficulty() {
-        this.gridSizeLabel.setText("Grid size: " + this.gridSizeSlider.getValue());
-        this.selectedGridSize = gridSizeSlider.getValue();
+        // only take the size from a slider that was moved,
+        // since a preset may not be exactly reachable from it
+        if (sliderFromSize(this.selectedWidth) != this.widthSlider.getValue()) {
+            this.selectedWidth = sizeFromSlider(this.widthSlider.getValue());
+        }
+        if (sliderFromSize(this.selectedHeight) != this.heightSlider.getValue()) {
+            this.selectedHeight = sizeFromSlider(this.heightSlider.getValue());
+        }
+
+        this.widthLabel.setText("Width: " + this.selectedWidth);
+        this.heightLabel.setText("Height: " + this.selectedHeight);
 
-        this.selectedBombAmount = (int)(this.selectedGridSize * this.selectedGridSize * (double)(this.bombAmountSlider.getValue() / 100.0));
+        long cells = (long) this.selectedWidth * this.selectedHeight;
+        this.selectedBombAmount = (int)(cells * this.bombAmountSlider.getValue() / 100);
         this.bombAmountLabel.setText("Bombs / Cells: " + this.bombAmountSlider.getValue() + "% (" + this.selectedBombAmount + " total)");
+        this.memoryLabel.setText("Estimated memory: " + formatBytes(estimateMemory(this.selectedWidth, this.selectedHeight)));
 
-        if (this.selectedGridSize == 10 && this.selectedBombAmount == 15) {
+        boolean square = this.selectedWidth == this.selectedHeight;
+        if (square && this.selectedWidth == 10 && this.selectedBombAmount == 15) {
             this.selectDifficultyLabel.setText("Select Difficulty (Easy)");
-        } else if (this.selectedGridSize == 20 && this.selectedBombAmount == 60) {
+        } else if (square && this.selectedWidth == 20 && this.selectedBombAmount == 60) {
             this.selectDifficultyLabel.setText("Select Difficulty (Medium)");
-        } else if (this.selectedGridSize == 30 && this.selectedBombAmount == 135) {
+        } else if (square && this.selectedWidth == 30 && this.selectedBombAmount == 135) {
             this.selectDifficultyLabel.setText("Select Difficulty (Hard)");
         } else {
             this.selectDifficultyLabel.setText("Select Difficulty (Custom)");
@@ -50,22 +140,34 @@ public class Menu extends JFrame {
     }
 
     /**
-     * The function sets the difficulty level by updating the selected grid size and bomb amount, and
-     * adjusting the values of the gridSizeSlider and bombAmountSlider accordingly.
-     * 
-     * @param gridSize The gridSize parameter represents the size of the grid. It determines the number
-     * of rows and columns in the grid.
+     * The function sets the difficulty level by updating the selected board size and bomb amount, and
+     * adjusting the values of the size sliders and bombAmountSlider accordingly.
+     *
+     * @param width The width parameter represents the number of columns in the grid.
+     * @param height The height parameter represents the number of rows in the grid.
      * @param bombAmount The bombAmount parameter represents the number of bombs that will be placed on
      * the game grid.
      */
-    public void setDifficulty(int gridSize, int bombAmount) {
-        this.selectedGridSize = gridSize;
+    public void setDifficulty(int width, int height, int bombAmount) {
+        // the sliders fire their listeners while being set,
+        // so the exact values are only stored afterwards
+        this.widthSlider.setValue(sliderFromSize(width));
+        this.heightSlider.setValue(sliderFromSize(height));
+        this.bombAmountSlider.setValue((int)((100L * bombAmount) / ((long) width * height)));
+
+        this.selectedWidth = width;
+        this.selectedHeight = height;
         this.selectedBombAmount = bombAmount;
+    }
 
-        this.gridSizeSlider.setValue(gridSize);
-        this.bombAmountSlider.setValue((100 * bombAmount) / (gridSize * gridSize));
+    /**
+     * The function lets the board pool generate boards for the presets with the current options, so
+     * games started from this menu can begin without waiting for the generator.
+     */
+    public void updateBoardPool() {
+        BoardPool.shared().prepare(PRESETS, this.useProbability, this.selectedMaxProbability, this.noGuess);
     }
-    
+
    /**
     * This function sets up and displays a JFrame window with a specified size and title.
     */
@@ -102,7 +204,8 @@ public class Menu extends JFrame {
         this.windowSize = windowSize;
         this.setMinimumSize(new Dimension(550, 600));
         // default grid size & bomb amount (medium difficulty)
-        this.selectedGridSize = 20;
+        this.selectedWidth = 20;
+        this.selectedHeight = 20;
         this.selectedBombAmount = 60;
 
         this.selectedMaxProbability = 8;
@@ -111,6 +214,7 @@ public class Menu extends JFrame {
         this.useProbability = true;
         this.drawProbabilities = false;
         this.drawPopulationRings = false;
+        this.noGuess = false;
 
         setLayout(new GridBagLayout());
         GridBagConstraints constraints = new GridBagConstraints();
@@ -128,6 +232,13 @@ public class Menu extends JFrame {
         JButton startGameButton = new JButton("Start Game");
         startGameButton.setFocusPainted(false);
 
+        // only offered while there is an unfinished game
+        JButton continueButton = new JButton("Continue");
+        continueButton.setFocusPainted(false);
+        continueButton.setVisible(new File(Game.SAVE_FILE).isFile());
+
+        JPanel startPanel = new JPanel();
+
         JButton easyDifficultyButton = new JButton("Easy");
         easyDifficultyButton.setFocusPainted(false);
 
@@ -140,7 +251,11 @@ public class Menu extends JFrame {
         JButton customDifficultyButton = new JButton("Custom");
         customDifficultyButton.setFocusPainted(false);
 
+        JButton endlessButton = new JButton("Endless");
+        endlessButton.setFocusPainted(false);
+
         JCheckBox useProbabilityToggle = new JCheckBox("Use probability-based bomb population?", this.useProbability);
+        JCheckBox noGuessToggle = new JCheckBox("Generate boards that need no guessing?", this.noGuess);
         JCheckBox drawProbabilitiesToggle = new JCheckBox("Draw probability of cell being picked as bomb?", this.drawProbabilities);
         JCheckBox drawPopulationRingsToggle = new JCheckBox("Draw rings used while populating bombs?", this.drawPopulationRings);
 
@@ -149,19 +264,32 @@ public class Menu extends JFrame {
 
         JPanel difficultyPanel = new JPanel();
 
-        this.gridSizeSlider = new JSlider(JSlider.HORIZONTAL, 5, 35, this.selectedGridSize);
-        this.bombAmountSlider = new JSlider(JSlider.HORIZONTAL, 0, 99, (100 * this.selectedBombAmount) / (this.selectedGridSize * this.selectedGridSize));
+        this.widthSlider = new JSlider(JSlider.HORIZONTAL, 0, SLIDER_STEPS, sliderFromSize(this.selectedWidth));
+        this.heightSlider = new JSlider(JSlider.HORIZONTAL, 0, SLIDER_STEPS, sliderFromSize(this.selectedHeight));
+        this.bombAmountSlider = new JSlider(JSlider.HORIZONTAL, 0, 99, (100 * this.selectedBombAmount) / (this.selectedWidth * this.selectedHeight));
 
-        this.gridSizeLabel = new JLabel("Grid size: " + gridSizeSlider.getValue());
+        this.widthLabel = new JLabel("Width: " + this.selectedWidth);
+        this.heightLabel = new JLabel("Height: " + this.selectedHeight);
         this.bombAmountLabel = new JLabel("Bombs / Cells: " + bombAmountSlider.getValue() + "% (" + this.selectedBombAmount + " total)");
+        this.memoryLabel = new JLabel("Estimated memory: " + formatBytes(estimateMemory(this.selectedWidth, this.selectedHeight)));
+
+        // the size sliders are labelled with the actual
+        // sizes instead of the exponential slider values
+        Hashtable<Integer, JLabel> sizeLabels = new Hashtable<Integer, JLabel>();
+        for (int size : new int[] {5, 50, 500, 10000}) {
+            sizeLabels.put(sliderFromSize(size), new JLabel(String.valueOf(size)));
+        }
 
         constraints.gridx = 0;
         constraints.gridy = 0;
         add(titleLabel, constraints);
 
+        startPanel.add(startGameButton);
+        startPanel.add(continueButton);
+
         constraints.gridx = 0;
         constraints.gridy = 1;
-        add(startGameButton, constraints);
+        add(startPanel, constraints);
 
         constraints.gridx = 0;
         constraints.gridy = 2;
@@ -171,6 +299,7 @@ public class Menu extends JFrame {
         difficultyPanel.add(mediumDifficultyButton);
         difficultyPanel.add(hardDifficultyButton);
         difficultyPanel.add(customDifficultyButton);
+        difficultyPanel.add(endlessButton);
 
         constraints.gridx = 0;
         constraints.gridy = 3;
@@ -178,20 +307,30 @@ public class Menu extends JFrame {
 
         constraints.gridx = 0;
         constraints.gridy = 4;
-        gridSizeSlider.setMajorTickSpacing(10);
-        gridSizeSlider.setMinorTickSpacing(1);
-        gridSizeSlider.setPaintTicks(true);
-        gridSizeSlider.setPaintLabels(true);
-        gridSizeSlider.setVisible(false);
-        add(gridSizeSlider, constraints);
+        widthSlider.setLabelTable(sizeLabels);
+        widthSlider.setPaintLabels(true);
+        widthSlider.setVisible(false);
+        add(widthSlider, constraints);
 
         constraints.gridx = 0;
         constraints.gridy = 5;
-        gridSizeLabel.setVisible(false);
-        add(gridSizeLabel, constraints);
+        widthLabel.setVisible(false);
+        add(widthLabel, constraints);
 
         constraints.gridx = 0;
         constraints.gridy = 6;
+        heightSlider.setLabelTable(sizeLabels);
+        heightSlider.setPaintLabels(true);
+        heightSlider.setVisible(false);
+        add(heightSlider, constraints);
+
+        constraints.gridx = 0;
+        constraints.gridy = 7;
+        heightLabel.setVisible(false);
+        add(heightLabel, constraints);
+
+        constraints.gridx = 0;
+        constraints.gridy = 8;
         bombAmountSlider.setMajorTickSpacing(33);
         bombAmountSlider.setPaintTicks(true);
         bombAmountSlider.setPaintLabels(true);
@@ -199,31 +338,41 @@ public class Menu extends JFrame {
         add(bombAmountSlider, constraints);
 
         constraints.gridx = 0;
-        constraints.gridy = 7;
+        constraints.gridy = 9;
         bombAmountLabel.setVisible(false);
         add(bombAmountLabel, constraints);
 
         constraints.gridx = 0;
-        constraints.gridy = 8;
+        constraints.gridy = 10;
+        memoryLabel.setVisible(false);
+        add(memoryLabel, constraints);
+
+        constraints.gridx = 0;
+        constraints.gridy = 11;
         add(optionsButton, constraints);
 
         constraints.gridx = 0;
-        constraints.gridy = 9;
+        constraints.gridy = 12;
         useProbabilityToggle.setVisible(this.displayMoreOptions);
         add(useProbabilityToggle, constraints);
 
         constraints.gridx = 0;
-        constraints.gridy = 10;
+        constraints.gridy = 13;
+        noGuessToggle.setVisible(this.displayMoreOptions);
+        add(noGuessToggle, constraints);
+
+        constraints.gridx = 0;
+        constraints.gridy = 14;
         drawProbabilitiesToggle.setVisible(this.displayMoreOptions);
         add(drawProbabilitiesToggle, constraints);
 
         constraints.gridx = 0;
-        constraints.gridy = 11;
+        constraints.gridy = 15;
         drawPopulationRingsToggle.setVisible(this.displayMoreOptions);
         add(drawPopulationRingsToggle, constraints);
 
         constraints.gridx = 0;
-        constraints.gridy = 12;
+        constraints.gridy = 16;
         maxProbabilitySlider.setMajorTickSpacing(20);
         maxProbabilitySlider.setMinorTickSpacing(5);
         maxProbabilitySlider.setPaintTicks(true);
@@ -232,57 +381,104 @@ public class Menu extends JFrame {
         add(maxProbabilitySlider, constraints);
 
         constraints.gridx = 0;
-        constraints.gridy = 13;
+        constraints.gridy = 17;
         maxProbabilityLabel.setVisible(this.displayMoreOptions);
         add(maxProbabilityLabel, constraints);
 
-        this.setDifficulty(this.selectedGridSize, this.selectedBombAmount);
+        this.setDifficulty(this.selectedWidth, this.selectedHeight, this.selectedBombAmount);
+        this.updateBoardPool();
 
         Menu self = this;
         startGameButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
                     // Start game and stop menu
-                    Game game = new Game(self.selectedGridSize, self.selectedBombAmount, self.selectedMaxProbability,
-                                         self.useProbability, self.drawProbabilities, self.drawPopulationRings);
+                    Game game = new Game(self.selectedWidth, self.selectedHeight, self.selectedBombAmount, self.selectedMaxProbability,
+                                         self.useProbability, self.drawProbabilities, self.drawPopulationRings,
+                                         self.noGuess);
                                          
                     game.run();
                     self.stop();
                 }
         });
+        continueButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                SaveGame save;
+
+                try {
+                    long start = System.nanoTime();
+                    save = SaveGame.read(new File(Game.SAVE_FILE));
+
+                    System.out.printf(Locale.ROOT, "Loaded game from %s in %.1fms%n", Game.SAVE_FILE, (System.nanoTime() - start) / 1e6);
+                } catch (IOException exception) {
+                    System.out.println("Could not load game: " + exception.getMessage());
+                    continueButton.setVisible(false);
+                    return;
+                }
+
+                Game game = new Game(save);
+
+                game.run();
+                self.stop();
+            }
+        });
 
         // difficulty inputs event listeners
         easyDifficultyButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                self.setDifficulty(10, 15);
+                self.setDifficulty(PRESETS[0][0], PRESETS[0][1], PRESETS[0][2]);
                 self.updateCustomDifficulty();
             }
         });
         mediumDifficultyButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                self.setDifficulty(20, 60);
+                self.setDifficulty(PRESETS[1][0], PRESETS[1][1], PRESETS[1][2]);
                 self.updateCustomDifficulty();
             }
         });
         hardDifficultyButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                self.setDifficulty(30, 135);
+                self.setDifficulty(PRESETS[2][0], PRESETS[2][1], PRESETS[2][2]);
                 self.updateCustomDifficulty();
             }
         });
+        endlessButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                // the endless board uses the bomb percentage of
+                // the sliders, kept in the range it supports
+                int density = Math.max(InfiniteBoard.MIN_DENSITY,
+                                       Math.min(InfiniteBoard.MAX_DENSITY, self.bombAmountSlider.getValue()));
+
+                InfiniteGame game = new InfiniteGame(new java.util.Random().nextLong(), density);
+
+                game.run();
+                self.stop();
+            }
+        });
         customDifficultyButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                    gridSizeSlider.setVisible(!gridSizeSlider.isVisible());
-                    gridSizeLabel.setVisible(!gridSizeLabel.isVisible());
+                    widthSlider.setVisible(!widthSlider.isVisible());
+                    widthLabel.setVisible(!widthLabel.isVisible());
+                    heightSlider.setVisible(!heightSlider.isVisible());
+                    heightLabel.setVisible(!heightLabel.isVisible());
                     bombAmountSlider.setVisible(!bombAmountSlider.isVisible());
                     bombAmountLabel.setVisible(!bombAmountLabel.isVisible());
+                    memoryLabel.setVisible(!memoryLabel.isVisible());
                 }
         });
-        gridSizeSlider.addChangeListener(new ChangeListener() {
+        widthSlider.addChangeListener(new ChangeListener() {
+            @Override
+            public void stateChanged(ChangeEvent e){
+                self.updateCustomDifficulty();
+            }
+        });
+        heightSlider.addChangeListener(new ChangeListener() {
             @Override
             public void stateChanged(ChangeEvent e){
                 self.updateCustomDifficulty();
@@ -300,6 +496,7 @@ public class Menu extends JFrame {
             public void actionPerformed(ActionEvent e) {
                     self.displayMoreOptions = !self.displayMoreOptions;
                     useProbabilityToggle.setVisible(self.displayMoreOptions);
+                    noGuessToggle.setVisible(self.displayMoreOptions);
 
                     boolean displayCustomMoreOptions = self.displayMoreOptions && self.useProbability;
                     drawProbabilitiesToggle.setVisible(displayCustomMoreOptions);
@@ -314,6 +511,7 @@ public class Menu extends JFrame {
                 boolean selected = (e.getStateChange() == 1);
 
                 self.useProbability = selected;
+                self.updateBoardPool();
                 drawProbabilitiesToggle.setVisible(selected);
                 drawPopulationRingsToggle.setVisible(selected);
                 maxProbabilitySlider.setVisible(selected);
@@ -328,6 +526,13 @@ public class Menu extends JFrame {
                 }
             }
         });
+        noGuessToggle.addItemListener(new ItemListener() {
+            @Override
+            public void itemStateChanged(ItemEvent e) {
+                self.noGuess = (e.getStateChange() == 1);
+                self.updateBoardPool();
+            }
+        });
         drawProbabilitiesToggle.addItemListener(new ItemListener() {
             @Override
             public void itemStateChanged(ItemEvent e) {
@@ -365,6 +570,12 @@ public class Menu extends JFrame {
                 }
 
                 maxProbabilityLabel.setText("Max. probability: " + self.selectedMaxProbability + "%");
+
+                // only once the slider is released, the pool
+                // would start over at every step otherwise
+                if (!maxProbabilitySlider.getValueIsAdjusting()) {
+                    self.updateBoardPool();
+                }
             }
         });
     }
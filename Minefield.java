@@ -0,0 +1,608 @@
+import javax.swing.*;
+
+import java.awt.*;
+import java.awt.event.*;
+
+import java.util.*;
+
+/**
+ * The Minefield class is a single Swing component that draws the whole board with Graphics2D.
+ * It reads the state of every cell from the Board and is meant to be placed in a JScrollPane:
+ * only the cells inside the visible rectangle are painted. The hints of the solver are kept in
+ * one bit per cell and the probabilities only for the frontier cells, while the debug overlays and
+ * the wrongly placed flags are worked out for the visible cells while painting. Mouse coordinates
+ * are mapped to cells by one listener, changes only repaint the rectangles of the cells that
+ * changed, and Ctrl + mouse wheel zooms in and out.
+ */
+public class Minefield extends JComponent {
+    private static final long serialVersionUID = 1L;
+
+    // the hint painted on an unrevealed cell
+    public static final byte MARK_NONE = 0;
+    public static final byte MARK_SAFE = 1;
+    public static final byte MARK_BOMB = 2;
+    public static final byte MARK_UNKNOWN = 3;
+    public static final byte MARK_PROBABILITY = 4;
+    public static final byte MARK_WRONG_FLAG = 5;
+
+    // the debug overlay painted on the unrevealed cells that have no mark
+    public static final int OVERLAY_NONE = 0;
+    public static final int OVERLAY_PROBABILITIES = 1;
+    public static final int OVERLAY_RINGS = 2;
+
+    public static final int MIN_CELL_SIZE = 4;
+    public static final int MAX_CELL_SIZE = 64;
+
+    private static final Color UNREVEALED_COLOR = new Color(180, 180, 180);
+
+    private final Board board;
+    private final Game game;
+
+    private int cellSize;
+    // the font of the labels, which depends on the cell size
+    private Font font;
+
+    // one bit per cell for each of the hints of the solver,
+    // a cell has at most one of them
+    private final BitSet safeMarks;
+    private final BitSet bombMarks;
+    private final BitSet unknownMarks;
+
+    // the frontier cells with a probability in ascending
+    // order and their probabilities as percentages
+    private int[] probabilityCells;
+    private byte[] probabilities;
+    // probability drawn on the unmarked cells that don't touch the frontier, -1 if none
+    private int interiorProbability;
+
+    private int overlay;
+    private boolean bombsShown;
+    private int explodedCell;
+    private int pressedCell;
+
+    /**
+     * The function returns the size of a cell in pixels at the current zoom.
+     *
+     * @return The method returns the cell size.
+     */
+    public int getCellSize() {
+        return this.cellSize;
+    }
+
+    /**
+     * The function changes the zoom, keeping the given point of the board under the mouse if the
+     * minefield is inside a scroll pane.
+     *
+     * @param cellSize The new size of a cell in pixels.
+     * @param anchor The point in component coordinates that should stay in place, or null.
+     */
+    public void setCellSize(int cellSize, Point anchor) {
+        cellSize = Math.max(MIN_CELL_SIZE, Math.min(MAX_CELL_SIZE, cellSize));
+        if (cellSize == this.cellSize) {
+            return;
+        }
+
+        JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, this);
+        Point viewPosition = viewport != null ? viewport.getViewPosition() : new Point();
+        if (anchor == null) {
+            anchor = new Point(viewPosition.x, viewPosition.y);
+        }
+
+        double scale = (double) cellSize / this.cellSize;
+        this.cellSize = cellSize;
+        this.font = labelFont(cellSize);
+        revalidate();
+
+        if (viewport != null) {
+            viewport.validate();
+
+            int x = (int)(anchor.x * scale) - (anchor.x - viewPosition.x);
+            int y = (int)(anchor.y * scale) - (anchor.y - viewPosition.y);
+            Dimension extent = viewport.getExtentSize();
+            Dimension size = getPreferredSize();
+
+            x = Math.max(0, Math.min(x, size.width - extent.width));
+            y = Math.max(0, Math.min(y, size.height - extent.height));
+            viewport.setViewPosition(new Point(x, y));
+        }
+
+        repaint();
+    }
+
+    /**
+     * The function creates the font of the labels for a cell size.
+     *
+     * @param cellSize The size of a cell in pixels.
+     * @return The method returns the bold font, between 8 and 12 points.
+     */
+    private static Font labelFont(int cellSize) {
+        return new Font("Dialog", Font.BOLD, Math.max(8, Math.min(12, cellSize / 3)));
+    }
+
+    /**
+     * The function returns the size of the whole board in pixels at the current zoom.
+     *
+     * @return The method returns the preferred size.
+     */
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(this.board.width * this.cellSize, this.board.height * this.cellSize);
+    }
+
+    /**
+     * The function maps a point of the component to the cell under it.
+     *
+     * @param point The point in component coordinates.
+     * @return The method returns the board index of the cell, or -1 if the point is outside the board.
+     */
+    public int cellAt(Point point) {
+        int col = point.x / this.cellSize;
+        int row = point.y / this.cellSize;
+
+        if (point.x < 0 || point.y < 0 || !this.board.inBounds(row, col)) {
+            return -1;
+        }
+
+        return this.board.index(row, col);
+    }
+
+    /**
+     * The function gives cells a hint of the solver and repaints them in a single paint, which
+     * Swing clips to the visible part of the board.
+     *
+     * @param indices The board indices of the cells.
+     * @param mark MARK_NONE, MARK_SAFE, MARK_BOMB or MARK_UNKNOWN.
+     */
+    public void mark(int[] indices, byte mark) {
+        if (indices.length == 0) {
+            return;
+        }
+
+        for (int index : indices) {
+            this.safeMarks.clear(index);
+            this.bombMarks.clear(index);
+            this.unknownMarks.clear(index);
+
+            if (mark == MARK_SAFE) {
+                this.safeMarks.set(index);
+            } else if (mark == MARK_BOMB) {
+                this.bombMarks.set(index);
+            } else if (mark == MARK_UNKNOWN) {
+                this.unknownMarks.set(index);
+            }
+        }
+
+        this.repaintCells(indices);
+    }
+
+    /**
+     * The function draws the exact probabilities of the frontier cells, replacing the ones drawn
+     * before.
+     *
+     * @param cells The board indices of the frontier cells.
+     * @param percentages The probability of every cell as a percentage.
+     */
+    public void setProbabilities(int[] cells, int[] percentages) {
+        int[] previous = this.probabilityCells;
+
+        // sorted, so a cell is found with a binary search while painting
+        long[] sorted = new long[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            sorted[i] = ((long) cells[i] << 8) | percentages[i];
+        }
+        Arrays.sort(sorted);
+
+        this.probabilityCells = new int[cells.length];
+        this.probabilities = new byte[cells.length];
+        for (int i = 0; i < sorted.length; i++) {
+            this.probabilityCells[i] = (int) (sorted[i] >> 8);
+            this.probabilities[i] = (byte) sorted[i];
+        }
+
+        this.repaintCells(previous);
+        this.repaintCells(this.probabilityCells);
+    }
+
+    /**
+     * The function sets the probability drawn on the unrevealed cells that have no mark.
+     *
+     * @param percentage The probability as a percentage, or -1 to draw nothing.
+     */
+    public void setInteriorProbability(int percentage) {
+        this.interiorProbability = percentage;
+        repaint();
+    }
+
+    /**
+     * The function removes the marks of all the cells and the interior probability.
+     */
+    public void clearMarks() {
+        this.safeMarks.clear();
+        this.bombMarks.clear();
+        this.unknownMarks.clear();
+        this.probabilityCells = new int[0];
+        this.probabilities = new byte[0];
+        this.interiorProbability = -1;
+
+        repaint();
+    }
+
+    /**
+     * The function selects the debug overlay drawn on the unrevealed cells without a mark.
+     *
+     * @param overlay One of the OVERLAY_ constants.
+     */
+    public void setOverlay(int overlay) {
+        this.overlay = overlay;
+        repaint();
+    }
+
+    /**
+     * The function draws every bomb that isn't flagged after the game is lost, with an explosion on
+     * the bomb that was clicked, and highlights the flags that aren't on a bomb.
+     *
+     * @param explodedCell The board index of the clicked bomb.
+     */
+    public void showBombs(int explodedCell) {
+        this.bombsShown = true;
+        this.explodedCell = explodedCell;
+
+        repaint();
+    }
+
+    /**
+     * The function repaints the rectangle of a single cell.
+     *
+     * @param index The board index of the cell.
+     */
+    public void repaintCell(int index) {
+        repaint(this.board.col(index) * this.cellSize, this.board.row(index) * this.cellSize, this.cellSize, this.cellSize);
+    }
+
+    /**
+     * The function repaints the smallest rectangle containing all the given cells, so a whole
+     * cascade is drawn in a single paint. Swing clips it to the visible part of the board.
+     *
+     * @param indices The board indices of the cells.
+     */
+    public void repaintCells(int[] indices) {
+        if (indices.length == 0) {
+            return;
+        }
+
+        int minRow = Integer.MAX_VALUE;
+        int minCol = Integer.MAX_VALUE;
+        int maxRow = -1;
+        int maxCol = -1;
+
+        for (int index : indices) {
+            int row = this.board.row(index);
+            int col = this.board.col(index);
+
+            minRow = Math.min(minRow, row);
+            minCol = Math.min(minCol, col);
+            maxRow = Math.max(maxRow, row);
+            maxCol = Math.max(maxCol, col);
+        }
+
+        repaint(minCol * this.cellSize, minRow * this.cellSize,
+                (maxCol - minCol + 1) * this.cellSize, (maxRow - minRow + 1) * this.cellSize);
+    }
+
+    /**
+     * The function works out the mark of an unrevealed cell, falling back to the interior
+     * probability and the debug overlay for the cells without an explicit mark.
+     *
+     * @param index The board index of the cell.
+     * @return The method returns mark << 16 | value, or 0 for no mark.
+     */
+    private int markOf(int index) {
+        if (this.bombsShown && this.board.isFlagged(index) && !this.board.isBomb(index)) {
+            return MARK_WRONG_FLAG << 16;
+        }
+
+        int probability = Arrays.binarySearch(this.probabilityCells, index);
+        if (probability >= 0) {
+            return (MARK_PROBABILITY << 16) | this.probabilities[probability];
+        }
+
+        if (this.safeMarks.get(index)) {
+            return MARK_SAFE << 16;
+        }
+        if (this.bombMarks.get(index)) {
+            return MARK_BOMB << 16;
+        }
+        if (this.unknownMarks.get(index)) {
+            return MARK_UNKNOWN << 16;
+        }
+
+        if (this.interiorProbability >= 0 && !this.board.isFlagged(index)) {
+            return (MARK_PROBABILITY << 16) | this.interiorProbability;
+        }
+
+        return 0;
+    }
+
+    /**
+     * The function draws a label centered in a cell.
+     *
+     * @param graphics The graphics to draw with.
+     * @param label The text to draw.
+     * @param color The color of the text.
+     * @param x The left edge of the cell.
+     * @param y The top edge of the cell.
+     */
+    private void drawLabel(Graphics2D graphics, String label, Color color, int x, int y) {
+        if (this.cellSize < 12) {
+            return;
+        }
+
+        FontMetrics metrics = graphics.getFontMetrics();
+        graphics.setColor(color);
+        graphics.drawString(label, x + (this.cellSize - metrics.stringWidth(label)) / 2,
+                            y + (this.cellSize - metrics.getHeight()) / 2 + metrics.getAscent());
+    }
+
+    /**
+     * The function draws the background and label of an unrevealed cell from its mark, or from the
+     * debug overlay if it has none.
+     *
+     * @param graphics The graphics to draw with.
+     * @param index The board index of the cell.
+     * @param x The left edge of the cell.
+     * @param y The top edge of the cell.
+     * @param chances The chances of the probability overlay by distance, looked up once per paint.
+     */
+    private void paintUnrevealedBackground(Graphics2D graphics, int index, int x, int y, double[] chances) {
+        int mark = this.markOf(index);
+        int value = mark & 0xFFFF;
+        Color color = UNREVEALED_COLOR;
+        String label = null;
+        Color labelColor = Color.BLACK;
+
+        switch (mark >> 16) {
+            case MARK_SAFE:
+                color = Color.GREEN;
+                break;
+            case MARK_BOMB:
+                color = Color.RED;
+                break;
+            case MARK_UNKNOWN:
+                color = Color.YELLOW;
+                break;
+            case MARK_PROBABILITY:
+                color = Color.YELLOW;
+                label = value + "%";
+                break;
+            case MARK_WRONG_FLAG:
+                color = Color.MAGENTA;
+                break;
+            default:
+                if (this.overlay == OVERLAY_NONE || this.game.firstCell < 0) {
+                    break;
+                }
+
+                int row = this.board.row(index);
+                int col = this.board.col(index);
+                int firstRow = this.board.row(this.game.firstCell);
+                int firstCol = this.board.col(this.game.firstCell);
+
+                if (this.overlay == OVERLAY_PROBABILITIES) {
+                    double probability = ProbabilityField.probability(chances, row, col, firstRow, firstCol);
+                    double intensity = probability * 255;
+
+                    color = new Color(0, 0, Math.max(0, Math.min(255, (int) intensity)));
+                    label = (int)(probability * 100) + "%";
+                    labelColor = Color.YELLOW;
+                } else {
+                    // the rings used while populating are the cells
+                    // at the same row or column distance from the first cell
+                    int d = Math.max(Math.abs(row - firstRow), Math.abs(col - firstCol));
+
+                    color = d % 2 == 0 ? Color.WHITE : Color.BLACK;
+                    label = String.valueOf(d);
+                    labelColor = d % 2 == 0 ? Color.BLACK : Color.WHITE;
+                }
+        }
+
+        graphics.setColor(color);
+        graphics.fillRect(x, y, this.cellSize, this.cellSize);
+
+        if (label != null) {
+            this.drawLabel(graphics, label, labelColor, x, y);
+        }
+    }
+
+    /**
+     * The function draws one cell at the given position.
+     *
+     * @param graphics The graphics to draw with.
+     * @param index The board index of the cell.
+     * @param x The left edge of the cell.
+     * @param y The top edge of the cell.
+     * @param chances The chances of the probability overlay by distance, or null.
+     */
+    private void paintCell(Graphics2D graphics, int index, int x, int y, double[] chances) {
+        int size = this.cellSize;
+        // icons take up 4/7 of the cell, which is
+        // 20px for the default 35px cells
+        int iconSize = Math.max(2, size * 4 / 7);
+        String sprite = null;
+
+        if (this.board.isRevealed(index)) {
+            graphics.setColor(Color.LIGHT_GRAY);
+            graphics.fillRect(x, y, size, size);
+            graphics.setColor(Color.GRAY);
+            graphics.drawRect(x, y, size - 1, size - 1);
+
+            int neighboringBombs = this.board.getNeighboringBombs(index);
+            if (neighboringBombs > 0 && !this.board.isBomb(index)) {
+                sprite = String.valueOf(neighboringBombs);
+            }
+        }
+        else {
+            boolean pressed = index == this.pressedCell;
+
+            this.paintUnrevealedBackground(graphics, index, x, y, chances);
+
+            graphics.setColor(pressed ? Color.GRAY : Color.WHITE);
+            graphics.drawLine(x, y, x + size - 1, y);
+            graphics.drawLine(x, y, x, y + size - 1);
+            graphics.setColor(pressed ? Color.WHITE : Color.GRAY);
+            graphics.drawLine(x, y + size - 1, x + size - 1, y + size - 1);
+            graphics.drawLine(x + size - 1, y, x + size - 1, y + size - 1);
+
+            if (this.board.isFlagged(index)) {
+                sprite = "flag";
+            }
+            else if (this.bombsShown && index == this.explodedCell) {
+                sprite = "explosion";
+                iconSize = iconSize * 3 / 2;
+            }
+            else if (this.bombsShown && this.board.isBomb(index)) {
+                sprite = "bomb";
+            }
+        }
+
+        if (sprite != null) {
+            graphics.drawImage(Sprites.image(sprite, iconSize), x + (size - iconSize) / 2, y + (size - iconSize) / 2, null);
+        }
+    }
+
+    /**
+     * The function draws the cells inside the clip of the graphics, which is at most the visible
+     * part of the board and only the dirty rectangle when a few cells changed.
+     *
+     * @param g The graphics to draw with.
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D graphics = (Graphics2D) g;
+
+        graphics.setFont(this.font);
+
+        Rectangle clip = graphics.getClipBounds();
+        if (clip == null) {
+            clip = getVisibleRect();
+        }
+
+        int firstCol = Math.max(0, clip.x / this.cellSize);
+        int firstRow = Math.max(0, clip.y / this.cellSize);
+        int lastCol = Math.min(this.board.width - 1, (clip.x + clip.width) / this.cellSize);
+        int lastRow = Math.min(this.board.height - 1, (clip.y + clip.height) / this.cellSize);
+
+        // the same table serves every cell of the paint
+        double[] chances = null;
+        if (this.overlay == OVERLAY_PROBABILITIES && this.game.firstCell >= 0) {
+            chances = ProbabilityField.chanceByDistance(this.board.width, this.board.height, this.board.bombAmount,
+                                                        this.game.maxProbability, this.board.row(this.game.firstCell),
+                                                        this.board.col(this.game.firstCell));
+        }
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                this.paintCell(graphics, this.board.index(row, col), col * this.cellSize, row * this.cellSize, chances);
+            }
+        }
+    }
+
+    // The `Minefield(Board board, Game game, int cellSize)` constructor creates the component for a
+    // board and installs the single mouse listener that forwards clicks on cells to the game.
+    Minefield(Board board, Game game, int cellSize) {
+        this.board = board;
+        this.game = game;
+        this.cellSize = cellSize;
+        this.font = labelFont(cellSize);
+
+        this.safeMarks = new BitSet();
+        this.bombMarks = new BitSet();
+        this.unknownMarks = new BitSet();
+        this.probabilityCells = new int[0];
+        this.probabilities = new byte[0];
+        this.interiorProbability = -1;
+
+        this.overlay = OVERLAY_NONE;
+        this.bombsShown = false;
+        this.explodedCell = -1;
+        this.pressedCell = -1;
+
+        setOpaque(true);
+
+        Minefield self = this;
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent me) {
+                int cell = self.cellAt(me.getPoint());
+
+                if (cell < 0) {
+                    return;
+                }
+
+                Profiling.Click event = new Profiling.Click();
+                event.begin();
+
+                if (SwingUtilities.isRightMouseButton(me)) {
+                    self.game.handleRightClick(cell);
+                }
+                if (SwingUtilities.isLeftMouseButton(me)) {
+                    self.game.handleLeftClick(cell);
+                }
+
+                event.end();
+                if (event.shouldCommit()) {
+                    event.cell = cell;
+                    event.button = SwingUtilities.isLeftMouseButton(me) ? "left" : "right";
+                    event.commit();
+                }
+            }
+
+            @Override
+            public void mousePressed(MouseEvent me) {
+                int cell = self.cellAt(me.getPoint());
+
+                if (cell < 0 || !SwingUtilities.isLeftMouseButton(me)) {
+                    return;
+                }
+
+                self.game.handlePress(cell);
+
+                if (!self.game.gameOver && !self.board.isRevealed(cell)) {
+                    self.pressedCell = cell;
+                    self.repaintCell(cell);
+                }
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent me) {
+                if (!SwingUtilities.isLeftMouseButton(me)) {
+                    return;
+                }
+
+                self.game.handleRelease();
+
+                if (self.pressedCell >= 0) {
+                    self.repaintCell(self.pressedCell);
+                    self.pressedCell = -1;
+                }
+            }
+        });
+
+        addMouseWheelListener(new MouseWheelListener() {
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                if (!e.isControlDown()) {
+                    // a wheel listener keeps the events from reaching
+                    // the scroll pane, so pass plain scrolling on to it
+                    Container parent = SwingUtilities.getAncestorOfClass(JScrollPane.class, self);
+                    if (parent != null) {
+                        parent.dispatchEvent(SwingUtilities.convertMouseEvent(self, e, parent));
+                    }
+                    return;
+                }
+
+                int step = Math.max(1, self.cellSize / 8);
+                self.setCellSize(self.cellSize - e.getWheelRotation() * step, e.getPoint());
+            }
+        });
+    }
+}
@@ -0,0 +1,177 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * The NoGuessGenerator class finds boards that the Solver can clear from the first clicked cell
+ * without ever needing a guess. Candidate boards are generated from consecutive seeds and played
+ * by the solver, and the first one that is won is accepted. Since most candidates fail on hard
+ * settings, the candidates are tried on all cores at once, and as soon as one passes the other
+ * workers stop, even in the middle of solving their own candidate.
+ *
+ * Only the seed of the accepted board is returned, and the bombs are placed on the board of the
+ * game by running the same population again with that seed.
+ */
+public class NoGuessGenerator {
+
+    /**
+     * The Result class holds the seed of the accepted board and how long it took to find it.
+     */
+    public static class Result {
+        public final long seed;
+        public final long attempts;
+        public final long nanos;
+
+        /**
+         * The function returns how many candidate boards were tried per second.
+         *
+         * @return The method returns the attempts per second.
+         */
+        public double attemptsPerSecond() {
+            return this.attempts / Math.max(1e-9, this.nanos / 1e9);
+        }
+
+        Result(long seed, long attempts, long nanos) {
+            this.seed = seed;
+            this.attempts = attempts;
+            this.nanos = nanos;
+        }
+    }
+
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+    // daemon threads, so an abandoned search never keeps the program running
+    private static final ExecutorService pool = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "no-guess-generator");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    /**
+     * The function places the bombs of a candidate board. The random population keeps the cells
+     * around the first click free, so the first click always opens an area for the solver to start
+     * from. The counts of the board still have to be computed afterwards.
+     *
+     * @param board The board to populate, which must not contain bombs yet.
+     * @param firstCell The board index of the first clicked cell.
+     * @param useProbability Whether the bombs are placed with the probability population.
+     * @param maxProbability The maximum probability of the probability population.
+     * @param seed The seed of the candidate.
+     */
+    public static void populate(Board board, int firstCell, boolean useProbability, int maxProbability, long seed) {
+        Random random = new Random(seed);
+
+        if (useProbability) {
+            BoardGenerator.populateProbability(board, firstCell, maxProbability, random);
+        } else {
+            BoardGenerator.populateRandom(board, firstCell, true, random);
+        }
+    }
+
+    /**
+     * The function plays a populated board from the first cell, only ever revealing the cells the
+     * solver found safe.
+     *
+     * @param board The populated board.
+     * @param firstCell The board index of the first clicked cell.
+     * @param stop A flag that abandons the game when set by another worker.
+     * @return The method returns true if the whole board was cleared without a guess.
+     */
+    public static boolean isSolvableWithoutGuessing(Board board, int firstCell, AtomicBoolean stop) {
+        Solver solver = new Solver(board);
+
+        for (int index : board.revealFrom(firstCell)) {
+            solver.reveal(index);
+        }
+
+        while (!board.isWon()) {
+            if (stop.get()) {
+                return false;
+            }
+
+            SolverResult result = solver.solveSituation();
+            if (result.stalled) {
+                return false;
+            }
+
+            for (int safe : result.safe()) {
+                if (board.isRevealed(safe)) {
+                    continue;
+                }
+
+                for (int index : board.revealFrom(safe)) {
+                    solver.reveal(index);
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * The function searches for a board that can be cleared without guessing, trying candidates on
+     * all cores until one passes or the time runs out.
+     *
+     * @param width The width of the board.
+     * @param height The height of the board.
+     * @param bombAmount The amount of bombs.
+     * @param firstCell The board index of the first clicked cell.
+     * @param useProbability Whether the bombs are placed with the probability population.
+     * @param maxProbability The maximum probability of the probability population.
+     * @param firstSeed The seed of the first candidate, the following candidates use the next seeds.
+     * @param timeoutMillis How long to search before giving up.
+     * @return The method returns the accepted board, or null if none was found in time.
+     */
+    public static Result generate(int width, int height, int bombAmount, int firstCell, boolean useProbability,
+                                  int maxProbability, long firstSeed, long timeoutMillis) throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + timeoutMillis * 1_000_000;
+
+        AtomicLong nextSeed = new AtomicLong(firstSeed);
+        AtomicLong attempts = new AtomicLong();
+        AtomicBoolean found = new AtomicBoolean(false);
+        AtomicReference<Long> acceptedSeed = new AtomicReference<Long>();
+
+        Runnable worker = () -> {
+            while (!found.get() && System.nanoTime() < deadline) {
+                long seed = nextSeed.getAndIncrement();
+                attempts.incrementAndGet();
+
+                Board board = new Board(width, height, bombAmount);
+                populate(board, firstCell, useProbability, maxProbability, seed);
+                board.computeNeighboringBombs();
+
+                if (isSolvableWithoutGuessing(board, firstCell, found) && found.compareAndSet(false, true)) {
+                    acceptedSeed.set(seed);
+                }
+            }
+        };
+
+        ArrayList<Future<?>> workers = new ArrayList<Future<?>>();
+        for (int i = 0; i < THREADS; i++) {
+            workers.add(pool.submit(worker));
+        }
+
+        try {
+            for (Future<?> future : workers) {
+                future.get();
+            }
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("No-guess generation failed", e.getCause());
+        }
+        finally {
+            // stops the remaining workers if this thread was interrupted
+            found.set(true);
+        }
+
+        if (acceptedSeed.get() == null) {
+            return null;
+        }
+
+        return new Result(acceptedSeed.get(), attempts.get(), System.nanoTime() - start);
+    }
+}
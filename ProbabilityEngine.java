@@ -0,0 +1,420 @@
+import java.util.*;
+
+/**
+ * The ProbabilityEngine class computes the exact probability of every unrevealed cell being a bomb,
+ * given what the solver already knows about the board. The frontier is split into independent
+ * components whose solutions are enumerated separately, and the components are then combined
+ * with the cells that don't touch any revealed number using the amount of bombs left on the board.
+ */
+public class ProbabilityEngine {
+    // upper bound for the backtracking steps of a single computation,
+    // so that a pathological frontier can't freeze the game
+    private static final long MAX_STEPS = 5_000_000;
+
+    // log(n!) for n = 0, 1, 2, ... shared by all engines and grown when needed
+    private static double[] logFactorials = {0.0};
+
+    private final Board board;
+    private final Solver solver;
+
+    // the frontier constraints: possible cells (as variable ids) and bombs left among them
+    private int[][] constraintVariables;
+    private int[] constraintBombs;
+    // constraints that each variable appears in
+    private int[][] variableConstraints;
+    private int[] variableCells;
+
+    // state of the component currently being enumerated
+    private int[] assignment;
+    private int[] placedBombs;
+    private int[] unassigned;
+    private int[] componentVariables;
+    private double[] solutionCounts;
+    private double[][] variableBombCounts;
+    private int bombsInSolution;
+    private long steps;
+
+    /**
+     * The function returns log(n choose k), using a cache of log factorials.
+     *
+     * @param n The size of the set.
+     * @param k The size of the subsets.
+     * @return The method returns the natural logarithm of the binomial coefficient.
+     */
+    static synchronized double logBinomial(int n, int k) {
+        if (n >= logFactorials.length) {
+            int oldLength = logFactorials.length;
+            logFactorials = Arrays.copyOf(logFactorials, Math.max(n + 1, oldLength * 2));
+
+            for (int i = oldLength; i < logFactorials.length; i++) {
+                logFactorials[i] = logFactorials[i - 1] + Math.log(i);
+            }
+        }
+
+        return logFactorials[n] - logFactorials[k] - logFactorials[n - k];
+    }
+
+    /**
+     * The function builds the constraints from the revealed cells of the frontier. Each constraint
+     * is made of the possible cells (unrevealed and neither found bomb nor found safe) around a
+     * revealed cell and the amount of its bombs that haven't been found yet.
+     */
+    private void buildConstraints() {
+        HashMap<Integer, Integer> variableIds = new HashMap<Integer, Integer>();
+        ArrayList<Integer> cells = new ArrayList<Integer>();
+        ArrayList<int[]> constraints = new ArrayList<int[]>();
+        ArrayList<Integer> bombs = new ArrayList<Integer>();
+
+        int[] neighbors = new int[8];
+        int[] possible = new int[8];
+
+        for (int cell = this.solver.frontier.next(0); cell >= 0; cell = this.solver.frontier.next(cell + 1)) {
+            int remainingBombs = this.board.getNeighboringBombs(cell);
+            int possibleCount = 0;
+
+            int neighborCount = this.board.neighbors(cell, neighbors);
+            for (int n = 0; n < neighborCount; n++) {
+                int neighbor = neighbors[n];
+
+                if (this.board.isRevealed(neighbor) || this.solver.foundSafe.contains(neighbor)) {
+                    continue;
+                }
+
+                if (this.solver.foundBombs.contains(neighbor)) {
+                    remainingBombs--;
+                    continue;
+                }
+
+                Integer id = variableIds.get(neighbor);
+                if (id == null) {
+                    id = cells.size();
+                    variableIds.put(neighbor, id);
+                    cells.add(neighbor);
+                }
+
+                possible[possibleCount++] = id;
+            }
+
+            if (possibleCount == 0) {
+                continue;
+            }
+
+            constraints.add(Arrays.copyOf(possible, possibleCount));
+            bombs.add(remainingBombs);
+        }
+
+        this.constraintVariables = constraints.toArray(new int[0][]);
+        this.constraintBombs = new int[bombs.size()];
+        for (int c = 0; c < bombs.size(); c++) {
+            this.constraintBombs[c] = bombs.get(c);
+        }
+
+        this.variableCells = new int[cells.size()];
+        int[] constraintCounts = new int[cells.size()];
+        for (int v = 0; v < cells.size(); v++) {
+            this.variableCells[v] = cells.get(v);
+        }
+        for (int[] variables : this.constraintVariables) {
+            for (int v : variables) {
+                constraintCounts[v]++;
+            }
+        }
+
+        this.variableConstraints = new int[cells.size()][];
+        for (int v = 0; v < cells.size(); v++) {
+            this.variableConstraints[v] = new int[constraintCounts[v]];
+            constraintCounts[v] = 0;
+        }
+        for (int c = 0; c < this.constraintVariables.length; c++) {
+            for (int v : this.constraintVariables[c]) {
+                this.variableConstraints[v][constraintCounts[v]++] = c;
+            }
+        }
+    }
+
+    /**
+     * The function splits the variables into components of variables that are linked through shared
+     * constraints. The variables of each component are listed in breadth-first order, so that
+     * neighboring cells are assigned one after the other and the backtracking prunes early.
+     *
+     * @return The method returns the variables of each component.
+     */
+    private ArrayList<int[]> findComponents() {
+        ArrayList<int[]> components = new ArrayList<int[]>();
+        boolean[] visited = new boolean[this.variableCells.length];
+        boolean[] constraintVisited = new boolean[this.constraintVariables.length];
+        int[] queue = new int[this.variableCells.length];
+
+        for (int start = 0; start < this.variableCells.length; start++) {
+            if (visited[start]) {
+                continue;
+            }
+
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = start;
+            visited[start] = true;
+
+            while (head < tail) {
+                int variable = queue[head++];
+
+                for (int c : this.variableConstraints[variable]) {
+                    if (constraintVisited[c]) {
+                        continue;
+                    }
+                    constraintVisited[c] = true;
+
+                    for (int other : this.constraintVariables[c]) {
+                        if (!visited[other]) {
+                            visited[other] = true;
+                            queue[tail++] = other;
+                        }
+                    }
+                }
+            }
+
+            components.add(Arrays.copyOf(queue, tail));
+        }
+
+        return components;
+    }
+
+    /**
+     * The function assigns a value to a variable and checks that no constraint of the variable is
+     * broken by it.
+     *
+     * @param variable The variable id.
+     * @param value 1 if the variable is a bomb, 0 if it is safe.
+     * @return The method returns true if all the constraints can still be satisfied.
+     */
+    private boolean assign(int variable, int value) {
+        boolean consistent = true;
+
+        this.assignment[variable] = value;
+        for (int c : this.variableConstraints[variable]) {
+            this.placedBombs[c] += value;
+            this.unassigned[c]--;
+
+            int needed = this.constraintBombs[c];
+            if (this.placedBombs[c] > needed || this.placedBombs[c] + this.unassigned[c] < needed) {
+                consistent = false;
+            }
+        }
+
+        return consistent;
+    }
+
+    /**
+     * The function undoes an assignment made by assign().
+     *
+     * @param variable The variable id.
+     */
+    private void unassign(int variable) {
+        int value = this.assignment[variable];
+
+        this.assignment[variable] = -1;
+        for (int c : this.variableConstraints[variable]) {
+            this.placedBombs[c] -= value;
+            this.unassigned[c]++;
+        }
+    }
+
+    /**
+     * The function enumerates all the solutions of the current component with backtracking, and
+     * counts them by their amount of bombs.
+     *
+     * @param position The position in the component's variable order to assign next.
+     * @return The method returns false if the step budget ran out.
+     */
+    private boolean enumerate(int position) {
+        if (++this.steps > MAX_STEPS) {
+            return false;
+        }
+
+        if (position == this.componentVariables.length) {
+            int bombs = this.bombsInSolution;
+            this.solutionCounts[bombs]++;
+
+            for (int i = 0; i < this.componentVariables.length; i++) {
+                if (this.assignment[this.componentVariables[i]] == 1) {
+                    this.variableBombCounts[i][bombs]++;
+                }
+            }
+
+            return true;
+        }
+
+        int variable = this.componentVariables[position];
+
+        for (int value = 0; value <= 1; value++) {
+            boolean consistent = this.assign(variable, value);
+            this.bombsInSolution += value;
+
+            boolean finished = !consistent || this.enumerate(position + 1);
+
+            this.bombsInSolution -= value;
+            this.unassign(variable);
+
+            if (!finished) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * The function convolves two distributions of bomb counts.
+     *
+     * @param a The first distribution.
+     * @param b The second distribution.
+     * @return The method returns the distribution of the sum.
+     */
+    private static double[] convolve(double[] a, double[] b) {
+        double[] result = new double[a.length + b.length - 1];
+
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == 0) {
+                continue;
+            }
+
+            for (int j = 0; j < b.length; j++) {
+                result[i + j] += a[i] * b[j];
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * The function computes the exact probability of being a bomb of every unrevealed cell that is
+     * neither a found bomb nor found safe, given the revealed numbers and the amount of bombs left.
+     *
+     * @return The method returns the probabilities, or null if the situation is too large to
+     * enumerate or contradicts the revealed numbers.
+     */
+    public BombProbabilities compute() {
+        this.buildConstraints();
+        ArrayList<int[]> components = this.findComponents();
+
+        this.assignment = new int[this.variableCells.length];
+        Arrays.fill(this.assignment, -1);
+        this.placedBombs = new int[this.constraintVariables.length];
+        this.unassigned = new int[this.constraintVariables.length];
+        for (int c = 0; c < this.constraintVariables.length; c++) {
+            this.unassigned[c] = this.constraintVariables[c].length;
+        }
+        this.steps = 0;
+
+        int componentCount = components.size();
+        double[][] componentCounts = new double[componentCount][];
+        double[][][] componentBombCounts = new double[componentCount][][];
+
+        for (int i = 0; i < componentCount; i++) {
+            this.componentVariables = components.get(i);
+            this.solutionCounts = new double[this.componentVariables.length + 1];
+            this.variableBombCounts = new double[this.componentVariables.length][this.componentVariables.length + 1];
+            this.bombsInSolution = 0;
+
+            if (!this.enumerate(0)) {
+                return null;
+            }
+
+            // scale each component so the products can't overflow,
+            // the scale cancels out when the probabilities are normalized
+            double max = 0;
+            for (double count : this.solutionCounts) {
+                max = Math.max(max, count);
+            }
+            if (max == 0) {
+                return null;
+            }
+            for (int k = 0; k < this.solutionCounts.length; k++) {
+                this.solutionCounts[k] /= max;
+                for (double[] bombCounts : this.variableBombCounts) {
+                    bombCounts[k] /= max;
+                }
+            }
+
+            componentCounts[i] = this.solutionCounts;
+            componentBombCounts[i] = this.variableBombCounts;
+        }
+
+        // the cells that don't touch the frontier (interior cells): all the
+        // unrevealed cells minus found bombs, found safe cells and frontier cells
+        int interior = this.board.size() - this.board.revealedCount - this.solver.foundBombs.size()
+                       - this.solver.unrevealedSafe - this.variableCells.length;
+        int remainingBombs = this.board.bombAmount - this.solver.foundBombs.size();
+
+        // prefix[i] combines components 0..i-1, suffix[i] combines components i..end
+        double[][] prefix = new double[componentCount + 1][];
+        double[][] suffix = new double[componentCount + 1][];
+        prefix[0] = new double[] {1.0};
+        suffix[componentCount] = new double[] {1.0};
+        for (int i = 0; i < componentCount; i++) {
+            prefix[i + 1] = convolve(prefix[i], componentCounts[i]);
+        }
+        for (int i = componentCount - 1; i >= 0; i--) {
+            suffix[i] = convolve(componentCounts[i], suffix[i + 1]);
+        }
+
+        // weight of a frontier with t bombs: the ways to place the others in the interior
+        double[] all = prefix[componentCount];
+        double maxLogWeight = Double.NEGATIVE_INFINITY;
+        for (int t = 0; t < all.length; t++) {
+            int interiorBombs = remainingBombs - t;
+            if (interiorBombs >= 0 && interiorBombs <= interior) {
+                maxLogWeight = Math.max(maxLogWeight, logBinomial(interior, interiorBombs));
+            }
+        }
+        double[] weights = new double[all.length];
+        for (int t = 0; t < all.length; t++) {
+            int interiorBombs = remainingBombs - t;
+            if (interiorBombs >= 0 && interiorBombs <= interior) {
+                weights[t] = Math.exp(logBinomial(interior, interiorBombs) - maxLogWeight);
+            }
+        }
+
+        double total = 0;
+        double interiorExpected = 0;
+        for (int t = 0; t < all.length; t++) {
+            total += all[t] * weights[t];
+            interiorExpected += all[t] * weights[t] * (remainingBombs - t);
+        }
+        if (total == 0) {
+            return null;
+        }
+
+        HashMap<Integer, Double> probabilities = new HashMap<Integer, Double>();
+        double interiorProbability = interior > 0 ? interiorExpected / total / interior : 0;
+
+        for (int i = 0; i < componentCount; i++) {
+            double[] others = convolve(prefix[i], suffix[i + 1]);
+            int[] variables = components.get(i);
+
+            for (int v = 0; v < variables.length; v++) {
+                double[] bombCounts = componentBombCounts[i][v];
+                double weighted = 0;
+
+                for (int k = 0; k < bombCounts.length; k++) {
+                    if (bombCounts[k] == 0) {
+                        continue;
+                    }
+
+                    for (int t = 0; t < others.length; t++) {
+                        weighted += bombCounts[k] * others[t] * weights[k + t];
+                    }
+                }
+
+                probabilities.put(this.variableCells[variables[v]], weighted / total);
+            }
+        }
+
+        return new BombProbabilities(probabilities, interiorProbability);
+    }
+
+    ProbabilityEngine(Board board, Solver solver) {
+        this.board = board;
+        this.solver = solver;
+    }
+}
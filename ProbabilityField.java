@@ -0,0 +1,189 @@
+import java.util.*;
+
+/**
+ * The ProbabilityField class is a process-wide cache of the bomb probabilities used by the
+ * probability-based population. Board.calculateProbabilityOfBomb() only depends on the grid
+ * distance between a cell and the first clicked cell, so instead of one value per cell the field is
+ * stored as one value per distance, which is at most width + height - 1 values for any first click.
+ * The tables are built the first time a board size and maximum probability are used.
+ *
+ * The population flips a coin with this probability for every cell, conditioned on giving exactly
+ * bombAmount bombs. Conditioning on the count multiplies the odds p / (1 - p) of every cell by the
+ * same factor, so the chance that a cell really becomes a bomb is the probability with its odds
+ * scaled until the expected number of bombs is bombAmount. Those chances are cached per first cell
+ * as well, and both the BoardGenerator and the probability overlay of the Minefield read them.
+ */
+public class ProbabilityField {
+    // a few games with different settings can share the cache,
+    // older tables are dropped after that
+    private static final int MAX_CACHED_FIELDS = 16;
+
+    private static final LinkedHashMap<Long, double[]> fields = new LinkedHashMap<Long, double[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, double[]> eldest) {
+            return this.size() > MAX_CACHED_FIELDS;
+        }
+    };
+
+    private static final LinkedHashMap<String, double[]> chances = new LinkedHashMap<String, double[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, double[]> eldest) {
+            return this.size() > MAX_CACHED_FIELDS;
+        }
+    };
+
+    // the probability of a cell is kept at least this high, so with a
+    // maximum of 0% the odds of every cell are still finite and equal
+    public static final double MIN_PROBABILITY = 1e-9;
+
+    /**
+     * The function returns the probability of a bomb for every grid distance from the first clicked
+     * cell on a board of the given size, computing it the first time it is requested.
+     *
+     * @param width The width of the board.
+     * @param height The height of the board.
+     * @param maxProbability The maximum probability of a bomb as a percentage.
+     * @return The method returns the shared table indexed by distance, which must not be modified.
+     */
+    public static synchronized double[] byDistance(int width, int height, int maxProbability) {
+        long key = ((long) width << 32) | ((long) height << 8) | maxProbability;
+        double[] field = fields.get(key);
+
+        if (field == null) {
+            int gridSize = Math.max(width, height);
+
+            // the largest distance is between two opposite corners
+            field = new double[width + height - 1];
+            for (int distance = 0; distance < field.length; distance++) {
+                field[distance] = Board.calculateProbabilityOfBomb(0, distance, 0, 0, gridSize, maxProbability);
+            }
+
+            fields.put(key, field);
+        }
+
+        return field;
+    }
+
+    /**
+     * The function returns the chance that a cell becomes a bomb for every grid distance from the
+     * first clicked cell, once the coins of byDistance() are conditioned on placing exactly
+     * bombAmount bombs. It is computed the first time it is requested for a first cell.
+     *
+     * @param width The width of the board.
+     * @param height The height of the board.
+     * @param bombAmount The amount of bombs.
+     * @param maxProbability The maximum probability of a bomb as a percentage.
+     * @param firstRow The row of the first clicked cell.
+     * @param firstCol The column of the first clicked cell.
+     * @return The method returns the shared table indexed by distance, which must not be modified.
+     * The first cell itself has a chance of 0.
+     */
+    public static synchronized double[] chanceByDistance(int width, int height, int bombAmount, int maxProbability,
+                                                         int firstRow, int firstCol) {
+        String key = width + "x" + height + "/" + bombAmount + "/" + maxProbability + "@" + firstRow + "," + firstCol;
+        double[] chance = chances.get(key);
+
+        if (chance == null) {
+            int[] counts = cellsByDistance(width, height, firstRow, firstCol);
+            double[] field = byDistance(width, height, maxProbability);
+            int candidates = width * height - 1;
+
+            double[] logOdds = new double[field.length];
+            for (int distance = 1; distance < field.length; distance++) {
+                double probability = Math.max(MIN_PROBABILITY, field[distance]);
+                logOdds[distance] = Math.log(probability) - Math.log1p(-probability);
+            }
+
+            // the expected number of bombs grows with the factor of the
+            // odds, so it is found by bisecting its logarithm
+            double low = -200;
+            double high = 200;
+            while (high - low > 1e-12) {
+                double middle = (low + high) / 2;
+
+                double expected = 0;
+                for (int distance = 1; distance < field.length; distance++) {
+                    expected += counts[distance] * logistic(middle + logOdds[distance]);
+                }
+
+                if (expected < bombAmount) {
+                    low = middle;
+                } else {
+                    high = middle;
+                }
+            }
+
+            chance = new double[field.length];
+            for (int distance = 1; distance < field.length; distance++) {
+                if (bombAmount >= candidates) {
+                    chance[distance] = 1;
+                } else if (bombAmount > 0) {
+                    chance[distance] = logistic((low + high) / 2 + logOdds[distance]);
+                }
+            }
+
+            chances.put(key, chance);
+        }
+
+        return chance;
+    }
+
+    /**
+     * The function counts the cells at every grid distance from the first clicked cell.
+     *
+     * @param width The width of the board.
+     * @param height The height of the board.
+     * @param firstRow The row of the first clicked cell.
+     * @param firstCol The column of the first clicked cell.
+     * @return The method returns the amount of cells indexed by distance, 1 for the distance 0.
+     */
+    public static int[] cellsByDistance(int width, int height, int firstRow, int firstCol) {
+        int[] counts = new int[width + height - 1];
+
+        // a distance is split into a row and a column distance,
+        // each of which is found on up to two sides of the first cell
+        for (int rowDistance = 0; rowDistance < height; rowDistance++) {
+            int rows = sides(rowDistance, firstRow, height);
+
+            for (int colDistance = 0; colDistance < width && rows > 0; colDistance++) {
+                counts[rowDistance + colDistance] += rows * sides(colDistance, firstCol, width);
+            }
+        }
+
+        return counts;
+    }
+
+    /**
+     * The function counts the rows (or columns) at a distance from the first cell's one.
+     */
+    private static int sides(int distance, int first, int length) {
+        if (distance == 0) {
+            return 1;
+        }
+
+        return (first - distance >= 0 ? 1 : 0) + (first + distance < length ? 1 : 0);
+    }
+
+    /**
+     * The function turns log odds into a probability.
+     */
+    private static double logistic(double logOdds) {
+        return 1 / (1 + Math.exp(-logOdds));
+    }
+
+    /**
+     * The function looks up the probability of a bomb at a cell in a table from byDistance() or
+     * chanceByDistance().
+     *
+     * @param field The table of the board.
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @param firstRow The row of the first clicked cell.
+     * @param firstCol The column of the first clicked cell.
+     * @return The method returns the probability of a bomb at the cell, or its chance if the table
+     * is from chanceByDistance().
+     */
+    public static double probability(double[] field, int row, int col, int firstRow, int firstCol) {
+        return field[Math.abs(firstRow - row) + Math.abs(firstCol - col)];
+    }
+}
@@ -0,0 +1,110 @@
+import jdk.jfr.*;
+
+/**
+ * The Profiling class holds the Java Flight Recorder events of the hot paths, so the time spent in
+ * a real session can be recorded with `jcmd <pid> JFR.start` and analysed offline, e.g. with
+ * `jfr print --events minesweeper.Solve`. Every event is created, begun and ended around the code
+ * it measures, and its fields are only filled in and committed if shouldCommit() returns true.
+ * While no recording is running the JIT removes all of it, so the events cost nothing.
+ */
+public final class Profiling {
+
+    /**
+     * The Population event measures placing the bombs after the first click.
+     */
+    @Name("minesweeper.Population")
+    @Label("Bomb Population")
+    @Category({"Minesweeper", "Game"})
+    @Description("Placing the bombs once the first cell is known")
+    public static final class Population extends Event {
+        // "pooled", "no-guess", "probability" or "random"
+        @Label("Strategy")
+        public String strategy;
+
+        @Label("Attempts")
+        @Description("Boards rejected and accepted by the no-guess search, 0 if none was run")
+        public long attempts;
+
+        @Label("Cells")
+        public int cells;
+
+        @Label("Bombs")
+        public int bombs;
+
+        @Label("Pool Hit Rate")
+        @Description("Share of the games so far that got a board from the BoardPool")
+        @Percentage
+        public double poolHitRate;
+    }
+
+    /**
+     * The Cascade event measures revealing a cell together with the opening around it.
+     */
+    @Name("minesweeper.Cascade")
+    @Label("Reveal Cascade")
+    @Category({"Minesweeper", "Game"})
+    public static final class Cascade extends Event {
+        @Label("Start Cell")
+        public int start;
+
+        @Label("Revealed Cells")
+        public int revealed;
+    }
+
+    /**
+     * The Solve event measures one call of Solver.solveSituation().
+     */
+    @Name("minesweeper.Solve")
+    @Label("Solve Situation")
+    @Category({"Minesweeper", "Solver"})
+    public static final class Solve extends Event {
+        @Label("Iterations")
+        @Description("Passes over the dirty cells, one more for every round of pair reductions")
+        public int iterations;
+
+        @Label("Constraints Examined")
+        @Description("Revealed numbers evaluated and pairs of frontier cells compared")
+        public long constraints;
+
+        @Label("Cells Resolved")
+        @Description("Newly found safe cells and bombs")
+        public int resolved;
+
+        @Label("Stalled")
+        public boolean stalled;
+    }
+
+    /**
+     * The IconLoad event measures decoding a sprite or scaling it to a new size.
+     */
+    @Name("minesweeper.IconLoad")
+    @Label("Icon Load")
+    @Category({"Minesweeper", "Swing"})
+    public static final class IconLoad extends Event {
+        @Label("Icon")
+        public String icon;
+
+        // 0 for decoding the original image
+        @Label("Size")
+        public int size;
+    }
+
+    /**
+     * The Click event measures the handler of a click on the minefield on the Event Dispatch
+     * Thread, including everything the move triggers synchronously.
+     */
+    @Name("minesweeper.Click")
+    @Label("Click Handler")
+    @Category({"Minesweeper", "Swing"})
+    public static final class Click extends Event {
+        @Label("Cell")
+        public int cell;
+
+        // "left" or "right"
+        @Label("Button")
+        public String button;
+    }
+
+    private Profiling() {
+    }
+}
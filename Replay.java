@@ -0,0 +1,353 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * The Replay class reads a game recorded by a ReplayLog and plays it back on a GameEngine without
+ * any window, as fast as the engine allows. When the log is read, the keyframes are indexed, so
+ * seek() can restore the board at any move from the keyframe before it and apply only the few
+ * moves after it, instead of replaying the whole game.
+ */
+public class Replay {
+    public final int width;
+    public final int height;
+    public final int bombAmount;
+    public final long seed;
+    public final int firstCell;
+
+    // the amount of moves and how long the game took when it was recorded
+    public final int moveCount;
+    public final long recordedMillis;
+
+    private final byte[] data;
+    private final int[] bombs;
+
+    // the offset after the last complete record
+    private int end;
+
+    // the move and the offset of every keyframe in the order they were written
+    private int[] keyframeMoves;
+    private int[] keyframeOffsets;
+    private int keyframeCount;
+
+    /**
+     * The Cursor class is a position in a replay: the engine holds the game after `move` moves,
+     * and next() applies the following one.
+     */
+    public class Cursor {
+        public final GameEngine engine;
+        public int move;
+
+        public boolean hintMode;
+        public boolean autoMode;
+
+        // the type and cell of the move applied last,
+        // the cell is -1 for the types without one
+        public int type;
+        public int cell;
+
+        // the offset of the next record
+        private int offset;
+
+        /**
+         * The function applies the next move of the replay to the engine. Keyframes are skipped,
+         * since the engine already holds their state.
+         *
+         * @return The method returns false if the replay has no more moves.
+         */
+        public boolean next() {
+            while (this.offset < end) {
+                long tag = readVarint(this);
+                this.type = (int) (tag & 7);
+                this.cell = -1;
+
+                switch (this.type) {
+                    case ReplayLog.REVEAL:
+                        this.cell = (int) readVarint(this);
+                        this.engine.reveal(this.cell);
+                        break;
+                    case ReplayLog.FLAG:
+                        this.cell = (int) readVarint(this);
+                        this.engine.flag(this.cell);
+                        break;
+                    case ReplayLog.CHORD:
+                        this.cell = (int) readVarint(this);
+                        this.engine.chord(this.cell);
+                        break;
+                    case ReplayLog.AUTO:
+                        this.engine.revealSolved(readCells(this));
+                        break;
+                    case ReplayLog.HINT:
+                        this.hintMode = !this.hintMode;
+                        break;
+                    case ReplayLog.AUTO_MODE:
+                        this.autoMode = !this.autoMode;
+                        break;
+                    case ReplayLog.KEYFRAME:
+                        this.skipKeyframe();
+                        continue;
+                    default:
+                        throw new IllegalStateException("Unknown record type " + this.type + " at " + this.offset);
+                }
+
+                this.move++;
+                return true;
+            }
+
+            return false;
+        }
+
+        /**
+         * The function restores the state stored in the keyframe at the offset of the cursor.
+         */
+        private void restoreKeyframe() {
+            readVarint(this);
+            this.move = (int) readVarint(this);
+
+            int modes = (int) readVarint(this);
+            this.hintMode = (modes & 1) != 0;
+            this.autoMode = (modes & 2) != 0;
+
+            Board board = this.engine.board;
+            int runCount = (int) readVarint(this);
+            int cell = 0;
+            for (int run = 0; run < runCount; run++) {
+                int length = (int) readVarint(this);
+
+                // odd runs are the revealed ones
+                if (run % 2 == 1) {
+                    board.revealRange(cell, cell + length);
+                }
+                cell += length;
+            }
+
+            for (int flag : readCells(this)) {
+                board.toggleFlag(flag);
+            }
+        }
+
+        /**
+         * The function moves the cursor past the keyframe whose tag it has just read.
+         *
+         * @return The method returns the move of the keyframe.
+         */
+        private int skipKeyframe() {
+            int keyframeMove = (int) readVarint(this);
+            readVarint(this);
+
+            int runCount = (int) readVarint(this);
+            for (int run = 0; run < runCount; run++) {
+                readVarint(this);
+            }
+            readCells(this);
+
+            return keyframeMove;
+        }
+
+        Cursor(GameEngine engine, int offset) {
+            this.engine = engine;
+            this.offset = offset;
+            this.move = 0;
+            this.type = -1;
+            this.cell = -1;
+        }
+    }
+
+    /**
+     * The function reads a replay from a file.
+     *
+     * @param file The file written by a ReplayLog.
+     * @return The method returns the replay.
+     * @throws IOException If the file can't be read or isn't a replay.
+     */
+    public static Replay read(File file) throws IOException {
+        return new Replay(Files.readAllBytes(file.toPath()));
+    }
+
+    /**
+     * The function returns a cursor at the start of the game, before the first click.
+     *
+     * @return The method returns the cursor.
+     */
+    public Cursor start() {
+        return this.seek(0);
+    }
+
+    /**
+     * The function returns a cursor after the given amount of moves. The board is restored from the
+     * last keyframe at or before the move, and only the moves after it are applied.
+     *
+     * @param move The amount of moves, at most moveCount.
+     * @return The method returns the cursor.
+     */
+    public Cursor seek(int move) {
+        if (move < 0 || move > this.moveCount) {
+            throw new IllegalArgumentException("Move " + move + " is outside of the replay with " + this.moveCount + " moves");
+        }
+
+        // the last keyframe at or before the move
+        int low = 0;
+        int high = this.keyframeCount - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+
+            if (this.keyframeMoves[middle] <= move) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        Board board = this.createBoard();
+        Cursor cursor = new Cursor(new GameEngine(board, this.firstCell), this.keyframeOffsets[low]);
+        cursor.restoreKeyframe();
+
+        while (cursor.move < move && cursor.next()) {
+            // the moves after the keyframe
+        }
+
+        return cursor;
+    }
+
+    /**
+     * The function returns the amount of keyframes in the replay.
+     *
+     * @return The method returns the amount, at least 1.
+     */
+    public int keyframes() {
+        return this.keyframeCount;
+    }
+
+    /**
+     * The function creates the board of the game with its bombs and nothing revealed.
+     */
+    private Board createBoard() {
+        Board board = new Board(this.width, this.height, this.bombAmount);
+
+        for (int bomb : this.bombs) {
+            board.makeBomb(bomb);
+        }
+        board.computeNeighboringBombs();
+
+        return board;
+    }
+
+    /**
+     * The function reads the varint at the offset of a cursor and moves the cursor past it.
+     */
+    private long readVarint(Cursor cursor) {
+        long value = 0;
+        int shift = 0;
+
+        while (true) {
+            if (cursor.offset >= this.data.length) {
+                throw new IllegalStateException("The replay ends in the middle of a record");
+            }
+
+            int b = this.data[cursor.offset++];
+            value |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+
+    /**
+     * The function reads a list of cells written as its length and the gaps between the cells.
+     */
+    private int[] readCells(Cursor cursor) {
+        int[] cells = new int[(int) this.readVarint(cursor)];
+
+        int cell = 0;
+        for (int i = 0; i < cells.length; i++) {
+            cell += (int) this.readVarint(cursor);
+            cells[i] = cell;
+        }
+
+        return cells;
+    }
+
+    // The `Replay(byte[] data)` constructor reads the header and goes over all the records once to
+    // count the moves and index the keyframes. A log whose game was cut off, e.g. because the
+    // program was killed, is read up to the last complete record.
+    Replay(byte[] data) throws IOException {
+        this.data = data;
+
+        for (int i = 0; i < ReplayLog.MAGIC.length; i++) {
+            if (data.length <= i || data[i] != ReplayLog.MAGIC[i]) {
+                throw new IOException("Not a replay");
+            }
+        }
+
+        Cursor header = new Cursor(null, ReplayLog.MAGIC.length);
+
+        try {
+            int version = (int) this.readVarint(header);
+            if (version != ReplayLog.FORMAT_VERSION) {
+                throw new IOException("Unsupported replay version " + version);
+            }
+
+            this.width = (int) this.readVarint(header);
+            this.height = (int) this.readVarint(header);
+            this.bombAmount = (int) this.readVarint(header);
+
+            long zigzag = this.readVarint(header);
+            this.seed = (zigzag >>> 1) ^ -(zigzag & 1);
+            this.firstCell = (int) this.readVarint(header);
+            this.bombs = this.readCells(header);
+        } catch (IllegalStateException e) {
+            throw new IOException("The replay ends in its header");
+        }
+
+        this.keyframeMoves = new int[16];
+        this.keyframeOffsets = new int[16];
+        this.keyframeCount = 0;
+
+        int moves = 0;
+        long millis = 0;
+        Cursor scan = new Cursor(null, header.offset);
+        this.end = header.offset;
+
+        try {
+            while (scan.offset < data.length) {
+                int offset = scan.offset;
+                long tag = this.readVarint(scan);
+                int type = (int) (tag & 7);
+
+                if (type == ReplayLog.KEYFRAME) {
+                    int keyframeMove = scan.skipKeyframe();
+
+                    if (this.keyframeCount == this.keyframeMoves.length) {
+                        this.keyframeMoves = Arrays.copyOf(this.keyframeMoves, this.keyframeCount * 2);
+                        this.keyframeOffsets = Arrays.copyOf(this.keyframeOffsets, this.keyframeCount * 2);
+                    }
+                    this.keyframeMoves[this.keyframeCount] = keyframeMove;
+                    this.keyframeOffsets[this.keyframeCount] = offset;
+                    this.keyframeCount++;
+                } else {
+                    if (type == ReplayLog.AUTO) {
+                        this.readCells(scan);
+                    } else if (type <= ReplayLog.CHORD) {
+                        this.readVarint(scan);
+                    }
+
+                    millis += tag >>> 3;
+                    moves++;
+                }
+
+                this.end = scan.offset;
+            }
+        } catch (IllegalStateException e) {
+            // the last record is incomplete
+        }
+
+        if (this.keyframeCount == 0) {
+            throw new IOException("The replay has no keyframe");
+        }
+
+        this.moveCount = moves;
+        this.recordedMillis = millis;
+    }
+}
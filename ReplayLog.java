@@ -0,0 +1,348 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * The ReplayLog class records a game as a compact binary log, so that any game can be replayed
+ * exactly, e.g. to reproduce a bug or to re-run a slow game as a benchmark. The log starts with the
+ * seed and the bombs of the board, followed by one record per move: every reveal, flag and chord
+ * of the player, every step of the auto solve and every toggle of the hint and auto modes. Only
+ * moves that change the game are recorded, so replaying the records gives the same game.
+ *
+ * All the numbers are written as varints, 7 bits per byte with the high bit set on every byte but
+ * the last, so a cell index takes 1 to 4 bytes and a move usually takes 3 or 4. Lists of cells are
+ * sorted and written as the gaps between them, which keeps large cascades small.
+ *
+ * Every now and then a keyframe with the whole state of the board is written, so a replay can seek
+ * to any move by restoring the keyframe before it and applying the few moves after it. A keyframe
+ * is written once the moves since the last one take as many bytes as that keyframe did, so the
+ * keyframes take about as much space as the moves, and after at most KEYFRAME_MOVES moves, so a
+ * seek never applies more moves than that.
+ *
+ * The format is:
+ *   header    "MSRP", FORMAT_VERSION, width, height, bombAmount, seed (zigzag), firstCell,
+ *             the amount of bombs and the gaps between them
+ *   records   tag = type + 8 * milliseconds since the previous move, then by type:
+ *     REVEAL, FLAG, CHORD  the cell
+ *     AUTO                 the amount of cells and the gaps between them
+ *     HINT, AUTO_MODE      nothing, the mode was toggled
+ *     KEYFRAME             the amount of moves before it, the modes (1 = hint, 2 = auto), the
+ *                          lengths of the alternating runs of unrevealed and revealed cells
+ *                          starting with an unrevealed run, the amount of flags and the gaps
+ *                          between them
+ * The first record is the keyframe at move 0, which holds the flags placed before the first click,
+ * or the whole state of a saved game that is continued.
+ */
+public class ReplayLog {
+    public static final int FORMAT_VERSION = 1;
+    public static final byte[] MAGIC = {'M', 'S', 'R', 'P'};
+
+    // the types of the records
+    public static final int REVEAL = 0;
+    public static final int FLAG = 1;
+    public static final int CHORD = 2;
+    public static final int AUTO = 3;
+    public static final int HINT = 4;
+    public static final int AUTO_MODE = 5;
+    public static final int KEYFRAME = 6;
+
+    public static final int KEYFRAME_MOVES = 1024;
+
+    // keeps a burst of small keyframes
+    // at the start of a game short
+    private static final int MIN_KEYFRAME_MOVES = 16;
+
+    private final Board board;
+    private final OutputStream out;
+    private boolean failed;
+
+    private boolean hintMode;
+    private boolean autoMode;
+
+    private int moves;
+    private int movesSinceKeyframe;
+    private long bytes;
+    private long keyframeBytes;
+    private long bytesSinceKeyframe;
+    private long lastMillis;
+
+    /**
+     * The function creates a log for a game that has just started, in the given file.
+     *
+     * @param file The file to write the log to, which is replaced if it exists.
+     * @param board The board of the game with the bombs placed, which is partly played if a saved
+     * game is continued.
+     * @param seed The seed the board was generated from.
+     * @param firstCell The board index of the first cell.
+     * @param hintMode Whether the hint mode is on at the start.
+     * @param autoMode Whether the auto mode is on at the start.
+     * @return The method returns the log.
+     * @throws IOException If the file can't be written.
+     */
+    public static ReplayLog create(File file, Board board, long seed, int firstCell, boolean hintMode,
+                                   boolean autoMode) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+
+        return new ReplayLog(new BufferedOutputStream(new FileOutputStream(file)), board, seed, firstCell,
+                             hintMode, autoMode);
+    }
+
+    public void reveal(int cell) {
+        this.record(REVEAL, cell);
+    }
+
+    public void flag(int cell) {
+        this.record(FLAG, cell);
+    }
+
+    public void chord(int cell) {
+        this.record(CHORD, cell);
+    }
+
+    /**
+     * The function records the cells revealed by a step of the auto solve.
+     *
+     * @param cells The revealed cells in any order.
+     */
+    public void autoStep(int[] cells) {
+        if (this.failed) {
+            return;
+        }
+
+        try {
+            this.writeKeyframeIfDue();
+            this.writeTag(AUTO);
+            this.writeCells(cells.clone());
+        } catch (IOException e) {
+            this.fail(e);
+        }
+
+        this.moves++;
+        this.movesSinceKeyframe++;
+    }
+
+    /**
+     * The function records that the hint mode was toggled.
+     */
+    public void hint() {
+        this.record(HINT, -1);
+        this.hintMode = !this.hintMode;
+    }
+
+    /**
+     * The function records that the auto mode was toggled.
+     */
+    public void autoMode() {
+        this.record(AUTO_MODE, -1);
+        this.autoMode = !this.autoMode;
+    }
+
+    /**
+     * The function writes what is left of the log and closes its file. Nothing is recorded
+     * afterwards.
+     */
+    public void close() {
+        if (this.failed) {
+            return;
+        }
+
+        this.failed = true;
+        try {
+            this.out.close();
+        } catch (IOException e) {
+            System.out.println("Could not write replay: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The function records a move with at most one cell.
+     *
+     * @param type The type of the record.
+     * @param cell The cell of the move, or -1 if the type has none.
+     */
+    private void record(int type, int cell) {
+        if (this.failed) {
+            return;
+        }
+
+        try {
+            this.writeKeyframeIfDue();
+            this.writeTag(type);
+            if (cell >= 0) {
+                this.writeVarint(cell);
+            }
+        } catch (IOException e) {
+            this.fail(e);
+        }
+
+        this.moves++;
+        this.movesSinceKeyframe++;
+    }
+
+    /**
+     * The function writes a keyframe before the next move when one is due. The engine records a
+     * move before applying it, so the board only holds all the recorded moves once the next one is
+     * recorded.
+     */
+    private void writeKeyframeIfDue() throws IOException {
+        boolean due = this.movesSinceKeyframe >= KEYFRAME_MOVES
+                      || (this.movesSinceKeyframe >= MIN_KEYFRAME_MOVES && this.bytesSinceKeyframe >= this.keyframeBytes);
+
+        if (due) {
+            this.writeKeyframe();
+        }
+    }
+
+    /**
+     * The function writes the whole state of the board as a keyframe.
+     */
+    private void writeKeyframe() throws IOException {
+        long start = this.bytes;
+
+        // a keyframe isn't a move and carries no time
+        this.writeVarint(KEYFRAME);
+        this.writeVarint(this.moves);
+        this.writeVarint((this.hintMode ? 1 : 0) | (this.autoMode ? 2 : 0));
+
+        // the runs alternate between unrevealed and
+        // revealed cells, so only their lengths are needed
+        int[] runs = new int[16];
+        int runCount = 0;
+        int cell = 0;
+        boolean revealed = false;
+
+        while (cell < this.board.size()) {
+            int next = this.board.nextRevealed(cell, !revealed);
+
+            if (runCount == runs.length) {
+                runs = Arrays.copyOf(runs, runs.length * 2);
+            }
+            runs[runCount++] = next - cell;
+
+            cell = next;
+            revealed = !revealed;
+        }
+
+        this.writeVarint(runCount);
+        for (int i = 0; i < runCount; i++) {
+            this.writeVarint(runs[i]);
+        }
+
+        int[] flags = new int[this.board.flaggedCount];
+        int flagCount = 0;
+        for (int flag = this.board.nextFlagged(0); flag >= 0; flag = this.board.nextFlagged(flag + 1)) {
+            flags[flagCount++] = flag;
+        }
+        this.writeCells(Arrays.copyOf(flags, flagCount));
+
+        this.keyframeBytes = this.bytes - start;
+        this.bytesSinceKeyframe = 0;
+        this.movesSinceKeyframe = 0;
+    }
+
+    private void writeTag(int type) throws IOException {
+        long now = System.currentTimeMillis();
+        long elapsed = Math.max(0, now - this.lastMillis);
+        this.lastMillis = now;
+
+        this.writeVarint(type + 8 * elapsed);
+    }
+
+    /**
+     * The function writes a list of cells as its length and the gaps between the sorted cells.
+     *
+     * @param cells The cells, which are sorted in place.
+     */
+    private void writeCells(int[] cells) throws IOException {
+        Arrays.sort(cells);
+
+        this.writeVarint(cells.length);
+        int previous = 0;
+        for (int cell : cells) {
+            this.writeVarint(cell - previous);
+            previous = cell;
+        }
+    }
+
+    /**
+     * The function writes a non-negative number 7 bits at a time, lowest bits first.
+     *
+     * @param value The number to write.
+     */
+    private void writeVarint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            this.out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+            this.bytes++;
+            this.bytesSinceKeyframe++;
+        }
+
+        this.out.write((int) value);
+        this.bytes++;
+        this.bytesSinceKeyframe++;
+    }
+
+    /**
+     * The function stops the log after a write failed, the game goes on without it.
+     */
+    private void fail(IOException e) {
+        if (!this.failed) {
+            System.out.println("Could not write replay: " + e.getMessage());
+        }
+
+        this.failed = true;
+        try {
+            this.out.close();
+        } catch (IOException ignored) {
+            // the log is already lost
+        }
+    }
+
+    /**
+     * The function maps a signed number to a non-negative one, so small negative numbers stay short
+     * as varints.
+     *
+     * @param value The signed number.
+     * @return The method returns 2 * value for positive and -2 * value - 1 for negative numbers.
+     */
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    // The `ReplayLog(OutputStream out, Board board, long seed, int firstCell, boolean hintMode,
+    // boolean autoMode)` constructor writes the header with the bombs of the board and the keyframe
+    // at move 0, which also holds the modes at the start.
+    ReplayLog(OutputStream out, Board board, long seed, int firstCell, boolean hintMode, boolean autoMode) throws IOException {
+        this.board = board;
+        this.out = out;
+        this.failed = false;
+
+        this.hintMode = hintMode;
+        this.autoMode = autoMode;
+
+        this.moves = 0;
+        this.movesSinceKeyframe = 0;
+        this.bytes = 0;
+        this.bytesSinceKeyframe = 0;
+        this.lastMillis = System.currentTimeMillis();
+
+        this.out.write(MAGIC);
+        this.writeVarint(FORMAT_VERSION);
+        this.writeVarint(board.width);
+        this.writeVarint(board.height);
+        this.writeVarint(board.bombAmount);
+        this.writeVarint(zigzag(seed));
+        this.writeVarint(firstCell);
+
+        int[] bombs = new int[board.bombAmount];
+        int bombCount = 0;
+        for (int bomb = board.nextBomb(0); bomb >= 0; bomb = board.nextBomb(bomb + 1)) {
+            bombs[bombCount++] = bomb;
+        }
+        this.writeCells(Arrays.copyOf(bombs, bombCount));
+
+        this.writeKeyframe();
+    }
+}
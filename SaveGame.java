@@ -0,0 +1,208 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+/**
+ * The SaveGame class holds an unfinished game, so it can be continued after the window was closed
+ * or the player went back to the menu. The file is a small header followed by the board packed by
+ * Board.pack(), 7 bits per cell, and both reading and writing go through a memory mapping of the
+ * file, so even a 10,000 x 10,000 board is saved and loaded with a few bulk copies.
+ *
+ * The format, in little-endian order, is:
+ *   header    "MSSV", FORMAT_VERSION, width, height, bombAmount, maxProbability, firstCell and the
+ *             options as ints, then the elapsed time in seconds and the seed as longs
+ *   board     the bombs, flags and revealed cells as 64-bit words, then the neighboring bombs
+ *             counts as nibbles, the low nibble holding the even cell
+ * The options are the bits USE_PROBABILITY, DRAW_PROBABILITIES, DRAW_POPULATION_RINGS, NO_GUESS,
+ * HINT_MODE and AUTO_SOLVE.
+ */
+public class SaveGame {
+    public static final int FORMAT_VERSION = 1;
+    public static final byte[] MAGIC = {'M', 'S', 'S', 'V'};
+
+    public static final int HEADER_SIZE = 48;
+
+    // the bits of the options
+    public static final int USE_PROBABILITY = 1;
+    public static final int DRAW_PROBABILITIES = 2;
+    public static final int DRAW_POPULATION_RINGS = 4;
+    public static final int NO_GUESS = 8;
+    public static final int HINT_MODE = 16;
+    public static final int AUTO_SOLVE = 32;
+
+    public final Board board;
+    public final int maxProbability;
+    public final int firstCell;
+    public final long time;
+    public final long seed;
+    public final int options;
+
+    /**
+     * The function checks whether one of the options is set.
+     *
+     * @param option The bit of the option.
+     * @return The method returns true if the option is set.
+     */
+    public boolean has(int option) {
+        return (this.options & option) != 0;
+    }
+
+    /**
+     * The function writes the game to a file. It is written next to the file first and then moved
+     * over it, so a game that is cut off while saving keeps the previous save.
+     *
+     * @param file The file to write to, which is replaced if it exists.
+     * @throws IOException If the file can't be written.
+     */
+    public void write(File file) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+
+        File partial = new File(file.getPath() + ".part");
+        long size = HEADER_SIZE + Board.packedSize(this.board.size());
+
+        try (RandomAccessFile output = new RandomAccessFile(partial, "rw");
+             FileChannel channel = output.getChannel()) {
+            output.setLength(size);
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            buffer.put(MAGIC);
+            buffer.putInt(FORMAT_VERSION);
+            buffer.putInt(this.board.width);
+            buffer.putInt(this.board.height);
+            buffer.putInt(this.board.bombAmount);
+            buffer.putInt(this.maxProbability);
+            buffer.putInt(this.firstCell);
+            buffer.putInt(this.options);
+            buffer.putLong(this.time);
+            buffer.putLong(this.seed);
+
+            this.board.pack(buffer);
+            buffer.force();
+        }
+
+        Files.move(partial.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * The function reads a game written by write().
+     *
+     * @param file The file to read.
+     * @return The method returns the game with its board.
+     * @throws IOException If the file can't be read, isn't a saved game or is damaged.
+     */
+    public static SaveGame read(File file) throws IOException {
+        try (RandomAccessFile input = new RandomAccessFile(file, "r");
+             FileChannel channel = input.getChannel()) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Not a saved game");
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            for (byte b : MAGIC) {
+                if (buffer.get() != b) {
+                    throw new IOException("Not a saved game");
+                }
+            }
+
+            int version = buffer.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported saved game version " + version);
+            }
+
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            int bombAmount = buffer.getInt();
+            int maxProbability = buffer.getInt();
+            int firstCell = buffer.getInt();
+            int options = buffer.getInt();
+            long time = buffer.getLong();
+            long seed = buffer.getLong();
+
+            if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE
+                || size != HEADER_SIZE + Board.packedSize(width * height)) {
+                throw new IOException("The saved game is damaged");
+            }
+
+            // only started games are saved, so the first cell is on the board
+            int cells = width * height;
+            if (bombAmount < 0 || bombAmount >= cells || firstCell < 0 || firstCell >= cells
+                || maxProbability < 0 || maxProbability > 100) {
+                throw new IOException("The saved game is damaged");
+            }
+
+            Board board = new Board(width, height, bombAmount);
+            board.unpack(buffer);
+            checkBoard(board);
+
+            if (board.isBomb(firstCell)) {
+                throw new IOException("The saved game is damaged");
+            }
+
+            return new SaveGame(board, maxProbability, firstCell, time, seed, options);
+        }
+    }
+
+    /**
+     * The function checks that an unpacked board is one that write() could have written: it has
+     * exactly its bombs, no cell outside of the board is set, no bomb is revealed, no flag is on a
+     * revealed cell and every count is at most 8. A damaged file would otherwise fail later with an
+     * index exception or a wrong game.
+     *
+     * @param board The unpacked board.
+     * @throws IOException If the board is damaged.
+     */
+    private static void checkBoard(Board board) throws IOException {
+        int bombs = 0;
+        for (int bomb = board.nextBomb(0); bomb >= 0; bomb = board.nextBomb(bomb + 1)) {
+            if (bomb >= board.size() || board.isRevealed(bomb)) {
+                throw new IOException("The saved game is damaged");
+            }
+            bombs++;
+        }
+
+        for (int flag = board.nextFlagged(0); flag >= 0; flag = board.nextFlagged(flag + 1)) {
+            if (flag >= board.size() || board.isRevealed(flag)) {
+                throw new IOException("The saved game is damaged");
+            }
+        }
+
+        // the runs only count the revealed cells on the board
+        int revealed = 0;
+        for (int cell = board.nextRevealed(0, true); cell < board.size(); ) {
+            int end = board.nextRevealed(cell, false);
+            revealed += end - cell;
+            cell = board.nextRevealed(end, true);
+        }
+
+        if (bombs != board.bombAmount || revealed != board.revealedCount) {
+            throw new IOException("The saved game is damaged");
+        }
+
+        for (int cell = 0; cell < board.size(); cell++) {
+            if (board.getNeighboringBombs(cell) > 8) {
+                throw new IOException("The saved game is damaged");
+            }
+        }
+    }
+
+    // The `SaveGame(Board board, int maxProbability, int firstCell, long time, long seed, int options)`
+    // constructor holds a game without copying its board, so it has to be written before the game
+    // goes on.
+    public SaveGame(Board board, int maxProbability, int firstCell, long time, long seed, int options) {
+        this.board = board;
+        this.maxProbability = maxProbability;
+        this.firstCell = firstCell;
+        this.time = time;
+        this.seed = seed;
+        this.options = options;
+    }
+}
@@ -1,240 +1,598 @@
 import java.util.*;
 
-class GuessRequiredException extends Exception {
+public class Solver {
+    public int unrevealedSafe;
+    public CellSet foundBombs;
+    public CellSet foundSafe;
+    public CellSet foundUnknown;
+    // revealed numbered cells that still touch unrevealed cells
+    // which are neither found bombs nor found safe
+    public CellSet frontier;
+    private Board board;
+    private int[] neighbors;
+    private int[] dirtyNeighbors;
+    private int[] neighboringPossible;
+    private int remainingBombs;
+
+    // buffers used by the pairwise rule
+    private int[] possibleA;
+    private int[] possibleB;
+    private int[] reductionNeighbors;
+    private int[] candidates;
+
+    // constraints (revealed numbered cells) whose neighborhood changed
+    // since they were last evaluated, kept as a stack without duplicates
+    private CellSet dirty;
+    private int[] dirtyStack;
+    private int dirtyCount;
+
+    private int newlyFoundSafe;
+    private int newlyFoundBombs;
+
+    // the revealed numbers evaluated and pairs compared
+    // by the current solveSituation() call, for profiling
+    private long examined;
+
+    // the changes since the last result, see takeChanges()
+    private long version;
+    private int[] changedSafe;
+    private int changedSafeCount;
+    private int[] changedBombs;
+    private int changedBombsCount;
+    private int[] changedUnknown;
+    private int changedUnknownCount;
+    // the unknown cells as of the last result
+    private CellSet reportedUnknown;
 
-    ArrayList<Cell> unknownCells;
+    /**
+     * The function removes a cell from the set of found unknown cells and decreases the count of
+     * unrevealed safe cells if the cell is also found to be safe. The cell itself and the revealed
+     * cells around it are queued to be evaluated again on the next solveSituation() call.
+     * The neighboring bombs count of the cell must already be set in the board.
+     * 
+     * @param index The parameter "index" is the board index of the revealed cell.
+     */
+    public void reveal(int index) {
+        if(this.foundSafe.contains(index)) {
+            this.unrevealedSafe--;
+        }
+        this.removeUnknown(index);
 
-    GuessRequiredException(ArrayList<Cell> unknownCells) {
-        super("Guess required! Total Unknown: " + unknownCells.size());
-        this.unknownCells = unknownCells;
+        this.markDirty(index);
+        this.markNeighborsDirty(index);
     }
-}
 
-public class Solver {
-    public int unrevealedSafe;
-    public ArrayList<Cell> foundBombs;
-    public ArrayList<Cell> foundSafe;
-    public ArrayList<Cell> foundUnknown;
-    private Game game;
+    /**
+     * The function queues a revealed numbered cell to be evaluated on the next solver pass.
+     * 
+     * @param index The board index of the cell.
+     */
+    private void markDirty(int index) {
+        if (!this.board.isRevealed(index) || this.board.getNeighboringBombs(index) == 0) {
+            return;
+        }
+
+        if (!this.dirty.add(index)) {
+            return;
+        }
+
+        if (this.dirtyCount == this.dirtyStack.length) {
+            this.dirtyStack = Arrays.copyOf(this.dirtyStack, this.dirtyStack.length * 2);
+        }
+        this.dirtyStack[this.dirtyCount++] = index;
+    }
 
     /**
-     * The function removes a cell from the list of found unknown cells and decreases the count of
-     * unrevealed safe cells if the cell is also found to be safe.
+     * The function queues all the revealed numbered neighbors of a cell, which is needed whenever
+     * the cell is revealed or found to be a bomb or safe.
      * 
-     * @param cell The parameter "cell" represents a specific cell in a game or grid.
+     * @param index The board index of the cell whose neighbors changed.
      */
-    public void reveal(Cell cell) {
-        if(this.foundSafe.contains(cell)) {
-            this.unrevealedSafe--;
+    private void markNeighborsDirty(int index) {
+        int neighborCount = this.board.neighbors(index, this.dirtyNeighbors);
+        for (int n = 0; n < neighborCount; n++) {
+            this.markDirty(this.dirtyNeighbors[n]);
         }
-        this.foundUnknown.remove(cell);
     }
 
-    // basically: if the amount of neighboringBombs of any cells 
+    // both of the solver rules are applied to a single revealed cell,
+    // and only to the cells whose neighborhood changed since last time
+    //
+    // bombs: if the amount of unrevealed neighboring cells of
+    // any cell where there exist some neighboring bombs is equal 
+    // to the amount of possible neighboring bombs (i.e. neighboring 
+    // unrevealed cells that haven't been marked as 100% safe),
+    // then all of those possible neighboring bombs must be bombs
+    //
+    // safe: if the amount of neighboringBombs of any cells 
     // is equal to the number of cells that are 100% bombs neighboring it,
     // then all other neighboring unrevealed cells must be safe
     //
     // not so basically: 
-    // for each revealed cell where neighboringBombs != 0
-    //   neighboringBombCount = 0
+    // for the revealed cell where neighboringBombs != 0
     //   for each unrevealed neighboring cell
     //     if this neighboring cell is 100% a bomb 
-    //      neighboringBombCount++
-    //   if neighboringBombCount == this cell's neighboringBombs
-    //     all unrevealed neighboring cells that aren't 100% bombs must be safe
+    //       neighboringFoundBombs++
+    //     else if this neighboring cell is not 100% safe
+    //       add it to the possible cells
+    //   if neighboringFoundBombs + possible cells == this cell's neighboringBombs 
+    //     all possible cells are bombs
+    //   else if neighboringFoundBombs == this cell's neighboringBombs
+    //     all possible cells must be safe
+    //   otherwise the possible cells are unknown
+    //
+    // every cell found this way marks its own neighbors dirty,
+    // so that the constraints affected by it are evaluated again
 
     /**
-     * The function `computeSafe()` iterates through the cells of a game grid and determines if a cell
-     * is safe based on the number of neighboring bombs and the cells that have already been revealed.
+     * The function collects the unrevealed neighbors of a revealed cell that are neither found bombs
+     * nor found safe, and stores how many of its bombs are still not found in `remainingBombs`.
      * 
-     * @return The method `computeSafe()` returns an integer value, which represents the number of
-     * newly found safe cells.
+     * @param cell The board index of the revealed cell.
+     * @param out An array of at least 8 elements that receives the possible cells.
+     * @return The method returns the number of possible cells written into `out`.
      */
-    private int computeSafe() {
-        int newlyFoundSafe = 0;
+    private int collectPossible(int cell, int[] out) {
+        int neighboringFoundBombs = 0;
+        int possibleCount = 0;
+        int neighborCount = this.board.neighbors(cell, this.neighbors);
+        for(int n = 0; n < neighborCount; n++) {
+            int neighboringCell = this.neighbors[n];
+
+            if(this.board.isRevealed(neighboringCell)) {
+                continue;
+            }
 
-        for(int y = 0; y < this.game.gridSize; y++) {
-            for(int x = 0; x < this.game.gridSize; x++) {
-                Cell cell = this.game.cells[y][x];
+            if(this.foundBombs.contains(neighboringCell)) {
+                neighboringFoundBombs++;
+            } else if (!this.foundSafe.contains(neighboringCell)){
+                out[possibleCount++] = neighboringCell;
+            }
+        }
 
-                if(cell.neighboringBombs == 0 || !cell.isRevealed) {
-                    continue;
-                }
+        this.remainingBombs = this.board.getNeighboringBombs(cell) - neighboringFoundBombs;
+
+        return possibleCount;
+    }
+
+    /**
+     * The function stores a cell at the given position of a change buffer, growing it if needed.
+     *
+     * @param cells The buffer.
+     * @param position The position to store the cell at.
+     * @param cell The board index of the cell.
+     * @return The method returns the buffer, which is a new array if it had to grow.
+     */
+    private static int[] append(int[] cells, int position, int cell) {
+        if (position == cells.length) {
+            cells = Arrays.copyOf(cells, cells.length * 2);
+        }
+        cells[position] = cell;
 
-                int neighboringFoundBombs = 0;
-                ArrayList<Cell> neighboringPossible = new ArrayList<Cell>();
-                for(int ny = y - 1; ny <= y + 1; ny++) {
-                    for(int nx = x - 1; nx <= x +1; nx++ ) {
+        return cells;
+    }
 
-                        if(ny < 0 || nx < 0 || ny >= this.game.gridSize || nx >= this.game.gridSize) {
-                            continue;
-                        }
+    /**
+     * The function removes a cell from the found unknown cells, remembering it as a change if it
+     * was one.
+     *
+     * @param cell The board index of the cell.
+     */
+    private void removeUnknown(int cell) {
+        if (this.foundUnknown.remove(cell)) {
+            this.changedUnknown = append(this.changedUnknown, this.changedUnknownCount++, cell);
+        }
+    }
 
-                        if(ny == y && nx == x) {
-                            continue;
-                        }
+    /**
+     * The function records a cell as a found bomb and queues the cells around it.
+     * 
+     * @param bomb The board index of the cell.
+     */
+    private void markFoundBomb(int bomb) {
+        if (!this.foundBombs.add(bomb)) {
+            return;
+        }
 
-                        Cell neighboringCell = this.game.cells[ny][nx];
+        this.removeUnknown(bomb);
+        this.newlyFoundBombs++;
+        this.changedBombs = append(this.changedBombs, this.changedBombsCount++, bomb);
 
-                        if(neighboringCell.isRevealed) {
-                            continue;
-                        }
+        this.markNeighborsDirty(bomb);
+    }
 
-                        if(this.foundBombs.contains(neighboringCell)) {
-                            neighboringFoundBombs++;
-                        } else if (!this.foundSafe.contains(neighboringCell)){
-                            neighboringPossible.add(neighboringCell);
-                        }
-                    }
-                }
+    /**
+     * The function records a cell as found safe and queues the cells around it.
+     * 
+     * @param safe The board index of the cell.
+     */
+    private void markFoundSafe(int safe) {
+        if (!this.foundSafe.add(safe)) {
+            return;
+        }
 
-                if (neighboringFoundBombs == cell.neighboringBombs) {
-                    for(Cell safe : neighboringPossible) {
-                        newlyFoundSafe++;
-                        unrevealedSafe++;
-                        this.foundSafe.add(safe);
+        this.removeUnknown(safe);
+        this.newlyFoundSafe++;
+        this.unrevealedSafe++;
+        this.changedSafe = append(this.changedSafe, this.changedSafeCount++, safe);
 
-                        this.foundUnknown.remove(safe);
-                    }
-                } else {
-                    for(Cell unknown : neighboringPossible) {
-                        if(!this.foundBombs.contains(unknown) && !this.foundUnknown.contains(unknown)) {
-                            this.foundUnknown.add(unknown);
-                        }
-                    }
+        this.markNeighborsDirty(safe);
+    }
+
+    /**
+     * The function evaluates the solver rules for a single revealed cell and records the cells it
+     * finds to be bombs, safe or unknown. It also keeps the frontier up to date.
+     * 
+     * @param cell The board index of the revealed cell.
+     */
+    private void evaluate(int cell) {
+        int possibleCount = this.collectPossible(cell, this.neighboringPossible);
+
+        if (possibleCount == 0) {
+            this.frontier.remove(cell);
+            return;
+        }
+
+        if (possibleCount == this.remainingBombs) {
+            for(int p = 0; p < possibleCount; p++) {
+                this.markFoundBomb(this.neighboringPossible[p]);
+            }
+
+            this.frontier.remove(cell);
+        } else if (this.remainingBombs == 0) {
+            for(int p = 0; p < possibleCount; p++) {
+                this.markFoundSafe(this.neighboringPossible[p]);
+            }
+
+            this.frontier.remove(cell);
+        } else {
+            for(int p = 0; p < possibleCount; p++) {
+                int possible = this.neighboringPossible[p];
+
+                if (this.foundUnknown.add(possible)) {
+                    this.changedUnknown = append(this.changedUnknown, this.changedUnknownCount++, possible);
                 }
             }
-        }
 
-        return newlyFoundSafe;
+            this.frontier.add(cell);
+        }
     }
 
-    // basically: if the amount of unrevealed neighboring cells of
-    // any cell where there exist some neighboring bombs is equal 
-    // to the amount of possible neighboring bombs (i.e. neighboring 
-    // unrevealed cells that haven't been marked as 100% safe),
-    // then all of those possible neighboring bombs must be bombs
+    // when the single cell rules stall, we compare pairs of frontier cells
+    // whose possible cells overlap (e.g. the 1-1 and 1-2-1 patterns)
     //
-    // not so basically: 
-    // for each revealed cell where neighboringBombs != 0
-    //   possibleBombCount = 0
-    //   for each unrevealed cell neighboring this cell that is not 100% safe 
-    //     possibleBombCount++
-    //   if possibleBombCount == this cell's neighboringBombs 
-    //     all unrevealed neighboring cells that aren't 100% safe are bombs
+    // for two frontier cells A and B with remaining bombs a and b:
+    //   if b - a == the amount of cells only B touches
+    //     all cells only B touches are bombs
+    //     all cells only A touches are safe
+    //   if A touches no cell that B doesn't touch and a == b
+    //     all cells only B touches are safe
+    //
+    // two cells can only share possible cells if they are at most 2 
+    // rows and columns apart, so each frontier cell is compared with 
+    // the frontier cells around its own possible cells and never with
+    // the whole frontier
 
     /**
-     * The function computes the number of newly found bombs based on the neighboring cells of revealed
-     * cells in a game grid.
+     * The function applies the pairwise rule for the frontier cells A and B, whose possible cells
+     * have already been collected.
      * 
-     * @return The method `computeBombs()` returns an integer value, which represents the number of
-     * newly found bombs.
+     * @param possibleA The possible cells of A.
+     * @param countA The number of possible cells of A.
+     * @param bombsA The remaining bombs of A.
+     * @param possibleB The possible cells of B.
+     * @param countB The number of possible cells of B.
+     * @param bombsB The remaining bombs of B.
+     * @return The method returns true if any cell was found.
      */
-    private int computeBombs() {
-        int newlyFoundBombCount = 0;
+    private boolean reducePair(int[] possibleA, int countA, int bombsA, int[] possibleB, int countB, int bombsB) {
+        int onlyA = 0;
+        for (int a = 0; a < countA; a++) {
+            if (!contains(possibleB, countB, possibleA[a])) {
+                onlyA++;
+            }
+        }
+
+        int shared = countA - onlyA;
+        int onlyB = countB - shared;
 
-        for(int y = 0; y < this.game.gridSize; y++) {
-            for(int x = 0; x < this.game.gridSize; x++) {
-                Cell cell = this.game.cells[y][x];
+        if (shared == 0 || onlyB == 0) {
+            return false;
+        }
+
+        boolean onlyBBombs = bombsB - bombsA == onlyB;
+        boolean onlyBSafe = onlyA == 0 && bombsA == bombsB;
 
-                if(cell.neighboringBombs == 0 || !cell.isRevealed) {
-                    continue;
+        if (!onlyBBombs && !onlyBSafe) {
+            return false;
+        }
+
+        for (int b = 0; b < countB; b++) {
+            if (contains(possibleA, countA, possibleB[b])) {
+                continue;
+            }
+
+            if (onlyBBombs) {
+                this.markFoundBomb(possibleB[b]);
+            } else {
+                this.markFoundSafe(possibleB[b]);
+            }
+        }
+
+        if (onlyBBombs) {
+            for (int a = 0; a < countA; a++) {
+                if (!contains(possibleB, countB, possibleA[a])) {
+                    this.markFoundSafe(possibleA[a]);
                 }
+            }
+        }
 
-                ArrayList<Cell> neighboringPossible = new ArrayList<Cell>();
-                for(int ny = y - 1; ny <= y + 1; ny++) {
-                    for(int nx = x - 1; nx <= x +1; nx++ ) {
+        return true;
+    }
 
-                        if(ny < 0 || nx < 0 || ny >= this.game.gridSize || nx >= this.game.gridSize) {
-                            continue;
-                        }
+    private static boolean contains(int[] cells, int count, int cell) {
+        for (int i = 0; i < count; i++) {
+            if (cells[i] == cell) {
+                return true;
+            }
+        }
 
-                        if(ny == y && nx == x) {
-                            continue;
-                        }
+        return false;
+    }
 
-                        Cell neighboringCell = this.game.cells[ny][nx];
+    /**
+     * The function runs the pairwise rule over the whole frontier, comparing each frontier cell only
+     * with the frontier cells that share possible cells with it.
+     * 
+     * @return The method returns the number of frontier cells for which something was found.
+     */
+    private int reduceConstraints() {
+        int reduced = 0;
 
-                        if (neighboringCell.isRevealed) {
-                            continue;
-                        }
+        for (int a = this.frontier.next(0); a >= 0; a = this.frontier.next(a + 1)) {
+            int countA = this.collectPossible(a, this.possibleA);
+            int bombsA = this.remainingBombs;
 
-                        if(!this.foundSafe.contains(neighboringCell)) {
-                            neighboringPossible.add(neighboringCell);
-                        }
-                    }
-                }
+            if (countA == 0) {
+                continue;
+            }
 
-                if(neighboringPossible.size() == cell.neighboringBombs) {
-                    for(Cell bomb : neighboringPossible) {
-                        if (!this.foundBombs.contains(bomb)) {
-                            newlyFoundBombCount++;
-                            this.foundBombs.add(bomb);
+            // gather the frontier cells around the possible cells of A
+            int candidateCount = 0;
+            for (int p = 0; p < countA; p++) {
+                int neighborCount = this.board.neighbors(this.possibleA[p], this.reductionNeighbors);
 
-                            this.foundUnknown.remove(bomb);
-                        }
+                for (int n = 0; n < neighborCount; n++) {
+                    int b = this.reductionNeighbors[n];
+
+                    if (b != a && this.frontier.contains(b) && !contains(this.candidates, candidateCount, b)) {
+                        this.candidates[candidateCount++] = b;
                     }
                 }
             }
+
+            for (int c = 0; c < candidateCount; c++) {
+                int countB = this.collectPossible(this.candidates[c], this.possibleB);
+                int bombsB = this.remainingBombs;
+                this.examined++;
+
+                if (this.reducePair(this.possibleA, countA, bombsA, this.possibleB, countB, bombsB) ||
+                    this.reducePair(this.possibleB, countB, bombsB, this.possibleA, countA, bombsA)) {
+                    // the possible cells of A changed, so
+                    // move on and let the cheap rules catch up
+                    reduced++;
+                    break;
+                }
+            }
         }
 
-        return newlyFoundBombCount;
+        return reduced;
     }
 
-    // returns list of 2 lists;
-    // first list: 100% safe cells 
-    // second list: 100% bomb cells 
-    //
-    // we iterate the two solver steps until they produce no new results
-    // this is done because often more bombs can be found from the newly 
-    // found safe cells even if no new cells were revealed and vice versa
-    //
-    // bombs are computed before safe cells because at least 
-    // some 100% bombs are required to find 100% safe cells
-
     /**
-     * The function "solveSituation" attempts to solve a situation by iteratively computing the number
-     * of bombs and safe cells until no new bombs or safe cells are found, and then returns the solved
-     * situation as an ArrayList of ArrayLists containing the found safe cells, found bombs, and found
-     * unknown cells.
-     * 
-     * @return The method is returning an ArrayList of ArrayLists of Cell objects.
+     * The function evaluates the queued cells until there are none left.
      */
-    public ArrayList<ArrayList<Cell>> solveSituation() throws GuessRequiredException {
+    private void evaluateDirty() {
+        while (this.dirtyCount > 0) {
+            int cell = this.dirtyStack[--this.dirtyCount];
+            this.dirty.remove(cell);
+            this.examined++;
+
+            this.evaluate(cell);
+        }
+    }
 
-        int newlyFoundBombs = computeBombs();
-        int newlyFoundSafe = computeSafe();
+    // instead of sweeping the whole grid, we keep evaluating the dirty
+    // cells until none are left; this is done because often more bombs 
+    // can be found from the newly found safe cells even if no new cells 
+    // were revealed and vice versa, and each finding dirties only the 
+    // few cells around it, so the cost depends on the size of the change
+    // and not on the size of the board
 
-        while (newlyFoundBombs != 0 && newlyFoundSafe != 0) {
-            newlyFoundBombs = this.computeBombs();
-            newlyFoundSafe = this.computeSafe();
+    /**
+     * The function "solveSituation" attempts to solve a situation by evaluating the cells whose
+     * neighborhood changed since the last call until no new bombs or safe cells are found, falling
+     * back to comparing overlapping pairs of frontier cells when that stalls, and then
+     * returns what changed since the previous result: the newly found safe cells and bombs and the
+     * cells that became unknown or stopped being unknown. If nothing new was found and no found safe
+     * cell is left to reveal, the result is marked as stalled, since a guess is required to continue.
+     * Stalling is a normal outcome of the solver, so it is returned instead of thrown.
+     * 
+     * @return The method returns the changes as the next version.
+     */
+    public SolverResult solveSituation() {
+        Profiling.Solve event = new Profiling.Solve();
+        event.begin();
+
+        this.newlyFoundSafe = 0;
+        this.newlyFoundBombs = 0;
+        this.examined = 0;
+        int iterations = 1;
+
+        this.evaluateDirty();
+
+        // only compare pairs of cells once the single cell
+        // rules stall and there is nothing safe left to reveal
+        while (this.unrevealedSafe <= 0 && this.reduceConstraints() > 0) {
+            this.evaluateDirty();
+            iterations++;
         }
 
         // if solved situation has no newly found safe cells 
         // and there are no more safe cells to be revealed
-        if (newlyFoundSafe == 0 && newlyFoundBombs == 0 && this.unrevealedSafe <= 0) {
-            throw new GuessRequiredException(this.foundUnknown);
+        boolean stalled = this.newlyFoundSafe == 0 && this.newlyFoundBombs == 0 && this.unrevealedSafe <= 0;
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.iterations = iterations;
+            event.constraints = this.examined;
+            event.resolved = this.newlyFoundSafe + this.newlyFoundBombs;
+            event.stalled = stalled;
+            event.commit();
         }
 
-        ArrayList<ArrayList<Cell>> solvedSituation = new ArrayList<ArrayList<Cell>>();
-        solvedSituation.add(this.foundSafe);
-        solvedSituation.add(this.foundBombs);
-        solvedSituation.add(this.foundUnknown);
+        return this.takeChanges(stalled);
+    }
 
-        return solvedSituation;
+    /**
+     * The function returns the changes since the previous result as a new version, including the
+     * ones found outside of solveSituation(), e.g. by computeProbabilities(). A cell that became
+     * unknown and was resolved again in between isn't reported at all.
+     *
+     * @return The method returns the changes.
+     */
+    public SolverResult takeChanges() {
+        return this.takeChanges(false);
     }
 
-    // The `Solver(Game game)` constructor initializes a new instance of the `Solver` class. It takes a
-    // `Game` object as a parameter and assigns it to the `game` instance variable. It also initializes
-    // the `unrevealedSafe` variable to 0 and creates new `ArrayList` objects for `foundBombs`,
-    // `foundSafe`, and `foundUnknown`. These lists will be used to store the cells that are found to
-    // be bombs, safe, and unknown, respectively, during the solving process.
-    Solver(Game game) {
-        this.game = game;
-        this.unrevealedSafe = 0;
+    /**
+     * The function returns the changes since the previous result as a new version.
+     *
+     * @param stalled Whether the solver needs a guess to continue.
+     * @return The method returns the changes.
+     */
+    private SolverResult takeChanges(boolean stalled) {
+        int[] unknown = new int[this.changedUnknownCount];
+        int[] resolved = new int[this.changedUnknownCount];
+        int unknownCount = 0;
+        int resolvedCount = 0;
+
+        for (int i = 0; i < this.changedUnknownCount; i++) {
+            int cell = this.changedUnknown[i];
+
+            if (this.foundUnknown.contains(cell)) {
+                if (this.reportedUnknown.add(cell)) {
+                    unknown[unknownCount++] = cell;
+                }
+            } else if (this.reportedUnknown.remove(cell)) {
+                resolved[resolvedCount++] = cell;
+            }
+        }
+
+        SolverResult result = new SolverResult(++this.version, false, stalled,
+                                               Arrays.copyOf(this.changedSafe, this.changedSafeCount),
+                                               Arrays.copyOf(this.changedBombs, this.changedBombsCount),
+                                               Arrays.copyOf(unknown, unknownCount),
+                                               Arrays.copyOf(resolved, resolvedCount));
+
+        this.changedSafeCount = 0;
+        this.changedBombsCount = 0;
+        this.changedUnknownCount = 0;
+
+        return result;
+    }
+
+    /**
+     * The function returns everything found so far as a new version: the found safe cells that are
+     * still unrevealed, the found bombs and the unknown cells. The following results continue from
+     * it, so it is used to start over when the marks of the previous results were lost.
+     *
+     * @return The method returns the full result.
+     */
+    public SolverResult fullState() {
+        this.evaluateDirty();
+
+        int[] safe = new int[this.foundSafe.size()];
+        int safeCount = 0;
+        for (int cell = this.foundSafe.next(0); cell >= 0; cell = this.foundSafe.next(cell + 1)) {
+            if (!this.board.isRevealed(cell)) {
+                safe[safeCount++] = cell;
+            }
+        }
+
+        this.reportedUnknown.clear();
+        int[] unknown = new int[this.foundUnknown.size()];
+        int unknownCount = 0;
+        for (int cell = this.foundUnknown.next(0); cell >= 0; cell = this.foundUnknown.next(cell + 1)) {
+            this.reportedUnknown.add(cell);
+            unknown[unknownCount++] = cell;
+        }
+
+        int[] bombs = new int[this.foundBombs.size()];
+        int bombCount = 0;
+        for (int cell = this.foundBombs.next(0); cell >= 0; cell = this.foundBombs.next(cell + 1)) {
+            bombs[bombCount++] = cell;
+        }
+
+        this.changedSafeCount = 0;
+        this.changedBombsCount = 0;
+        this.changedUnknownCount = 0;
+
+        return new SolverResult(++this.version, true, false, Arrays.copyOf(safe, safeCount), bombs, unknown, new int[0]);
+    }
+
+    /**
+     * The function computes the exact probability of every cell being a bomb from the current state
+     * of the solver, which is most useful once solveSituation() requires a guess.
+     * 
+     * @return The method returns the probabilities, or null if they couldn't be computed.
+     */
+    public BombProbabilities computeProbabilities() {
+        this.evaluateDirty();
 
-        this.foundBombs = new ArrayList<Cell>();
-        this.foundSafe = new ArrayList<Cell>();
-        this.foundUnknown = new ArrayList<>();
+        return new ProbabilityEngine(this.board, this).compute();
+    }
+
+    // The `Solver(Board board)` constructor initializes a new instance of the `Solver` class. It takes a
+    // `Board` object as a parameter and assigns it to the `board` instance variable, so the solver
+    // does not depend on the Swing game window. It also initializes the `unrevealedSafe` variable to 0
+    // and creates new `CellSet` objects for `foundBombs`, `foundSafe`, and `foundUnknown`. These
+    // bitset-backed sets will be used to store the board indices of the cells that are found to be bombs, safe,
+    // and unknown, respectively, during the solving process.
+    // If the board already has revealed cells, they are all queued once so the
+    // first solveSituation() call builds the frontier.
+    Solver(Board board) {
+        this.board = board;
+        this.unrevealedSafe = 0;
+        this.neighbors = new int[8];
+        this.dirtyNeighbors = new int[8];
+        this.neighboringPossible = new int[8];
+        this.possibleA = new int[8];
+        this.possibleB = new int[8];
+        this.reductionNeighbors = new int[8];
+        this.candidates = new int[24];
+        this.examined = 0;
+
+        this.foundBombs = new CellSet(board.size());
+        this.foundSafe = new CellSet(board.size());
+        this.foundUnknown = new CellSet(board.size());
+        this.frontier = new CellSet(board.size());
+
+        this.dirty = new CellSet(board.size());
+        this.dirtyStack = new int[64];
+        this.dirtyCount = 0;
+
+        this.version = 0;
+        this.changedSafe = new int[64];
+        this.changedSafeCount = 0;
+        this.changedBombs = new int[64];
+        this.changedBombsCount = 0;
+        this.changedUnknown = new int[64];
+        this.changedUnknownCount = 0;
+        this.reportedUnknown = new CellSet(board.size());
+
+        for (int cell = 0; cell < board.size(); cell++) {
+            this.markDirty(cell);
+        }
     }
 }
@@ -0,0 +1,83 @@
+/**
+ * The SolverResult class is what a call to Solver.solveSituation() found, as the changes since the
+ * previous call instead of everything found so far. Painting the hints from it therefore costs as
+ * much as the change, however many cells the solver already knows about. Every result carries the
+ * version of the solver it was taken at, which increases by one with every result, so a consumer
+ * can tell whether it missed one. A full result holds everything found so far instead, and is used
+ * to start over, e.g. after the marks were cleared. A stalled result is the last one before the
+ * solver needs a guess: nothing new was found and no found safe cell is left to reveal.
+ *
+ * A result is immutable: the cells are only handed out as copies.
+ */
+public class SolverResult {
+    public final long version;
+    public final boolean full;
+    public final boolean stalled;
+
+    // cells found safe or to be bombs since the previous result, which stay that way
+    private final int[] safe;
+    private final int[] bombs;
+
+    // cells that became unknown, and cells that were reported unknown
+    // before but no longer are, because they were revealed or decided
+    private final int[] unknown;
+    private final int[] resolved;
+
+    /**
+     * The function returns the cells found safe since the previous result.
+     *
+     * @return The method returns a copy of the board indices.
+     */
+    public int[] safe() {
+        return this.safe.clone();
+    }
+
+    /**
+     * The function returns the cells found to be bombs since the previous result.
+     *
+     * @return The method returns a copy of the board indices.
+     */
+    public int[] bombs() {
+        return this.bombs.clone();
+    }
+
+    /**
+     * The function returns the cells that became unknown since the previous result.
+     *
+     * @return The method returns a copy of the board indices.
+     */
+    public int[] unknown() {
+        return this.unknown.clone();
+    }
+
+    /**
+     * The function returns the cells that were reported unknown before and no longer are.
+     *
+     * @return The method returns a copy of the board indices.
+     */
+    public int[] resolved() {
+        return this.resolved.clone();
+    }
+
+    /**
+     * The function checks whether nothing changed since the previous result.
+     *
+     * @return The method returns true if all the arrays are empty.
+     */
+    public boolean isEmpty() {
+        return this.safe.length == 0 && this.bombs.length == 0 && this.unknown.length == 0 && this.resolved.length == 0;
+    }
+
+    // The `SolverResult(long version, boolean full, boolean stalled, int[] safe, int[] bombs, int[] unknown,
+    // int[] resolved)` constructor is only called by the Solver, which hands over arrays that nothing
+    // else references.
+    SolverResult(long version, boolean full, boolean stalled, int[] safe, int[] bombs, int[] unknown, int[] resolved) {
+        this.version = version;
+        this.full = full;
+        this.stalled = stalled;
+        this.safe = safe;
+        this.bombs = bombs;
+        this.unknown = unknown;
+        this.resolved = resolved;
+    }
+}
@@ -0,0 +1,494 @@
+import javax.swing.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+/**
+ * The SolverService class runs the Solver on its own worker thread, so solving never freezes the
+ * window. The worker keeps a copy of the board together with its own Solver, and listens to the
+ * GameEngine for every cell the player reveals or flags, which the worker applies before its next
+ * request. Only
+ * the worker ever touches the copy and its solver, and only the Event Dispatch Thread touches the
+ * board of the game.
+ *
+ * Every request gets a new generation, and a request is cancelled as soon as a newer one is made or
+ * cancel() is called, which the game does whenever the player moves. The worker checks this between
+ * solver rounds and before computing the probabilities.
+ *
+ * The results are sent back as a Batch. While the Event Dispatch Thread is busy, the worker keeps
+ * adding to the batch that is already waiting, so the game applies many solver rounds with a single
+ * update. The auto solve produces a stream of moves, each one a revealed safe cell with its
+ * cascade, which the game plays back at its own pace; the worker waits while more than `maxAhead`
+ * moves haven't been played yet. The moves and the SolverResults are always delivered, even for
+ * cancelled requests: the moves are already revealed on the copy, and every result only holds the
+ * changes since the one before, so the game needs all of them to keep its marks in sync. Only the
+ * probabilities of cancelled requests are dropped, since they are outdated by the next move.
+ */
+public class SolverService implements GameEngine.Listener {
+
+    /**
+     * The Batch class holds the results delivered to the game in one update.
+     */
+    public static class Batch {
+        // the moves of the auto solve: the cells of move i are
+        // revealed[moveEnds[i - 1]] up to revealed[moveEnds[i] - 1]
+        public int[] revealed;
+        public int revealedCount;
+        public int[] moveEnds;
+        public int moveCount;
+
+        // the results of the solver in the order they were taken
+        public ArrayList<SolverResult> results;
+
+        // whether the newest request needs a guess, with the amount of undecided cells
+        // and their exact probabilities, which are null if they couldn't be computed
+        public boolean stalled;
+        public int unknownCells;
+        public BombProbabilities probabilities;
+        public long stalledGeneration;
+
+        /**
+         * The function checks whether the batch changes any marks.
+         *
+         * @return The method returns true if it holds results or a stalled request.
+         */
+        public boolean hasMarks() {
+            return !this.results.isEmpty() || this.stalled;
+        }
+
+        /**
+         * The function adds a move of the auto solve to the batch.
+         *
+         * @param cells The cells revealed by the move.
+         */
+        void addMove(int[] cells) {
+            if (this.revealedCount + cells.length > this.revealed.length) {
+                this.revealed = Arrays.copyOf(this.revealed, Math.max(this.revealed.length * 2, this.revealedCount + cells.length));
+            }
+            if (this.moveCount == this.moveEnds.length) {
+                this.moveEnds = Arrays.copyOf(this.moveEnds, this.moveEnds.length * 2);
+            }
+
+            System.arraycopy(cells, 0, this.revealed, this.revealedCount, cells.length);
+            this.revealedCount += cells.length;
+            this.moveEnds[this.moveCount++] = this.revealedCount;
+        }
+
+        /**
+         * The function returns the cells of one move.
+         *
+         * @param move The number of the move in this batch.
+         * @return The method returns a copy of the cells revealed by the move.
+         */
+        public int[] move(int move) {
+            return Arrays.copyOfRange(this.revealed, move == 0 ? 0 : this.moveEnds[move - 1], this.moveEnds[move]);
+        }
+
+        Batch() {
+            this.revealed = new int[64];
+            this.revealedCount = 0;
+            this.moveEnds = new int[16];
+            this.moveCount = 0;
+            this.results = new ArrayList<SolverResult>();
+        }
+    }
+
+    private final Board board;
+    private final Solver solver;
+    private final Consumer<Batch> consumer;
+    private final ExecutorService worker;
+
+    private final AtomicLong generation;
+
+    // moves of the player not yet applied to the copy, a
+    // revealed cell as its index and a toggled flag as ~index
+    private int[] moves;
+    private int moveCount;
+
+    // at most one batch is delivered per frame, so the worker
+    // isn't slowed down by a repaint for every solver round
+    private static final long FRAME_NANOS = 16_000_000;
+
+    private Batch pending;
+    // only read and written on the Event Dispatch Thread
+    private long lastDelivery;
+
+    // moves delivered or waiting in a batch that
+    // haven't been reported as played yet
+    private int ahead;
+    private int maxAhead;
+
+    /**
+     * The function forwards the moves of the player published by the engine to the worker. The cells
+     * revealed by the auto solve are skipped, since the worker revealed them itself.
+     *
+     * @param event The event of the engine.
+     */
+    @Override
+    public void onEvent(GameEvent event) {
+        if (event instanceof GameEvent.CellsRevealed && !((GameEvent.CellsRevealed) event).bySolver) {
+            this.revealed(((GameEvent.CellsRevealed) event).cells);
+        } else if (event instanceof GameEvent.FlagToggled) {
+            this.flagged(((GameEvent.FlagToggled) event).cell);
+        }
+    }
+
+    /**
+     * The function tells the worker about cells the player revealed.
+     *
+     * @param cells The revealed cells.
+     */
+    public synchronized void revealed(int[] cells) {
+        for (int cell : cells) {
+            this.addMove(cell);
+        }
+    }
+
+    /**
+     * The function tells the worker about a flag the player toggled.
+     *
+     * @param cell The flagged or unflagged cell.
+     */
+    public synchronized void flagged(int cell) {
+        this.addMove(~cell);
+    }
+
+    private void addMove(int move) {
+        if (this.moveCount == this.moves.length) {
+            this.moves = Arrays.copyOf(this.moves, this.moves.length * 2);
+        }
+        this.moves[this.moveCount++] = move;
+    }
+
+    /**
+     * The function cancels the running request, if any.
+     */
+    public void cancel() {
+        this.generation.incrementAndGet();
+
+        // wakes up the worker if it waits for the playback
+        synchronized (this) {
+            this.notifyAll();
+        }
+    }
+
+    /**
+     * The function sets how many moves the auto solve may be ahead of the playback.
+     *
+     * @param maxAhead The amount of moves, Integer.MAX_VALUE lets the worker run freely.
+     */
+    public synchronized void setMaxAhead(int maxAhead) {
+        this.maxAhead = Math.max(1, maxAhead);
+        this.notifyAll();
+    }
+
+    /**
+     * The function reports moves that the game has played back, which lets the worker continue.
+     *
+     * @param moves The amount of moves played.
+     */
+    public synchronized void played(int moves) {
+        this.ahead -= moves;
+        this.notifyAll();
+    }
+
+    /**
+     * The function asks the worker to solve the current situation, cancelling any earlier request.
+     *
+     * @param autoSolve Whether the worker keeps revealing the safe cells until the board is won or a
+     * guess is required.
+     * @param full Whether the worker first sends everything found so far, for a game whose marks
+     * are out of sync with the results.
+     */
+    public void request(boolean autoSolve, boolean full) {
+        long requestGeneration = this.generation.incrementAndGet();
+
+        this.worker.execute(() -> this.solve(requestGeneration, autoSolve, full));
+    }
+
+    /**
+     * The function stops the worker for good, e.g. when the game window is closed.
+     */
+    public void shutdown() {
+        this.cancel();
+        this.worker.shutdownNow();
+    }
+
+    /**
+     * The function applies the moves of the player to the copy of the board, skipping the cells the
+     * worker already revealed by itself.
+     */
+    private void applyMoves() {
+        int[] moves;
+        int moveCount;
+
+        synchronized (this) {
+            moves = this.moves;
+            moveCount = this.moveCount;
+
+            this.moves = new int[64];
+            this.moveCount = 0;
+        }
+
+        for (int i = 0; i < moveCount; i++) {
+            int move = moves[i];
+
+            if (move < 0) {
+                this.board.toggleFlag(~move);
+            } else if (!this.board.isRevealed(move)) {
+                this.board.reveal(move);
+                this.solver.reveal(move);
+            }
+        }
+    }
+
+    /**
+     * The function is the producer of the auto solve. It keeps solving and reveals every safe cell
+     * found, handing the cell with its cascade to `moves` as one move, until the board is won or
+     * `keepGoing` returns false or a guess is required. Found safe cells that were never revealed,
+     * e.g. from hints, are revealed first.
+     *
+     * @param board The board to reveal the cells on.
+     * @param solver The solver of the board.
+     * @param keepGoing Checked before every move, returning false stops the auto solve.
+     * @param moves Receives the cells of every move.
+     * @param results Receives every result of the solver.
+     * @return The method returns true if the solver needs a guess to continue.
+     */
+    static boolean autoSolve(Board board, Solver solver, BooleanSupplier keepGoing, Consumer<int[]> moves,
+                             Consumer<SolverResult> results) {
+        if (solver.unrevealedSafe > 0 && !revealAll(board, solver, unrevealed(board, solver.foundSafe), keepGoing, moves)) {
+            return false;
+        }
+
+        while (!board.isWon()) {
+            SolverResult result = solver.solveSituation();
+            results.accept(result);
+
+            if (result.stalled) {
+                return true;
+            }
+            if (!revealAll(board, solver, result.safe(), keepGoing, moves)) {
+                return false;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * The function reveals safe cells as moves of the auto solve.
+     *
+     * @return The method returns false if `keepGoing` stopped it.
+     */
+    private static boolean revealAll(Board board, Solver solver, int[] cells, BooleanSupplier keepGoing,
+                                     Consumer<int[]> moves) {
+        for (int cell : cells) {
+            if (board.isRevealed(cell)) {
+                continue;
+            }
+            if (!keepGoing.getAsBoolean()) {
+                return false;
+            }
+
+            int[] revealed = board.revealFrom(cell);
+            for (int index : revealed) {
+                solver.reveal(index);
+            }
+            moves.accept(revealed);
+        }
+
+        return true;
+    }
+
+    /**
+     * The function runs the auto solve on the calling thread without any playback or painting,
+     * which is how the benchmarks measure it.
+     *
+     * @param board The board, with the first cell already revealed.
+     * @return The method returns the amount of moves made before the board was won or needed a
+     * guess.
+     */
+    public static int solveInstant(Board board) {
+        Solver solver = new Solver(board);
+        int[] moves = new int[1];
+
+        // if it stalls the board stays as far as it got
+        autoSolve(board, solver, () -> true, cells -> moves[0]++, result -> { });
+
+        return moves[0];
+    }
+
+    /**
+     * The function is one request on the worker thread.
+     *
+     * @param requestGeneration The generation of the request.
+     * @param autoSolve Whether the safe cells are revealed.
+     * @param full Whether everything found so far is sent first.
+     */
+    private void solve(long requestGeneration, boolean autoSolve, boolean full) {
+        if (this.generation.get() != requestGeneration) {
+            return;
+        }
+
+        this.applyMoves();
+
+        if (full) {
+            this.postResult(this.solver.fullState());
+        }
+
+        boolean stalled;
+
+        if (autoSolve) {
+            stalled = autoSolve(this.board, this.solver, () -> this.awaitPlayback(requestGeneration), this::postMove,
+                                this::postResult);
+        } else {
+            SolverResult result = this.solver.solveSituation();
+
+            this.postResult(result);
+            stalled = result.stalled;
+        }
+
+        if (!stalled || this.generation.get() != requestGeneration) {
+            return;
+        }
+
+        BombProbabilities probabilities = this.solver.computeProbabilities();
+
+        // computing the probabilities can find new cells too
+        this.postResult(this.solver.takeChanges());
+        this.postStalled(requestGeneration, this.solver.foundUnknown.size(), probabilities);
+    }
+
+    /**
+     * The function waits until the playback has caught up enough for another move.
+     *
+     * @param requestGeneration The generation of the request.
+     * @return The method returns false if the request was cancelled in the meantime.
+     */
+    private synchronized boolean awaitPlayback(long requestGeneration) {
+        try {
+            while (this.ahead >= this.maxAhead && this.generation.get() == requestGeneration) {
+                this.wait();
+            }
+        } catch (InterruptedException e) {
+            return false;
+        }
+
+        return this.generation.get() == requestGeneration;
+    }
+
+    /**
+     * The function returns the cells of a set that are not revealed on a board.
+     */
+    private static int[] unrevealed(Board board, CellSet cells) {
+        int[] out = new int[cells.size()];
+        int count = 0;
+
+        for (int cell = cells.next(0); cell >= 0; cell = cells.next(cell + 1)) {
+            if (!board.isRevealed(cell)) {
+                out[count++] = cell;
+            }
+        }
+
+        return Arrays.copyOf(out, count);
+    }
+
+    /**
+     * The function returns the batch waiting to be delivered, creating it and scheduling its
+     * delivery on the Event Dispatch Thread if there is none. Must be called while holding the lock.
+     */
+    private Batch pendingBatch() {
+        if (this.pending == null) {
+            this.pending = new Batch();
+
+            // Swing timers must only be created on the Event Dispatch Thread
+            SwingUtilities.invokeLater(this::scheduleDelivery);
+        }
+
+        return this.pending;
+    }
+
+    /**
+     * The function delivers the waiting batch once a frame has passed since the last delivery, with
+     * a timer if that is still to come. Runs on the Event Dispatch Thread.
+     */
+    private void scheduleDelivery() {
+        long delay = this.lastDelivery + FRAME_NANOS - System.nanoTime();
+
+        if (delay <= 0) {
+            this.deliver();
+        } else {
+            javax.swing.Timer timer = new javax.swing.Timer((int) (delay / 1_000_000) + 1, e -> this.deliver());
+            timer.setRepeats(false);
+            timer.start();
+        }
+    }
+
+    private synchronized void postMove(int[] cells) {
+        this.ahead++;
+        this.pendingBatch().addMove(cells);
+    }
+
+    private synchronized void postResult(SolverResult result) {
+        this.pendingBatch().results.add(result);
+    }
+
+    private synchronized void postStalled(long requestGeneration, int unknownCells, BombProbabilities probabilities) {
+        Batch batch = this.pendingBatch();
+
+        batch.stalled = true;
+        batch.unknownCells = unknownCells;
+        batch.probabilities = probabilities;
+        batch.stalledGeneration = requestGeneration;
+    }
+
+    /**
+     * The function hands the waiting batch to the consumer on the Event Dispatch Thread, dropping
+     * the stalled request with its probabilities if it was cancelled in the meantime.
+     */
+    private void deliver() {
+        Batch batch;
+
+        synchronized (this) {
+            batch = this.pending;
+            this.pending = null;
+            this.lastDelivery = System.nanoTime();
+        }
+
+        if (batch.stalled && batch.stalledGeneration != this.generation.get()) {
+            batch.stalled = false;
+            batch.probabilities = null;
+        }
+
+        this.consumer.accept(batch);
+    }
+
+    // The `SolverService(Board board, Consumer<Batch> consumer)` constructor copies the board, which
+    // must already be populated, and starts the worker thread. The consumer receives the batches on
+    // the Event Dispatch Thread.
+    public SolverService(Board board, Consumer<Batch> consumer) {
+        this.board = board.copy();
+        this.solver = new Solver(this.board);
+        this.consumer = consumer;
+
+        // a daemon thread, so a running solve never keeps the program alive
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "solver");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.generation = new AtomicLong();
+
+        this.moves = new int[64];
+        this.moveCount = 0;
+        this.pending = null;
+        this.lastDelivery = 0;
+
+        this.ahead = 0;
+        this.maxAhead = Integer.MAX_VALUE;
+    }
+}
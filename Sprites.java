@@ -0,0 +1,129 @@
+import javax.imageio.ImageIO;
+import javax.swing.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import java.util.*;
+
+/**
+ * The Sprites class is a process-wide cache of the images used to draw the cells. Every PNG in
+ * `res` is decoded once when the class is loaded, and the scaled copies are built the first time a
+ * pixel size is requested, so revealing a whole board never decodes the same file twice. When the
+ * window is resized the cells simply ask for the new size and it is built lazily.
+ */
+public class Sprites {
+    public static final String[] NAMES = {"1", "2", "3", "4", "5", "6", "7", "8", "bomb", "flag", "explosion"};
+
+    // only a few sizes are ever in use at once, older
+    // ones are dropped when the window keeps being resized
+    private static final int MAX_CACHED_SIZES = 8;
+
+    private static final BufferedImage[] originals = new BufferedImage[NAMES.length];
+    private static final LinkedHashMap<Integer, ImageIcon[]> scaled = new LinkedHashMap<Integer, ImageIcon[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, ImageIcon[]> eldest) {
+            return this.size() > MAX_CACHED_SIZES;
+        }
+    };
+
+    static {
+        for (int i = 0; i < NAMES.length; i++) {
+            Profiling.IconLoad event = new Profiling.IconLoad();
+            event.begin();
+
+            try {
+                originals[i] = ImageIO.read(Sprites.class.getResource("/res/" + NAMES[i] + ".png"));
+            }
+            catch (Exception e) {
+                System.out.println("Could not load image " + NAMES[i]);
+                originals[i] = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+            }
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.icon = NAMES[i];
+                event.size = 0;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * The function returns the position of a sprite in NAMES.
+     *
+     * @param name The name of the sprite, e.g. "3" or "flag".
+     * @return The method returns the position of the sprite.
+     */
+    private static int indexOf(String name) {
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].equals(name)) {
+                return i;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown sprite " + name);
+    }
+
+    /**
+     * The function scales an image to a square of the given size.
+     *
+     * @param image The image to scale.
+     * @param size The width and height of the result in pixels.
+     * @return The method returns the scaled image.
+     */
+    private static BufferedImage scale(BufferedImage image, int size) {
+        BufferedImage result = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = result.createGraphics();
+
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(image, 0, 0, size, size, null);
+        graphics.dispose();
+
+        return result;
+    }
+
+    /**
+     * The function returns a sprite as an icon of the given size, scaling all the sprites for that
+     * size the first time it is requested.
+     *
+     * @param name The name of the sprite, e.g. "3" or "flag".
+     * @param size The width and height of the icon in pixels.
+     * @return The method returns the shared icon.
+     */
+    public static synchronized ImageIcon icon(String name, int size) {
+        ImageIcon[] icons = scaled.get(size);
+
+        if (icons == null) {
+            icons = new ImageIcon[NAMES.length];
+            for (int i = 0; i < NAMES.length; i++) {
+                Profiling.IconLoad event = new Profiling.IconLoad();
+                event.begin();
+
+                icons[i] = new ImageIcon(scale(originals[i], size));
+
+                event.end();
+                if (event.shouldCommit()) {
+                    event.icon = NAMES[i];
+                    event.size = size;
+                    event.commit();
+                }
+            }
+
+            scaled.put(size, icons);
+        }
+
+        return icons[indexOf(name)];
+    }
+
+    /**
+     * The function returns a sprite as an image of the given size.
+     *
+     * @param name The name of the sprite, e.g. "3" or "flag".
+     * @param size The width and height of the image in pixels.
+     * @return The method returns the shared image, which must not be modified.
+     */
+    public static BufferedImage image(String name, int size) {
+        return (BufferedImage) icon(name, size).getImage();
+    }
+}
@@ -0,0 +1,60 @@
+import java.util.*;
+
+/**
+ * The GenerationBenchmark class measures how long it takes to generate boards of different sizes:
+ * placing the bombs and computing the neighboring bombs of every cell.
+ *
+ * Compile and run from the project root with:
+ *   javac -sourcepath . -d out bench/GenerationBenchmark.java
+ *   java -cp out GenerationBenchmark [size ...]
+ */
+public class GenerationBenchmark {
+
+    /**
+     * The function builds a board of the given size with 15% of its cells as bombs.
+     *
+     * @param size The width and height of the board.
+     * @param seed The seed used to place the bombs.
+     * @return The method returns the board, without neighboring bombs computed.
+     */
+    static Board placeBombs(int size, long seed) {
+        Random random = new Random(seed);
+        Board board = new Board(size, size, (int)(size * size * 0.15));
+
+        for (int i = 0; i < board.size(); i++) {
+            if (random.nextDouble() < 0.15) {
+                board.makeBomb(i);
+            }
+        }
+
+        return board;
+    }
+
+    public static void main(String[] args) {
+        int[] sizes = {100, 1000, 5000};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        for (int size : sizes) {
+            Board board = placeBombs(size, 42);
+            int iterations = Math.max(3, 10_000_000 / (size * size));
+
+            for (int i = 0; i < iterations; i++) {
+                board.computeNeighboringBombs();
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                board.computeNeighboringBombs();
+            }
+            long total = System.nanoTime() - start;
+
+            System.out.printf("%dx%d: %.3f ms per computeNeighboringBombs() (%d iterations)%n",
+                              size, size, total / (iterations * 1_000_000.0), iterations);
+        }
+    }
+}
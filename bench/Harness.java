@@ -0,0 +1,277 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.regex.*;
+
+/**
+ * The Harness class is a small benchmark runner in the spirit of JMH, without any dependency so it
+ * runs with a plain JDK. Every benchmark is an Operation with an untimed prepare() step and a timed
+ * run() step. The harness runs time-boxed warmup iterations, then measurement iterations, and
+ * reports the average time per operation with the error of a 99.9% confidence interval across the
+ * measurement iterations. The values returned by run() are XORed into a sink.
+ *
+ * It is not a replacement for JMH. Every benchmark runs in the same JVM without forking, and unlike
+ * a JMH blackhole the sink doesn't reliably keep the JIT from dropping the measured work, so its
+ * numbers are indicative and should only be compared between runs on the same machine.
+ *
+ * Results can be written as JSON, one object per line inside an array, and compared against the
+ * JSON of an earlier run.
+ */
+public class Harness {
+
+    /**
+     * The Operation interface is one benchmarked operation. prepare() is called before every run()
+     * and is not measured.
+     */
+    public interface Operation {
+        default void prepare() {
+        }
+
+        long run();
+    }
+
+    /**
+     * The Result class holds the measurement of one benchmark with one set of parameters.
+     */
+    public static class Result {
+        public final String benchmark;
+        public final LinkedHashMap<String, Object> params;
+        public final double score;
+        public final double error;
+        public final int iterations;
+        public final long operations;
+
+        Result(String benchmark, LinkedHashMap<String, Object> params, double score, double error, int iterations, long operations) {
+            this.benchmark = benchmark;
+            this.params = params;
+            this.score = score;
+            this.error = error;
+            this.iterations = iterations;
+            this.operations = operations;
+        }
+
+        /**
+         * The function returns the name of the benchmark together with its parameters, which
+         * identifies it across runs.
+         *
+         * @return The method returns e.g. "populateRandom{size=100, density=15}".
+         */
+        public String key() {
+            return this.benchmark + this.params;
+        }
+
+        /**
+         * The function formats the result as a JSON object in the layout used by JMH.
+         *
+         * @return The method returns the JSON object on a single line.
+         */
+        public String toJson() {
+            StringBuilder params = new StringBuilder();
+            for (Map.Entry<String, Object> entry : this.params.entrySet()) {
+                if (params.length() > 0) {
+                    params.append(", ");
+                }
+                params.append('"').append(entry.getKey()).append("\": \"").append(entry.getValue()).append('"');
+            }
+
+            return String.format(Locale.ROOT,
+                "{\"benchmark\": \"%s\", \"mode\": \"avgt\", \"params\": {%s}, \"primaryMetric\": {\"score\": %.3f, \"scoreError\": %.3f, \"scoreUnit\": \"ns/op\"}, \"iterations\": %d, \"operations\": %d}",
+                this.benchmark, params, this.score, this.error, this.iterations, this.operations);
+        }
+    }
+
+    // Student's t for a 99.9% two-sided interval, by degrees of freedom
+    private static final double[] T_999 = {
+        Double.NaN, 636.62, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587
+    };
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationNanos;
+    private final String filter;
+
+    private final ArrayList<Result> results;
+    private long sink;
+
+    /**
+     * The function runs one iteration of an operation: it keeps preparing and running it until the
+     * iteration time has passed, and at least once.
+     *
+     * @param operation The operation to run.
+     * @param counts An array whose first element receives the amount of operations run.
+     * @return The method returns the total time spent in run() in nanoseconds.
+     */
+    private long iteration(Operation operation, long[] counts) {
+        long measured = 0;
+        long operations = 0;
+        long end = System.nanoTime() + this.iterationNanos;
+
+        do {
+            operation.prepare();
+
+            long start = System.nanoTime();
+            this.sink ^= operation.run();
+            measured += System.nanoTime() - start;
+
+            operations++;
+        } while (System.nanoTime() < end);
+
+        counts[0] = operations;
+        return measured;
+    }
+
+    /**
+     * The function benchmarks an operation, prints the result and keeps it for the JSON output.
+     * Benchmarks whose key doesn't contain the filter are skipped.
+     *
+     * @param benchmark The name of the benchmark.
+     * @param params The parameters of this run, in the order they should be shown.
+     * @param operation The operation to measure.
+     */
+    public void measure(String benchmark, LinkedHashMap<String, Object> params, Operation operation) {
+        if (this.filter != null && !(benchmark + params).contains(this.filter)) {
+            return;
+        }
+
+        long[] counts = new long[1];
+        for (int i = 0; i < this.warmupIterations; i++) {
+            this.iteration(operation, counts);
+        }
+
+        double[] scores = new double[this.measurementIterations];
+        long operations = 0;
+        for (int i = 0; i < this.measurementIterations; i++) {
+            long measured = this.iteration(operation, counts);
+
+            scores[i] = (double) measured / counts[0];
+            operations += counts[0];
+        }
+
+        double mean = 0;
+        for (double score : scores) {
+            mean += score;
+        }
+        mean /= scores.length;
+
+        double error = Double.NaN;
+        if (scores.length > 1) {
+            double variance = 0;
+            for (double score : scores) {
+                variance += (score - mean) * (score - mean);
+            }
+            variance /= scores.length - 1;
+
+            int degrees = Math.min(scores.length - 1, T_999.length - 1);
+            error = T_999[degrees] * Math.sqrt(variance / scores.length);
+        }
+
+        Result result = new Result(benchmark, params, mean, error, scores.length, operations);
+        this.results.add(result);
+
+        System.out.printf(Locale.ROOT, "%-60s %16.1f +- %12.1f ns/op%n", result.key(), mean, error);
+    }
+
+    /**
+     * The function writes all the results as a JSON array.
+     *
+     * @param path The file to write.
+     */
+    public void writeJson(String path) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(Paths.get(path)))) {
+            writer.println("[");
+            for (int i = 0; i < this.results.size(); i++) {
+                writer.println("  " + this.results.get(i).toJson() + (i + 1 < this.results.size() ? "," : ""));
+            }
+            writer.println("]");
+        }
+    }
+
+    /**
+     * The function reads the scores of a JSON file written by writeJson().
+     *
+     * @param path The file to read.
+     * @return The method returns the scores by benchmark key.
+     */
+    public static HashMap<String, Double> readScores(String path) throws IOException {
+        Pattern benchmark = Pattern.compile("\"benchmark\": \"([^\"]*)\"");
+        Pattern params = Pattern.compile("\"params\": \\{([^}]*)\\}");
+        Pattern param = Pattern.compile("\"([^\"]*)\": \"([^\"]*)\"");
+        Pattern score = Pattern.compile("\"score\": ([-0-9.eE]+)");
+
+        HashMap<String, Double> scores = new HashMap<String, Double>();
+        for (String line : Files.readAllLines(Paths.get(path))) {
+            Matcher benchmarkMatcher = benchmark.matcher(line);
+            Matcher paramsMatcher = params.matcher(line);
+            Matcher scoreMatcher = score.matcher(line);
+
+            if (!benchmarkMatcher.find() || !paramsMatcher.find() || !scoreMatcher.find()) {
+                continue;
+            }
+
+            LinkedHashMap<String, Object> values = new LinkedHashMap<String, Object>();
+            Matcher paramMatcher = param.matcher(paramsMatcher.group(1));
+            while (paramMatcher.find()) {
+                values.put(paramMatcher.group(1), paramMatcher.group(2));
+            }
+
+            scores.put(benchmarkMatcher.group(1) + values, Double.parseDouble(scoreMatcher.group(1)));
+        }
+
+        return scores;
+    }
+
+    /**
+     * The function prints the change of every result relative to an earlier run.
+     *
+     * @param path The JSON file of the earlier run.
+     */
+    public void compare(String path) throws IOException {
+        HashMap<String, Double> baseline = readScores(path);
+
+        System.out.println();
+        System.out.println("Compared to " + path + " (negative is faster):");
+        for (Result result : this.results) {
+            Double before = baseline.get(result.key());
+
+            if (before == null) {
+                System.out.printf("%-60s %16s%n", result.key(), "new");
+                continue;
+            }
+
+            System.out.printf(Locale.ROOT, "%-60s %16.1f -> %12.1f ns/op  %+7.1f%%%n",
+                              result.key(), before, result.score, 100 * (result.score - before) / before);
+        }
+    }
+
+    /**
+     * The function returns the results measured so far, in the order they were measured.
+     *
+     * @return The method returns the results.
+     */
+    public List<Result> results() {
+        return Collections.unmodifiableList(this.results);
+    }
+
+    /**
+     * The function returns the value combined from every run() call. Printing it keeps the JIT from
+     * treating the benchmarked work as dead code.
+     *
+     * @return The method returns the sink.
+     */
+    public long sink() {
+        return this.sink;
+    }
+
+    // The `Harness(int warmupIterations, int measurementIterations, long iterationMillis, String filter)`
+    // constructor creates a runner with the given iteration counts and time per iteration. A null
+    // filter runs every benchmark.
+    public Harness(int warmupIterations, int measurementIterations, long iterationMillis, String filter) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * 1_000_000;
+        this.filter = filter;
+
+        this.results = new ArrayList<Result>();
+        this.sink = 0;
+    }
+}
@@ -0,0 +1,290 @@
+import java.util.*;
+
+/**
+ * The HotPathBenchmark class measures the hot paths of a game with the Harness, each parameterised
+ * by the board size and the bomb density:
+ *   populateRandom               BoardGenerator.populateRandom()
+ *   populateProbability          BoardGenerator.populateProbability(), also by maxProbability
+ *   revealCascade                Board.revealFrom() from the first cell plus Solver.reveal() for
+ *                                every revealed cell, as in GameEngine.reveal()
+ *   calculateProbabilityOfBomb   Board.calculateProbabilityOfBomb() for every cell of the board
+ *   probabilityFieldLookup       the same values read from the cached ProbabilityField
+ *   solveSituation               Solver.solveSituation() on a board with half its safe cells revealed
+ *   autoSolveInstant             SolverService.solveInstant(), the whole auto solve from the first
+ *                                opening without playback or painting
+ *
+ * Compile and run from the project root with:
+ *   javac -sourcepath . -d out bench/Harness.java bench/HotPathBenchmark.java
+ *   java -cp out HotPathBenchmark [--sizes=10,100,1000] [--densities=10,15,20]
+ *                                 [--warmup=2] [--iterations=5] [--time=200] [--filter=TEXT]
+ *                                 [--json=FILE] [--baseline=FILE]
+ *
+ * --json writes the results as JSON, and --baseline compares them against the JSON of an earlier run.
+ */
+public class HotPathBenchmark {
+    private static final int[] MAX_PROBABILITIES = {4, 8, 20};
+
+    /**
+     * The function builds the parameters of a benchmark from name and value pairs.
+     *
+     * @param pairs The names and values, alternating.
+     * @return The method returns the parameters in the given order.
+     */
+    static LinkedHashMap<String, Object> params(Object... pairs) {
+        LinkedHashMap<String, Object> params = new LinkedHashMap<String, Object>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            params.put((String) pairs[i], pairs[i + 1]);
+        }
+
+        return params;
+    }
+
+    static int bombAmount(int size, int density) {
+        return (int) ((long) size * size * density / 100);
+    }
+
+    static int[] parseList(String value) {
+        String[] parts = value.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+
+        return values;
+    }
+
+    /**
+     * The function builds a board with its bombs placed from a fixed seed and the neighboring bombs
+     * counted, so every call gives the same board.
+     *
+     * @param size The width and height of the board.
+     * @param density The percentage of cells that are bombs.
+     * @return The method returns the board.
+     */
+    static Board populatedBoard(int size, int density) {
+        Board board = new Board(size, size, bombAmount(size, density));
+        BoardGenerator.populateRandom(board, board.index(size / 2, size / 2), new Random(42));
+        board.computeNeighboringBombs();
+
+        return board;
+    }
+
+    /**
+     * The function finds the cell the reveal cascade starts from: the first cell without
+     * neighboring bombs from the middle of the board on, so the benchmark measures an opening.
+     *
+     * @param board The populated board.
+     * @return The method returns the board index of the cell.
+     */
+    static int cascadeStart(Board board) {
+        int middle = board.index(board.height / 2, board.width / 2);
+
+        for (int i = 0; i < board.size(); i++) {
+            int cell = (middle + i) % board.size();
+
+            if (!board.isBomb(cell) && board.getNeighboringBombs(cell) == 0) {
+                return cell;
+            }
+        }
+
+        return middle;
+    }
+
+    /**
+     * The function builds a board with half of its safe cells revealed at random, which spreads the
+     * frontier over the whole board.
+     *
+     * @param size The width and height of the board.
+     * @param density The percentage of cells that are bombs.
+     * @return The method returns the board.
+     */
+    static Board halfRevealedBoard(int size, int density) {
+        Board board = populatedBoard(size, density);
+        Random random = new Random(7);
+
+        for (int i = 0; i < board.size(); i++) {
+            if (!board.isBomb(i) && random.nextBoolean()) {
+                board.reveal(i);
+            }
+        }
+
+        return board;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = {10, 100, 1000};
+        int[] densities = {10, 15, 20};
+        int warmup = 2;
+        int iterations = 5;
+        long time = 200;
+        String filter = null;
+        String json = null;
+        String baseline = null;
+
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+
+            if (arg.startsWith("--sizes=")) {
+                sizes = parseList(value);
+            } else if (arg.startsWith("--densities=")) {
+                densities = parseList(value);
+            } else if (arg.startsWith("--warmup=")) {
+                warmup = Integer.parseInt(value);
+            } else if (arg.startsWith("--iterations=")) {
+                iterations = Integer.parseInt(value);
+            } else if (arg.startsWith("--time=")) {
+                time = Long.parseLong(value);
+            } else if (arg.startsWith("--filter=")) {
+                filter = value;
+            } else if (arg.startsWith("--json=")) {
+                json = value;
+            } else if (arg.startsWith("--baseline=")) {
+                baseline = value;
+            } else {
+                throw new IllegalArgumentException("Unknown argument " + arg);
+            }
+        }
+
+        Harness harness = new Harness(warmup, iterations, time, filter);
+
+        for (int size : sizes) {
+            for (int density : densities) {
+                int bombAmount = bombAmount(size, density);
+                int firstCell = size / 2 * size + size / 2;
+                Random random = new Random(1);
+
+                harness.measure("populateRandom", params("size", size, "density", density), new Harness.Operation() {
+                    Board board;
+
+                    @Override
+                    public void prepare() {
+                        this.board = new Board(size, size, bombAmount);
+                    }
+
+                    @Override
+                    public long run() {
+                        BoardGenerator.populateRandom(this.board, firstCell, random);
+                        return this.board.isBomb(0) ? 1 : 0;
+                    }
+                });
+
+                for (int maxProbability : MAX_PROBABILITIES) {
+                    harness.measure("populateProbability", params("size", size, "density", density, "maxProbability", maxProbability),
+                                    new Harness.Operation() {
+                        Board board;
+
+                        @Override
+                        public void prepare() {
+                            this.board = new Board(size, size, bombAmount);
+                        }
+
+                        @Override
+                        public long run() {
+                            BoardGenerator.populateProbability(this.board, firstCell, maxProbability, random);
+                            return this.board.isBomb(0) ? 1 : 0;
+                        }
+                    });
+                }
+
+                harness.measure("revealCascade", params("size", size, "density", density), new Harness.Operation() {
+                    Board board;
+                    Solver solver;
+                    int start;
+
+                    @Override
+                    public void prepare() {
+                        this.board = populatedBoard(size, density);
+                        this.solver = new Solver(this.board);
+                        this.start = cascadeStart(this.board);
+                    }
+
+                    @Override
+                    public long run() {
+                        int[] revealed = this.board.revealFrom(this.start);
+                        for (int index : revealed) {
+                            this.solver.reveal(index);
+                        }
+
+                        return revealed.length;
+                    }
+                });
+
+                Board solverBoard = halfRevealedBoard(size, density);
+                harness.measure("solveSituation", params("size", size, "density", density), new Harness.Operation() {
+                    Solver solver;
+
+                    @Override
+                    public void prepare() {
+                        this.solver = new Solver(solverBoard);
+                    }
+
+                    @Override
+                    public long run() {
+                        SolverResult result = this.solver.solveSituation();
+
+                        // stalling is a valid outcome for the benchmark
+                        return result.stalled ? this.solver.foundUnknown.size() : result.safe().length;
+                    }
+                });
+
+                harness.measure("autoSolveInstant", params("size", size, "density", density), new Harness.Operation() {
+                    Board board;
+
+                    @Override
+                    public void prepare() {
+                        this.board = populatedBoard(size, density);
+                        this.board.revealFrom(cascadeStart(this.board));
+                    }
+
+                    @Override
+                    public long run() {
+                        return SolverService.solveInstant(this.board);
+                    }
+                });
+            }
+
+            // the density doesn't change the formula,
+            // so this one is only parameterised by size
+            harness.measure("calculateProbabilityOfBomb", params("size", size, "maxProbability", 8), new Harness.Operation() {
+                @Override
+                public long run() {
+                    double total = 0;
+                    for (int row = 0; row < size; row++) {
+                        for (int col = 0; col < size; col++) {
+                            total += Board.calculateProbabilityOfBomb(row, col, size / 2, size / 2, size, 8);
+                        }
+                    }
+
+                    return Double.doubleToLongBits(total);
+                }
+            });
+
+            // the same sweep through the cached table
+            harness.measure("probabilityFieldLookup", params("size", size, "maxProbability", 8), new Harness.Operation() {
+                @Override
+                public long run() {
+                    double[] field = ProbabilityField.byDistance(size, size, 8);
+                    double total = 0;
+                    for (int row = 0; row < size; row++) {
+                        for (int col = 0; col < size; col++) {
+                            total += ProbabilityField.probability(field, row, col, size / 2, size / 2);
+                        }
+                    }
+
+                    return Double.doubleToLongBits(total);
+                }
+            });
+        }
+
+        if (json != null) {
+            harness.writeJson(json);
+            System.out.println("Results written to " + json);
+        }
+        if (baseline != null) {
+            harness.compare(baseline);
+        }
+
+        // keeps the results of the benchmarks alive
+        System.out.println("sink " + harness.sink());
+    }
+}
@@ -0,0 +1,103 @@
+import java.util.*;
+
+/**
+ * The NoGuessBenchmark class measures how fast the NoGuessGenerator finds boards that can be
+ * cleared without guessing. For every difficulty preset and both population strategies it
+ * generates a number of boards from the middle of the board and reports the time-to-board
+ * percentiles, the candidates tried per board and the attempts per second across all cores.
+ *
+ * Compile and run from the project root with:
+ *   javac -sourcepath . -d out bench/Simulation.java bench/NoGuessBenchmark.java
+ *   java -cp out NoGuessBenchmark [--boards=N] [--seed=N] [--timeout=MS] [--custom=WIDTHxHEIGHT/BOMBS ...]
+ */
+public class NoGuessBenchmark {
+
+    /**
+     * The function generates boards for one configuration and prints the statistics.
+     *
+     * @param name The name of the configuration.
+     * @param width The width of the boards.
+     * @param height The height of the boards.
+     * @param bombAmount The amount of bombs.
+     * @param useProbability Whether the probability-based population is used.
+     * @param boards The amount of boards to generate.
+     * @param seed The seed of the first candidate.
+     * @param timeoutMillis How long one board may take.
+     */
+    static void run(String name, int width, int height, int bombAmount, boolean useProbability,
+                    int boards, long seed, long timeoutMillis) throws InterruptedException {
+        long[] latencies = new long[boards];
+        long attempts = 0;
+        long nanos = 0;
+        int timeouts = 0;
+        int firstCell = height / 2 * width + width / 2;
+
+        for (int i = 0; i < boards; i++) {
+            // spreads the boards far apart in the seed space
+            long firstSeed = seed + i * 1_000_000_007L;
+            NoGuessGenerator.Result result = NoGuessGenerator.generate(width, height, bombAmount, firstCell, useProbability,
+                                                                       8, firstSeed, timeoutMillis);
+
+            if (result == null) {
+                timeouts++;
+                latencies[i] = timeoutMillis * 1_000_000;
+                continue;
+            }
+
+            latencies[i] = result.nanos;
+            attempts += result.attempts;
+            nanos += result.nanos;
+        }
+
+        Arrays.sort(latencies);
+
+        System.out.printf(Locale.ROOT, "%-10s %-11s %8.1f attempts/board  %9.0f attempts/s  p50 %8.2f ms  p90 %8.2f ms  max %8.2f ms  timeouts %d%n",
+                          name, useProbability ? "probability" : "random",
+                          (double) attempts / Math.max(1, boards - timeouts), attempts / Math.max(1e-9, nanos / 1e9),
+                          Simulation.percentile(latencies, 50), Simulation.percentile(latencies, 90),
+                          Simulation.percentile(latencies, 100), timeouts);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int boards = 100;
+        long seed = 1;
+        long timeoutMillis = 10_000;
+
+        ArrayList<String> names = new ArrayList<String>(Arrays.asList("easy", "medium", "hard"));
+        ArrayList<int[]> presets = new ArrayList<int[]>(Arrays.asList(new int[] {10, 10, 15}, new int[] {20, 20, 60}, new int[] {30, 30, 135}));
+
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+
+            if (arg.startsWith("--boards=")) {
+                boards = Integer.parseInt(value);
+            } else if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(value);
+            } else if (arg.startsWith("--timeout=")) {
+                timeoutMillis = Long.parseLong(value);
+            } else if (arg.startsWith("--custom=")) {
+                // WIDTHxHEIGHT/BOMBS
+                String[] parts = value.split("[x/]");
+                names.add(value);
+                presets.add(new int[] {Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2])});
+            } else {
+                throw new IllegalArgumentException("Unknown argument " + arg);
+            }
+        }
+
+        System.out.printf("%d boards per configuration on %d threads%n", boards, Runtime.getRuntime().availableProcessors());
+
+        for (int i = 0; i < presets.size(); i++) {
+            int[] preset = presets.get(i);
+
+            // a short warmup so the first configuration
+            // isn't measured while the JIT is compiling
+            if (i == 0) {
+                run("warmup", preset[0], preset[1], preset[2], false, boards, seed, timeoutMillis);
+            }
+
+            run(names.get(i), preset[0], preset[1], preset[2], false, boards, seed, timeoutMillis);
+            run(names.get(i), preset[0], preset[1], preset[2], true, boards, seed, timeoutMillis);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+import java.util.*;
+
+/**
+ * The PlacementBenchmark class compares BoardGenerator.populateRandom(), which samples the bombs
+ * without replacement with Floyd's algorithm, against the rejection sampling it replaced, which
+ * draws random cells until it hits one that isn't a bomb yet. The time is reported per bomb, so a
+ * flat line across densities shows the O(bombs) behavior, while the rejection sampling grows with
+ * n / (n - bombs) as the board fills up.
+ *
+ * Compile and run from the project root with:
+ *   javac -sourcepath . -d out bench/Harness.java bench/PlacementBenchmark.java
+ *   java -cp out PlacementBenchmark [--sizes=100,1000] [--densities=10,50,90,99] [--json=FILE]
+ */
+public class PlacementBenchmark {
+
+    /**
+     * The function is the previous random population, kept as the reference: it picks random cells
+     * and skips the ones that are already bombs or the first cell.
+     *
+     * @param board The board to populate, which must not contain bombs yet.
+     * @param firstCell The board index of the first clicked cell.
+     * @param random The random generator used to place the bombs.
+     */
+    static void populateRejection(Board board, int firstCell, Random random) {
+        int remainingBombs = board.bombAmount;
+
+        while (remainingBombs > 0) {
+            int randomCell = board.index(random.nextInt(board.height), random.nextInt(board.width));
+
+            if (board.isBomb(randomCell) || randomCell == firstCell) {
+                continue;
+            }
+
+            board.makeBomb(randomCell);
+            remainingBombs--;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = {100, 1000};
+        int[] densities = {10, 50, 90, 99};
+        String json = null;
+
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+
+            if (arg.startsWith("--sizes=")) {
+                sizes = HotPathBenchmark.parseList(value);
+            } else if (arg.startsWith("--densities=")) {
+                densities = HotPathBenchmark.parseList(value);
+            } else if (arg.startsWith("--json=")) {
+                json = value;
+            } else {
+                throw new IllegalArgumentException("Unknown argument " + arg);
+            }
+        }
+
+        Harness harness = new Harness(2, 5, 200, null);
+        Random random = new Random(1);
+
+        for (int size : sizes) {
+            for (int density : densities) {
+                int bombAmount = HotPathBenchmark.bombAmount(size, density);
+                int firstCell = size / 2 * size + size / 2;
+
+                harness.measure("floyd", HotPathBenchmark.params("size", size, "density", density), new Harness.Operation() {
+                    Board board;
+
+                    @Override
+                    public void prepare() {
+                        this.board = new Board(size, size, bombAmount);
+                    }
+
+                    @Override
+                    public long run() {
+                        BoardGenerator.populateRandom(this.board, firstCell, random);
+                        return this.board.isBomb(0) ? 1 : 0;
+                    }
+                });
+
+                harness.measure("rejection", HotPathBenchmark.params("size", size, "density", density), new Harness.Operation() {
+                    Board board;
+
+                    @Override
+                    public void prepare() {
+                        this.board = new Board(size, size, bombAmount);
+                    }
+
+                    @Override
+                    public long run() {
+                        populateRejection(this.board, firstCell, random);
+                        return this.board.isBomb(0) ? 1 : 0;
+                    }
+                });
+            }
+        }
+
+        System.out.println();
+        System.out.println("ns per bomb:");
+        for (Harness.Result result : harness.results()) {
+            int size = (Integer) result.params.get("size");
+            int density = (Integer) result.params.get("density");
+
+            System.out.printf(Locale.ROOT, "%-40s %8.2f%n", result.key(),
+                              result.score / HotPathBenchmark.bombAmount(size, density));
+        }
+
+        if (json != null) {
+            harness.writeJson(json);
+        }
+
+        // keeps the results of the benchmarks alive
+        System.out.println("sink " + harness.sink());
+    }
+}
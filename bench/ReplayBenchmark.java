@@ -0,0 +1,141 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * The ReplayBenchmark class re-runs games recorded by the window, which writes a replay of every
+ * game into the replays directory. Every replay is played back on a GameEngine without a window as
+ * fast as possible, so a slow game can be captured once and measured again after every change. For
+ * every file it reports the moves, how long the game took when it was played, how long a full
+ * replay takes and how long it takes to seek to a random move.
+ *
+ * With --solver a Solver follows the replay and solves the situation after every move made while
+ * the hint mode was on, like the window does, and the time spent in the solver is reported apart.
+ *
+ * Compile and run from the project root with:
+ *   javac -sourcepath . -d out bench/ReplayBenchmark.java
+ *   java -cp out ReplayBenchmark [--repeat=N] [--seeks=N] [--solver] FILE ...
+ */
+public class ReplayBenchmark {
+
+    /**
+     * The function plays a replay from the first to the last move.
+     *
+     * @param replay The replay.
+     * @param solve Whether the solver follows the replay.
+     * @param solverNanos Receives the time spent in the solver.
+     * @return The method returns the cursor after the last move.
+     */
+    static Replay.Cursor play(Replay replay, boolean solve, long[] solverNanos) {
+        Replay.Cursor cursor = replay.start();
+
+        if (!solve) {
+            while (cursor.next()) {
+                // the engine applies the moves
+            }
+
+            return cursor;
+        }
+
+        Solver solver = new Solver(cursor.engine.board);
+        cursor.engine.addListener(event -> {
+            if (event instanceof GameEvent.CellsRevealed) {
+                for (int index : ((GameEvent.CellsRevealed) event).cells) {
+                    solver.reveal(index);
+                }
+            }
+        });
+
+        while (cursor.next()) {
+            if (!cursor.hintMode || cursor.engine.isOver()) {
+                continue;
+            }
+
+            long start = System.nanoTime();
+            if (solver.solveSituation().stalled) {
+                solver.computeProbabilities();
+            }
+            solverNanos[0] += System.nanoTime() - start;
+        }
+
+        return cursor;
+    }
+
+    /**
+     * The function measures one replay and prints the results.
+     *
+     * @param file The replay file.
+     * @param repeat How many times the whole replay is played.
+     * @param seeks How many random moves are seeked to.
+     * @param solve Whether the solver follows the replay.
+     */
+    static void run(File file, int repeat, int seeks, boolean solve) throws IOException {
+        Replay replay = Replay.read(file);
+
+        System.out.printf(Locale.ROOT, "%s: %dx%d/%d seed %d, %d moves, %d keyframes, %d bytes, played in %.1f s%n",
+                          file.getName(), replay.width, replay.height, replay.bombAmount, replay.seed,
+                          replay.moveCount, replay.keyframes(), file.length(), replay.recordedMillis / 1000.0);
+
+        // the first replay warms up the JIT
+        long[] solverNanos = new long[1];
+        Replay.Cursor cursor = play(replay, solve, solverNanos);
+
+        long total = 0;
+        solverNanos[0] = 0;
+        for (int i = 0; i < repeat; i++) {
+            long start = System.nanoTime();
+            cursor = play(replay, solve, solverNanos);
+            total += System.nanoTime() - start;
+        }
+
+        double millis = total / (repeat * 1_000_000.0);
+        System.out.printf(Locale.ROOT, "  replay   %10.3f ms  %12.0f moves/s  ends %s%n",
+                          millis, replay.moveCount / Math.max(1e-9, millis / 1000), cursor.engine.getState());
+        if (solve) {
+            System.out.printf(Locale.ROOT, "  solver   %10.3f ms%n", solverNanos[0] / (repeat * 1_000_000.0));
+        }
+
+        if (seeks > 0 && replay.moveCount > 0) {
+            Random random = new Random(1);
+            long start = System.nanoTime();
+
+            for (int i = 0; i < seeks; i++) {
+                replay.seek(random.nextInt(replay.moveCount + 1));
+            }
+
+            System.out.printf(Locale.ROOT, "  seek     %10.3f ms per random move%n",
+                              (System.nanoTime() - start) / (seeks * 1_000_000.0));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int repeat = 10;
+        int seeks = 100;
+        boolean solve = false;
+        ArrayList<File> files = new ArrayList<File>();
+
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+
+            if (arg.startsWith("--repeat=")) {
+                repeat = Integer.parseInt(value);
+            } else if (arg.startsWith("--seeks=")) {
+                seeks = Integer.parseInt(value);
+            } else if (arg.equals("--solver")) {
+                solve = true;
+            } else if (arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unknown argument " + arg);
+            } else {
+                files.add(new File(arg));
+            }
+        }
+
+        if (files.isEmpty()) {
+            System.out.println("No replay files given, the window records them in " + Game.REPLAY_DIRECTORY);
+            return;
+        }
+
+        for (File file : files) {
+            run(file, Math.max(1, repeat), seeks, solve);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+
+/**
+ * The Simulation class plays many games without a window to measure how often the solver wins and
+ * how fast games are played. For every difficulty preset and both population strategies it plays
+ * a GameEngine whose boards are generated with the BoardGenerator, opens the first cell in the
+ * middle of the board and keeps revealing the cells the Solver finds safe. The solver follows the
+ * game through the events of the engine, like it does in the window. When the solver needs a
+ * guess, the guess policy
+ * decides what happens:
+ *   probability  reveal the cell with the lowest exact bomb probability (the default)
+ *   random       reveal a random cell that isn't a found bomb
+ *   none         stop, the game counts as lost
+ *
+ * The games are spread over a ForkJoin pool, and every game uses its own seed so a run can be
+ * repeated exactly.
+ *
+ * Compile and run from the project root with:
+ *   javac -sourcepath . -d out bench/Simulation.java
+ *   java -cp out Simulation [--games=N] [--threads=N] [--guess=probability|random|none]
+ *                           [--seed=N] [--custom=WIDTHxHEIGHT/BOMBS ...]
+ */
+public class Simulation {
+
+    /**
+     * The Result class holds the outcome of one game.
+     */
+    static class Result {
+        final boolean won;
+        final int guesses;
+        final long nanos;
+
+        Result(boolean won, int guesses, long nanos) {
+            this.won = won;
+            this.guesses = guesses;
+            this.nanos = nanos;
+        }
+    }
+
+    /**
+     * The function checks whether a cell can still be guessed, i.e. it is unrevealed and the solver
+     * hasn't decided it.
+     *
+     * @param board The board being played.
+     * @param solver The solver of the board.
+     * @param cell The board index of the cell.
+     * @return The method returns true if the cell is undecided.
+     */
+    static boolean isUndecided(Board board, Solver solver, int cell) {
+        return !board.isRevealed(cell) && !solver.foundBombs.contains(cell) && !solver.foundSafe.contains(cell);
+    }
+
+    /**
+     * The function picks a random undecided cell, optionally skipping the cells of the frontier.
+     *
+     * @param board The board being played.
+     * @param solver The solver of the board.
+     * @param exclude Cells that must not be picked, or null.
+     * @param random The random generator of the game.
+     * @return The method returns the board index of the cell, or -1 if there is none.
+     */
+    static int randomUndecided(Board board, Solver solver, Map<Integer, Double> exclude, Random random) {
+        // sampling finds a cell quickly while the board is still
+        // mostly undecided, the scan handles the end of the game
+        for (int attempt = 0; attempt < 64; attempt++) {
+            int cell = random.nextInt(board.size());
+
+            if (isUndecided(board, solver, cell) && (exclude == null || !exclude.containsKey(cell))) {
+                return cell;
+            }
+        }
+
+        int start = random.nextInt(board.size());
+        for (int i = 0; i < board.size(); i++) {
+            int cell = (start + i) % board.size();
+
+            if (isUndecided(board, solver, cell) && (exclude == null || !exclude.containsKey(cell))) {
+                return cell;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * The function picks the cell to reveal when the solver needs a guess.
+     *
+     * @param board The board being played.
+     * @param solver The solver of the board.
+     * @param policy The guess policy, "probability" or "random".
+     * @param random The random generator of the game.
+     * @return The method returns the board index of the cell to reveal, or -1 if there is none.
+     */
+    static int guess(Board board, Solver solver, String policy, Random random) {
+        if (!policy.equals("probability")) {
+            return randomUndecided(board, solver, null, random);
+        }
+
+        BombProbabilities probabilities = solver.computeProbabilities();
+        if (probabilities == null) {
+            return randomUndecided(board, solver, null, random);
+        }
+
+        int best = -1;
+        double bestProbability = 2;
+        for (Map.Entry<Integer, Double> entry : probabilities.frontier.entrySet()) {
+            if (entry.getValue() < bestProbability) {
+                best = entry.getKey();
+                bestProbability = entry.getValue();
+            }
+        }
+
+        int interiorCells = board.size() - board.revealedCount - solver.foundBombs.size()
+                            - solver.unrevealedSafe - probabilities.frontier.size();
+        if (interiorCells > 0 && probabilities.interior < bestProbability) {
+            return randomUndecided(board, solver, probabilities.frontier, random);
+        }
+
+        return best;
+    }
+
+    /**
+     * The function plays one game from the first click until it is won or lost.
+     *
+     * @param width The width of the board.
+     * @param height The height of the board.
+     * @param bombAmount The amount of bombs.
+     * @param useProbability Whether the bombs are placed with the probability population.
+     * @param policy The guess policy.
+     * @param seed The seed of the game.
+     * @return The method returns the outcome of the game.
+     */
+    static Result play(int width, int height, int bombAmount, boolean useProbability, String policy, long seed) {
+        long start = System.nanoTime();
+        Random random = new Random(seed);
+
+        Board board = new Board(width, height, bombAmount);
+        int firstCell = board.index(height / 2, width / 2);
+
+        GameEngine engine = new GameEngine(board, (populated, cell) -> {
+            if (useProbability) {
+                // the default maximum probability of the menu
+                BoardGenerator.populateProbability(populated, cell, 8, random);
+            } else {
+                BoardGenerator.populateRandom(populated, cell, random);
+            }
+        });
+
+        Solver solver = new Solver(board);
+        engine.addListener(event -> {
+            if (event instanceof GameEvent.CellsRevealed) {
+                for (int index : ((GameEvent.CellsRevealed) event).cells) {
+                    solver.reveal(index);
+                }
+            }
+        });
+        engine.reveal(firstCell);
+
+        int guesses = 0;
+        while (engine.getState() == GameEngine.State.PLAYING) {
+            SolverResult result = solver.solveSituation();
+
+            if (!result.stalled) {
+                // the engine ignores the cells revealed by an earlier cascade
+                for (int safe : result.safe()) {
+                    engine.reveal(safe);
+                }
+                continue;
+            }
+
+            int cell = policy.equals("none") ? -1 : guess(board, solver, policy, random);
+            if (cell < 0) {
+                return new Result(false, guesses, System.nanoTime() - start);
+            }
+
+            guesses++;
+            engine.reveal(cell);
+        }
+
+        return new Result(engine.getState() == GameEngine.State.WON, guesses, System.nanoTime() - start);
+    }
+
+    /**
+     * The function returns the given percentile of sorted latencies.
+     *
+     * @param sorted The latencies in nanoseconds, sorted in ascending order.
+     * @param percentile The percentile between 0 and 100.
+     * @return The method returns the latency in milliseconds.
+     */
+    static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1_000_000.0;
+    }
+
+    /**
+     * The function plays a batch of games of one configuration on the pool and prints a summary.
+     *
+     * @param pool The pool the games are played on.
+     * @param name The name of the configuration.
+     * @param width The width of the boards.
+     * @param height The height of the boards.
+     * @param bombAmount The amount of bombs.
+     * @param useProbability Whether the bombs are placed with the probability population.
+     * @param policy The guess policy.
+     * @param games The amount of games.
+     * @param seed The seed of the first game, the others use the following seeds.
+     */
+    static void run(ForkJoinPool pool, String name, int width, int height, int bombAmount,
+                    boolean useProbability, String policy, int games, long seed) throws Exception {
+        Result[] results = new Result[games];
+
+        long start = System.nanoTime();
+        pool.submit(() -> IntStream.range(0, games).parallel().forEach(
+            i -> results[i] = play(width, height, bombAmount, useProbability, policy, seed + i))
+        ).get();
+        long elapsed = System.nanoTime() - start;
+
+        int wins = 0;
+        long guesses = 0;
+        long[] latencies = new long[games];
+        for (int i = 0; i < games; i++) {
+            wins += results[i].won ? 1 : 0;
+            guesses += results[i].guesses;
+            latencies[i] = results[i].nanos;
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("%-10s %-11s %8.0f games/s  win %5.1f%%  %5.2f guesses/game  p50 %7.3f ms  p90 %7.3f ms  p99 %7.3f ms  max %7.3f ms%n",
+                          name, useProbability ? "probability" : "random",
+                          games / (elapsed / 1e9), 100.0 * wins / games, (double) guesses / games,
+                          percentile(latencies, 50), percentile(latencies, 90), percentile(latencies, 99),
+                          percentile(latencies, 100));
+    }
+
+    public static void main(String[] args) throws Exception {
+        int games = 10_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String policy = "probability";
+        long seed = 1;
+
+        ArrayList<String> names = new ArrayList<String>(Arrays.asList("easy", "medium", "hard"));
+        ArrayList<int[]> presets = new ArrayList<int[]>(Arrays.asList(new int[] {10, 10, 15}, new int[] {20, 20, 60}, new int[] {30, 30, 135}));
+
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+
+            if (arg.startsWith("--games=")) {
+                games = Integer.parseInt(value);
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(value);
+            } else if (arg.startsWith("--guess=")) {
+                policy = value;
+            } else if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(value);
+            } else if (arg.startsWith("--custom=")) {
+                // WIDTHxHEIGHT/BOMBS
+                String[] parts = value.split("[x/]");
+                names.add(value);
+                presets.add(new int[] {Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2])});
+            } else {
+                throw new IllegalArgumentException("Unknown argument " + arg);
+            }
+        }
+
+        if (!Arrays.asList("probability", "random", "none").contains(policy)) {
+            throw new IllegalArgumentException("Unknown guess policy " + policy);
+        }
+
+        System.out.printf("%d games per configuration on %d threads, guess policy: %s%n", games, threads, policy);
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (int i = 0; i < presets.size(); i++) {
+                int[] preset = presets.get(i);
+
+                // a short warmup so the first configuration
+                // isn't measured while the JIT is compiling
+                if (i == 0) {
+                    run(pool, "warmup", preset[0], preset[1], preset[2], false, policy, Math.min(games, 2000), seed);
+                }
+
+                run(pool, names.get(i), preset[0], preset[1], preset[2], false, policy, games, seed);
+                run(pool, names.get(i), preset[0], preset[1], preset[2], true, policy, games, seed);
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+}
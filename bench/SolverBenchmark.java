@@ -0,0 +1,162 @@
+import java.util.*;
+
+/**
+ * The SolverBenchmark class measures how long Solver.solveSituation() takes on boards of different
+ * sizes, both for a fresh solver and for a single hint after one more cell was revealed. Half of
+ * the safe cells of each board are revealed at random so the frontier spreads over the whole
+ * board, which is the worst case for the solver's found cell sets.
+ *
+ * Compile and run from the project root with:
+ *   javac -sourcepath . -d out bench/SolverBenchmark.java
+ *   java -cp out SolverBenchmark [size ...]
+ */
+public class SolverBenchmark {
+
+    /**
+     * The function builds a board with bombs placed at random and half of its safe cells revealed,
+     * with the neighboring bombs of every revealed cell already counted.
+     *
+     * @param size The width and height of the board.
+     * @param seed The seed used for the bombs and the revealed cells.
+     * @return The method returns the prepared board.
+     */
+    static Board prepareBoard(int size, long seed) {
+        Random random = new Random(seed);
+        Board board = new Board(size, size, (int)(size * size * 0.15));
+        int[] neighbors = new int[8];
+
+        for (int i = 0; i < board.size(); i++) {
+            if (random.nextDouble() < 0.15) {
+                board.makeBomb(i);
+            }
+        }
+
+        for (int i = 0; i < board.size(); i++) {
+            if (board.isBomb(i) || random.nextBoolean()) {
+                continue;
+            }
+
+            int neighboringBombs = 0;
+            int neighborCount = board.neighbors(i, neighbors);
+            for (int n = 0; n < neighborCount; n++) {
+                if (board.isBomb(neighbors[n])) {
+                    neighboringBombs++;
+                }
+            }
+
+            board.setNeighboringBombs(i, neighboringBombs);
+            board.reveal(i);
+        }
+
+        return board;
+    }
+
+    /**
+     * The function runs a fresh solver over the board once and returns the elapsed time in
+     * nanoseconds.
+     *
+     * @param board The board to solve.
+     * @return The method returns the duration of the solveSituation() call.
+     */
+    static long solveOnce(Board board) {
+        Solver solver = new Solver(board);
+        long start = System.nanoTime();
+
+        // stalling is a valid outcome for the benchmark
+        solver.solveSituation();
+
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * The function reveals one more safe cell next to the solver's frontier and returns how long
+     * the following solveSituation() call takes, which is the cost of a single hint.
+     *
+     * @param board The board being solved.
+     * @param solver The solver that has already solved the board once.
+     * @param random The random generator used to pick the cell.
+     * @return The method returns the duration of the solveSituation() call, or -1 if no cell was left.
+     */
+    static long solveStep(Board board, Solver solver, Random random) {
+        int[] neighbors = new int[8];
+        int cell = -1;
+
+        for (int attempt = 0; attempt < 1000 && cell < 0; attempt++) {
+            int candidate = random.nextInt(board.size());
+
+            if (!board.isRevealed(candidate) && !board.isBomb(candidate)) {
+                cell = candidate;
+            }
+        }
+        if (cell < 0) {
+            return -1;
+        }
+
+        int neighboringBombs = 0;
+        int neighborCount = board.neighbors(cell, neighbors);
+        for (int n = 0; n < neighborCount; n++) {
+            if (board.isBomb(neighbors[n])) {
+                neighboringBombs++;
+            }
+        }
+        board.setNeighboringBombs(cell, neighboringBombs);
+        board.reveal(cell);
+        solver.reveal(cell);
+
+        long start = System.nanoTime();
+
+        // stalling is a valid outcome for the benchmark
+        solver.solveSituation();
+
+        return System.nanoTime() - start;
+    }
+
+    public static void main(String[] args) {
+        int[] sizes = {100, 1000};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        for (int size : sizes) {
+            Board board = prepareBoard(size, 42);
+
+            // fewer iterations for the large boards so a run stays short
+            int iterations = Math.max(3, 1_000_000 / (size * size));
+
+            for (int i = 0; i < iterations; i++) {
+                solveOnce(board);
+            }
+
+            long total = 0;
+            for (int i = 0; i < iterations; i++) {
+                total += solveOnce(board);
+            }
+
+            System.out.printf("%dx%d: %.3f ms per full solveSituation() (%d iterations)%n",
+                              size, size, total / (iterations * 1_000_000.0), iterations);
+
+            Solver solver = new Solver(board);
+            // stalling is a valid outcome for the benchmark
+            solver.solveSituation();
+
+            Random random = new Random(7);
+            int steps = 0;
+            total = 0;
+            for (int i = 0; i < 1000; i++) {
+                long duration = solveStep(board, solver, random);
+                if (duration < 0) {
+                    break;
+                }
+
+                total += duration;
+                steps++;
+            }
+
+            System.out.printf("%dx%d: %.3f ms per solveSituation() after revealing one cell (%d steps)%n",
+                              size, size, total / (Math.max(1, steps) * 1_000_000.0), steps);
+        }
+    }
+}
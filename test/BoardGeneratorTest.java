@@ -0,0 +1,167 @@
+import java.util.*;
+
+/**
+ * The BoardGeneratorTest class checks the probability-based population, including a maximum
+ * probability of 0, where every probability of the field is 0, and that the bombs land with the
+ * chances the probability overlay draws. The project has no test framework, so the
+ * checks are plain code that throws an AssertionError on the first failure.
+ *
+ * Compile and run from the project root with:
+ *   javac -sourcepath . -d out test/BoardGeneratorTest.java
+ *   java -cp out BoardGeneratorTest
+ */
+public class BoardGeneratorTest {
+
+    static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    /**
+     * The function populates a board and checks that it has exactly its bombs, none of them on the
+     * first cell.
+     *
+     * @return The method returns the populated board.
+     */
+    static Board populate(int width, int height, int bombAmount, int firstCell, int maxProbability, long seed) {
+        Board board = new Board(width, height, bombAmount);
+        BoardGenerator.populateProbability(board, firstCell, maxProbability, new Random(seed));
+
+        int bombs = 0;
+        for (int bomb = board.nextBomb(0); bomb >= 0; bomb = board.nextBomb(bomb + 1)) {
+            bombs++;
+        }
+
+        check(bombs == bombAmount, "placed " + bombs + " bombs instead of " + bombAmount);
+        check(!board.isBomb(firstCell), "the first cell is a bomb");
+
+        return board;
+    }
+
+    /**
+     * The function checks that a maximum probability of 0 spreads the bombs over the whole board.
+     * Filling it in scan order would put all of them into the first rows.
+     */
+    static void zeroMaxProbabilityIsUniform() {
+        int size = 100;
+
+        for (int bombAmount : new int[] {500, 2000, 8000}) {
+            for (long seed = 0; seed < 5; seed++) {
+                Board board = populate(size, size, bombAmount, index(size, 50, 50), 0, seed);
+
+                // every quarter of the rows holds about a quarter of the bombs
+                int[] quarters = new int[4];
+                for (int bomb = board.nextBomb(0); bomb >= 0; bomb = board.nextBomb(bomb + 1)) {
+                    quarters[board.row(bomb) * 4 / size]++;
+                }
+
+                for (int quarter : quarters) {
+                    double share = (double) quarter / bombAmount;
+                    check(Math.abs(share - 0.25) < 0.05,
+                          "a quarter of the rows holds " + quarter + " of " + bombAmount + " bombs: " + Arrays.toString(quarters));
+                }
+            }
+        }
+    }
+
+    /**
+     * The function checks that a maximum probability of 0 gives the same bombs for the same seed.
+     */
+    static void zeroMaxProbabilityIsReproducible() {
+        Board a = populate(30, 20, 100, 0, 0, 42);
+        Board b = populate(30, 20, 100, 0, 0, 42);
+
+        for (int cell = 0; cell < a.size(); cell++) {
+            check(a.isBomb(cell) == b.isBomb(cell), "the same seed gave different bombs at " + cell);
+        }
+    }
+
+    /**
+     * The function checks that a positive maximum probability still keeps the bombs away from the
+     * first cell.
+     */
+    static void positiveMaxProbabilityFavorsDistance() {
+        int size = 100;
+        int firstCell = index(size, 50, 50);
+        Board board = populate(size, size, 2000, firstCell, 50, 7);
+
+        int near = 0;
+        int nearCells = 0;
+        for (int cell = 0; cell < board.size(); cell++) {
+            int distance = Math.abs(board.row(cell) - 50) + Math.abs(board.col(cell) - 50);
+
+            if (distance <= 10 && cell != firstCell) {
+                nearCells++;
+                near += board.isBomb(cell) ? 1 : 0;
+            }
+        }
+
+        check((double) near / nearCells < 0.2 * 0.5, near + " of " + nearCells + " cells near the first cell are bombs");
+    }
+
+    /**
+     * The function checks that the bombs of many boards land on every distance from the first cell
+     * as often as the chances drawn by the probability overlay say.
+     */
+    static void frequenciesMatchChances() {
+        int width = 12;
+        int height = 10;
+        int bombAmount = 30;
+        int boards = 20000;
+        int firstRow = 3;
+        int firstCol = 2;
+
+        for (int maxProbability : new int[] {8, 50, 100}) {
+            double[] chances = ProbabilityField.chanceByDistance(width, height, bombAmount, maxProbability, firstRow, firstCol);
+            int[] counts = ProbabilityField.cellsByDistance(width, height, firstRow, firstCol);
+            long[] bombs = new long[counts.length];
+
+            Random random = new Random(maxProbability);
+            for (int i = 0; i < boards; i++) {
+                Board board = new Board(width, height, bombAmount);
+                BoardGenerator.populateProbability(board, index(width, firstRow, firstCol), maxProbability, random);
+
+                for (int bomb = board.nextBomb(0); bomb >= 0; bomb = board.nextBomb(bomb + 1)) {
+                    bombs[Math.abs(board.row(bomb) - firstRow) + Math.abs(board.col(bomb) - firstCol)]++;
+                }
+            }
+
+            for (int distance = 1; distance < counts.length; distance++) {
+                if (counts[distance] == 0) {
+                    continue;
+                }
+
+                double frequency = (double) bombs[distance] / boards / counts[distance];
+                check(Math.abs(frequency - chances[distance]) < 0.01,
+                      "cells at distance " + distance + " became bombs in " + frequency + " of the boards instead of "
+                      + chances[distance] + " with a maximum of " + maxProbability + "%");
+            }
+        }
+    }
+
+    /**
+     * The function checks that the maximum probability still shapes the chances.
+     */
+    static void maxProbabilityChangesChances() {
+        double[] low = ProbabilityField.chanceByDistance(100, 100, 2000, 10, 50, 50);
+        double[] high = ProbabilityField.chanceByDistance(100, 100, 2000, 100, 50, 50);
+
+        check(high[5] < low[5] * 0.9, "a maximum of 100% gave the chance " + high[5] + " near the first cell instead of less than "
+                                      + low[5] * 0.9);
+    }
+
+    static int index(int width, int row, int col) {
+        return row * width + col;
+    }
+
+    public static void main(String[] args) {
+        zeroMaxProbabilityIsUniform();
+        zeroMaxProbabilityIsReproducible();
+        positiveMaxProbabilityFavorsDistance();
+        frequenciesMatchChances();
+        maxProbabilityChangesChances();
+
+        System.out.println("BoardGeneratorTest passed");
+    }
+}
@@ -0,0 +1,267 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * The ReplayLogTest class records a game with a ReplayLog and reads it back with a Replay. It checks
+ * the header, that playing the replay back gives the recorded game after every move, that seeking
+ * to a move through the keyframes gives the same game as playing up to it, and that a log cut off
+ * at any byte is read up to its last complete move. The project has no test framework, so the
+ * checks are plain code that throws an AssertionError on the first failure.
+ *
+ * Compile and run from the project root with:
+ *   javac -sourcepath . -d out test/ReplayLogTest.java
+ *   java -cp out ReplayLogTest
+ */
+public class ReplayLogTest {
+    static final int WIDTH = 40;
+    static final int HEIGHT = 40;
+    static final int BOMB_AMOUNT = 300;
+    static final long SEED = -1234567L;
+
+    static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    /**
+     * The Recording class holds a recorded log together with the state of the game after every
+     * move, where states[m] is the state after m moves.
+     */
+    static class Recording {
+        byte[] data;
+        int firstCell;
+        ArrayList<String> states = new ArrayList<String>();
+    }
+
+    /**
+     * The function describes the revealed and flagged cells and the modes of a game as a string, so
+     * that two games can be compared.
+     *
+     * @return The method returns the description.
+     */
+    static String state(Board board, boolean hintMode, boolean autoMode) {
+        StringBuilder state = new StringBuilder(board.size() + 2);
+
+        for (int cell = 0; cell < board.size(); cell++) {
+            state.append(board.isRevealed(cell) ? 'R' : board.isFlagged(cell) ? 'F' : '.');
+        }
+        state.append(hintMode ? 'h' : '-');
+        state.append(autoMode ? 'a' : '-');
+
+        return state.toString();
+    }
+
+    static String state(Replay.Cursor cursor) {
+        return state(cursor.engine.board, cursor.hintMode, cursor.autoMode);
+    }
+
+    /**
+     * The function plays a game with random moves of every type that are all recorded, without
+     * losing it, and remembers the state after every move.
+     *
+     * @return The method returns the recording.
+     */
+    static Recording record() throws IOException {
+        Random random = new Random(42);
+        Recording recording = new Recording();
+
+        Board board = new Board(WIDTH, HEIGHT, BOMB_AMOUNT);
+        recording.firstCell = index(20, 20);
+        BoardGenerator.populateProbability(board, recording.firstCell, 0, new Random(SEED));
+        board.computeNeighboringBombs();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReplayLog log = new ReplayLog(out, board, SEED, recording.firstCell, false, false);
+        GameEngine engine = new GameEngine(board, recording.firstCell);
+        engine.setLog(log);
+
+        boolean hintMode = false;
+        boolean autoMode = false;
+        int[] neighbors = new int[8];
+
+        recording.states.add(state(board, hintMode, autoMode));
+        engine.reveal(recording.firstCell);
+        recording.states.add(state(board, hintMode, autoMode));
+
+        while (recording.states.size() <= 3 * ReplayLog.KEYFRAME_MOVES && !engine.isOver()) {
+            int action = random.nextInt(100);
+            int cell = random.nextInt(board.size());
+            boolean recorded;
+
+            if (action < 80) {
+                recorded = engine.flag(cell) != GameEngine.Outcome.IGNORED;
+            } else if (action < 83) {
+                recorded = !board.isBomb(cell) && !board.isFlagged(cell) && !board.isRevealed(cell);
+                if (recorded) {
+                    engine.reveal(cell);
+                }
+            } else if (action < 88) {
+                // a step of the auto solve reveals safe cells, possibly flagged ones
+                recorded = !board.isBomb(cell) && !board.isRevealed(cell) && board.getNeighboringBombs(cell) > 0;
+                if (recorded) {
+                    engine.revealSolved(new int[] {cell});
+                }
+            } else if (action < 93) {
+                // a chord is only safe if every flag around the number is on a bomb
+                int flagged = 0;
+                boolean wrongFlag = false;
+                int neighborCount = board.neighbors(cell, neighbors);
+                for (int n = 0; n < neighborCount; n++) {
+                    if (board.isFlagged(neighbors[n])) {
+                        flagged++;
+                        wrongFlag |= !board.isBomb(neighbors[n]);
+                    }
+                }
+
+                recorded = board.isRevealed(cell) && !wrongFlag && flagged == board.getNeighboringBombs(cell);
+                if (recorded) {
+                    engine.chord(cell);
+                }
+            } else if (action < 97) {
+                log.hint();
+                hintMode = !hintMode;
+                recorded = true;
+            } else {
+                log.autoMode();
+                autoMode = !autoMode;
+                recorded = true;
+            }
+
+            if (recorded) {
+                recording.states.add(state(board, hintMode, autoMode));
+            }
+        }
+
+        check(engine.getState() != GameEngine.State.LOST, "the recorded game was lost");
+
+        log.close();
+        recording.data = out.toByteArray();
+
+        return recording;
+    }
+
+    /**
+     * The function checks that the header holds the board and that the replay has all the moves.
+     */
+    static void headerRoundTrips(Recording recording) throws IOException {
+        Replay replay = new Replay(recording.data);
+
+        check(replay.width == WIDTH && replay.height == HEIGHT, "read a " + replay.width + "x" + replay.height + " board");
+        check(replay.bombAmount == BOMB_AMOUNT, "read " + replay.bombAmount + " bombs");
+        check(replay.seed == SEED, "read the seed " + replay.seed + " instead of " + SEED);
+        check(replay.firstCell == recording.firstCell, "read the first cell " + replay.firstCell);
+        check(replay.moveCount == recording.states.size() - 1,
+              "read " + replay.moveCount + " moves instead of " + (recording.states.size() - 1));
+        check(replay.keyframes() > 3, "wrote only " + replay.keyframes() + " keyframes for " + replay.moveCount + " moves");
+        check(replay.recordedMillis >= 0, "read " + replay.recordedMillis + " recorded milliseconds");
+
+        // the replayed board has the bombs the game was played on
+        Board board = new Board(WIDTH, HEIGHT, BOMB_AMOUNT);
+        BoardGenerator.populateProbability(board, recording.firstCell, 0, new Random(SEED));
+        Board replayed = replay.start().engine.board;
+        for (int cell = 0; cell < board.size(); cell++) {
+            check(board.isBomb(cell) == replayed.isBomb(cell), "the bomb at " + cell + " differs");
+        }
+    }
+
+    /**
+     * The function checks that playing the replay back from the start gives the recorded state
+     * after every move.
+     */
+    static void playbackMatchesGame(Recording recording) throws IOException {
+        Replay replay = new Replay(recording.data);
+        Replay.Cursor cursor = replay.start();
+
+        check(state(cursor).equals(recording.states.get(0)), "the replay starts with a different game");
+
+        while (cursor.next()) {
+            check(state(cursor).equals(recording.states.get(cursor.move)), "the replay differs after move " + cursor.move);
+        }
+
+        check(cursor.move == replay.moveCount, "played back " + cursor.move + " of " + replay.moveCount + " moves");
+    }
+
+    /**
+     * The function checks that seeking to every move restores the recorded state, whichever
+     * keyframe it starts from.
+     */
+    static void seekMatchesGame(Recording recording) throws IOException {
+        Replay replay = new Replay(recording.data);
+
+        for (int move = 0; move <= replay.moveCount; move++) {
+            Replay.Cursor cursor = replay.seek(move);
+
+            check(cursor.move == move, "seeking to move " + move + " stopped at move " + cursor.move);
+            check(state(cursor).equals(recording.states.get(move)), "seeking to move " + move + " gave a different game");
+        }
+
+        // the game goes on the same way after a seek
+        Replay.Cursor cursor = replay.seek(replay.moveCount / 2);
+        while (cursor.next()) {
+            check(state(cursor).equals(recording.states.get(cursor.move)), "the replay differs after seeking and move " + cursor.move);
+        }
+    }
+
+    /**
+     * The function checks that a log cut off in its header isn't read, and that a log cut off later
+     * is read up to its last complete move, as after a crash.
+     */
+    static void truncatedLogIsReadUpToLastMove(Recording recording) {
+        int headerEnd = -1;
+        int lastMoveCount = 0;
+
+        for (int length = 0; length <= recording.data.length; length++) {
+            // every cut in the header and the first moves, then a sample of the others
+            if (length >= 256 && length % 11 != 0 && length != recording.data.length) {
+                continue;
+            }
+
+            Replay replay;
+            try {
+                replay = new Replay(Arrays.copyOf(recording.data, length));
+            } catch (IOException e) {
+                check(headerEnd < 0, "a log cut at " + length + " bytes wasn't read, but a shorter one was: " + e.getMessage());
+                continue;
+            }
+
+            if (headerEnd < 0) {
+                headerEnd = length;
+                check(headerEnd > ReplayLog.MAGIC.length, "a log cut at " + length + " bytes was read");
+            }
+
+            check(replay.moveCount >= lastMoveCount, "a log cut at " + length + " bytes lost moves of a shorter one");
+            lastMoveCount = replay.moveCount;
+
+            Replay.Cursor cursor = replay.seek(replay.moveCount);
+            check(state(cursor).equals(recording.states.get(replay.moveCount)),
+                  "a log cut at " + length + " bytes gave a different game after move " + replay.moveCount);
+            check(!cursor.next(), "a log cut at " + length + " bytes has moves after its last one");
+        }
+
+        check(headerEnd > 0, "no cut log was read");
+        check(lastMoveCount == recording.states.size() - 1, "the whole log has " + lastMoveCount + " moves");
+
+        try {
+            new Replay(new byte[] {'M', 'S', 'R', 'P', (byte) (ReplayLog.FORMAT_VERSION + 1)});
+            check(false, "read a replay of an unknown version");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    static int index(int row, int col) {
+        return row * WIDTH + col;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Recording recording = record();
+
+        headerRoundTrips(recording);
+        playbackMatchesGame(recording);
+        seekMatchesGame(recording);
+        truncatedLogIsReadUpToLastMove(recording);
+
+        System.out.println("ReplayLogTest passed");
+    }
+}
@@ -0,0 +1,182 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * The SaveGameTest class writes partly played games with SaveGame and reads them back, and checks
+ * that damaged or cut off save files are rejected with an IOException, which the menu reports as
+ * "Could not load game", instead of failing with an index exception. The project has no test
+ * framework, so the checks are plain code that throws an AssertionError on the first failure.
+ *
+ * Compile and run from the project root with:
+ *   javac -sourcepath . -d out test/SaveGameTest.java
+ *   java -cp out SaveGameTest
+ */
+public class SaveGameTest {
+
+    static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    /**
+     * The function creates a started game with revealed and flagged cells, including flags on
+     * cells that aren't bombs.
+     *
+     * @return The method returns the saved game, which isn't written yet.
+     */
+    static SaveGame play(int width, int height, int bombAmount, long seed) {
+        Random random = new Random(seed);
+        Board board = new Board(width, height, bombAmount);
+        int firstCell = random.nextInt(board.size());
+
+        BoardGenerator.populateRandom(board, firstCell, random);
+        board.computeNeighboringBombs();
+        board.revealFrom(firstCell);
+
+        for (int i = 0; i < board.size() / 20; i++) {
+            int cell = random.nextInt(board.size());
+
+            if (!board.isRevealed(cell)) {
+                board.toggleFlag(cell);
+            }
+        }
+
+        int options = SaveGame.USE_PROBABILITY | SaveGame.NO_GUESS | SaveGame.AUTO_SOLVE;
+
+        return new SaveGame(board, 37, firstCell, 123, seed, options);
+    }
+
+    static File write(SaveGame save) throws IOException {
+        File file = File.createTempFile("savegame", ".sav");
+        file.deleteOnExit();
+        save.write(file);
+
+        return file;
+    }
+
+    /**
+     * The function checks that a game is read back with every cell and every header field.
+     */
+    static void roundTrip(int width, int height, int bombAmount, long seed) throws IOException {
+        SaveGame save = play(width, height, bombAmount, seed);
+        SaveGame read = SaveGame.read(write(save));
+        Board board = save.board;
+        Board readBoard = read.board;
+
+        check(readBoard.width == width && readBoard.height == height,
+              "read a " + readBoard.width + "x" + readBoard.height + " board instead of " + width + "x" + height);
+        check(readBoard.bombAmount == bombAmount, "read " + readBoard.bombAmount + " bombs");
+        check(read.maxProbability == save.maxProbability, "read the maximum probability " + read.maxProbability);
+        check(read.firstCell == save.firstCell, "read the first cell " + read.firstCell);
+        check(read.time == save.time, "read the time " + read.time);
+        check(read.seed == save.seed, "read the seed " + read.seed);
+        check(read.options == save.options, "read the options " + read.options);
+
+        check(readBoard.revealedCount == board.revealedCount, "read " + readBoard.revealedCount + " revealed cells");
+        check(readBoard.flaggedCount == board.flaggedCount, "read " + readBoard.flaggedCount + " flags");
+
+        for (int cell = 0; cell < board.size(); cell++) {
+            check(readBoard.isBomb(cell) == board.isBomb(cell), "the bomb at " + cell + " differs");
+            check(readBoard.isFlagged(cell) == board.isFlagged(cell), "the flag at " + cell + " differs");
+            check(readBoard.isRevealed(cell) == board.isRevealed(cell), "the revealed cell " + cell + " differs");
+            check(readBoard.getNeighboringBombs(cell) == board.getNeighboringBombs(cell), "the count of " + cell + " differs");
+        }
+    }
+
+    /**
+     * The function writes a changed copy of a save file and checks that reading it fails with an
+     * IOException.
+     */
+    static void checkDamaged(byte[] data, String description) throws IOException {
+        File file = File.createTempFile("savegame", ".sav");
+        file.deleteOnExit();
+        Files.write(file.toPath(), data);
+
+        try {
+            SaveGame.read(file);
+        } catch (IOException e) {
+            return;
+        }
+
+        throw new AssertionError("read a save file with " + description);
+    }
+
+    static byte[] withInt(byte[] data, int offset, int value) {
+        byte[] changed = data.clone();
+        ByteBuffer.wrap(changed).order(ByteOrder.LITTLE_ENDIAN).putInt(offset, value);
+
+        return changed;
+    }
+
+    /**
+     * The function checks that a damaged header, a damaged board and a cut off file are rejected.
+     */
+    static void damagedFilesAreRejected() throws IOException {
+        // an odd amount of cells, so the last count is in a byte of its own
+        SaveGame save = play(37, 23, 150, 5);
+        byte[] data = Files.readAllBytes(write(save).toPath());
+        int cells = save.board.size();
+
+        // the offsets of the header fields and of the packed board
+        int width = 8;
+        int height = 12;
+        int bombAmount = 16;
+        int maxProbability = 20;
+        int firstCell = 24;
+        int words = 8 * ((cells + 63) / 64);
+        int bombs = SaveGame.HEADER_SIZE;
+        int revealed = bombs + 2 * words;
+        int counts = bombs + 3 * words;
+
+        byte[] magic = data.clone();
+        magic[0] = 'X';
+        checkDamaged(magic, "a wrong magic number");
+        checkDamaged(withInt(data, 4, SaveGame.FORMAT_VERSION + 1), "an unknown version");
+
+        checkDamaged(withInt(data, width, 36), "a wrong width");
+        checkDamaged(withInt(data, height, -23), "a negative height");
+        checkDamaged(withInt(data, width, 1 << 20), "a huge width");
+        checkDamaged(withInt(data, bombAmount, Integer.MAX_VALUE), "a huge amount of bombs");
+        checkDamaged(withInt(data, bombAmount, -1), "a negative amount of bombs");
+        checkDamaged(withInt(data, bombAmount, cells), "a bomb on every cell");
+        checkDamaged(withInt(data, bombAmount, 149), "one bomb less than the board has");
+        checkDamaged(withInt(data, maxProbability, 101), "a maximum probability over 100");
+        checkDamaged(withInt(data, firstCell, cells), "the first cell outside of the board");
+        checkDamaged(withInt(data, firstCell, save.board.nextBomb(0)), "the first cell on a bomb");
+
+        // the last word of the revealed cells has a bit after the last cell
+        byte[] padding = data.clone();
+        padding[counts - 1] |= (byte) 0x80;
+        checkDamaged(padding, "a revealed cell outside of the board");
+
+        byte[] revealedBomb = data.clone();
+        int bomb = save.board.nextBomb(0);
+        revealedBomb[revealed + bomb / 8] |= (byte) (1 << (bomb % 8));
+        checkDamaged(revealedBomb, "a revealed bomb");
+
+        byte[] count = data.clone();
+        count[counts] |= (byte) 0x0F;
+        checkDamaged(count, "a count of 15");
+
+        checkDamaged(Arrays.copyOf(data, data.length - 1), "its last byte cut off");
+        checkDamaged(Arrays.copyOf(data, SaveGame.HEADER_SIZE), "only its header");
+        checkDamaged(Arrays.copyOf(data, 20), "a cut off header");
+        checkDamaged(new byte[0], "no bytes");
+
+        // the unchanged file is still read
+        SaveGame.read(write(save));
+    }
+
+    public static void main(String[] args) throws IOException {
+        roundTrip(9, 9, 10, 1);
+        roundTrip(37, 23, 150, 2);
+        roundTrip(1, 1, 0, 3);
+        roundTrip(1001, 999, 150000, 4);
+        damagedFilesAreRejected();
+
+        System.out.println("SaveGameTest passed");
+    }
+}